@@ -0,0 +1,75 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffix;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+
+/**
+ * Measures the throughput of each suffix generator, alone and wrapped in each
+ * decorator, from one thread and from several threads sharing the generator
+ * (as the request threads of the service do).
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PidSuffixGeneratorBenchmark {
+
+    @Param({"hex-secure", "hex-fast", "uuid4", "uuid7", "sequence"})
+    public String generator;
+
+    @Param({"none", "upper-case", "lower-case", "prefixed"})
+    public String decorator;
+
+    private PidSuffixGenerator suffixGenerator;
+
+    @Setup
+    public void setUp() {
+        PidSuffixGenerator base = switch (this.generator) {
+            case "hex-secure" -> new HexChunksGenerator(4, false);
+            case "hex-fast" -> new HexChunksGenerator(4, true);
+            case "uuid4" -> new PidSuffixGenUuid4();
+            case "uuid7" -> new PidSuffixGenUuid7();
+            case "sequence" -> new PidSuffixGenSequence(
+                    new AtomicLong()::getAndIncrement, 1000, PidSuffixGenSequence.Encoding.CROCKFORD_BASE32, true);
+            default -> throw new IllegalArgumentException("Unknown generator " + this.generator);
+        };
+        this.suffixGenerator = switch (this.decorator) {
+            case "none" -> base;
+            case "upper-case" -> new PidSuffixGenUpperCase(base);
+            case "lower-case" -> new PidSuffixGenLowerCase(base);
+            case "prefixed" -> new PidSuffixGenPrefixed(base, "kit-");
+            default -> throw new IllegalArgumentException("Unknown decorator " + this.decorator);
+        };
+    }
+
+    @Benchmark
+    public PidSuffix generate() {
+        return this.suffixGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PidSuffix generateConcurrently() {
+        return this.suffixGenerator.generate();
+    }
+}
@@ -0,0 +1,102 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+
+/**
+ * Compares inserting UUID4 and UUID7 suffixes into a primary key index, as
+ * the PID records are stored in the database of the service.
+ * <p>
+ * Besides the insert throughput, the {@code appended} counter reports how
+ * many suffixes sorted after all suffixes inserted before, i.e. were written
+ * to the last page of the index instead of a random one. Run with
+ * {@code ./gradlew jmh -PjmhIncludes=SuffixIndexBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuffixIndexBenchmark {
+
+    @Param({"uuid4", "uuid7"})
+    public String generator;
+
+    private PidSuffixGenerator suffixGenerator;
+    private Connection connection;
+    private PreparedStatement insert;
+    private String last;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Locality {
+        public long appended;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        this.suffixGenerator = switch (this.generator) {
+            case "uuid4" -> new PidSuffixGenUuid4();
+            case "uuid7" -> new PidSuffixGenUuid7();
+            default -> throw new IllegalArgumentException("Unknown generator " + this.generator);
+        };
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:suffixes-" + this.generator);
+    }
+
+    /**
+     * Starts each iteration with an empty index, so both generators insert
+     * into an index of the same size.
+     */
+    @Setup(Level.Iteration)
+    public void createIndex() throws SQLException {
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS pid_record");
+            statement.execute("CREATE TABLE pid_record (pid VARCHAR(255) PRIMARY KEY)");
+        }
+        this.insert = this.connection.prepareStatement("INSERT INTO pid_record (pid) VALUES (?)");
+        this.last = null;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeInsert() throws SQLException {
+        this.insert.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        this.connection.close();
+    }
+
+    @Benchmark
+    public int insert(Locality locality) throws SQLException {
+        String suffix = this.suffixGenerator.generate().get();
+        if (this.last == null || this.last.compareTo(suffix) < 0) {
+            this.last = suffix;
+            locality.appended++;
+        }
+        this.insert.setString(1, suffix);
+        return this.insert.executeUpdate();
+    }
+}
@@ -0,0 +1,113 @@
+package edu.kit.datamanager.pit.pidsystem.impl.handle;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.kit.datamanager.pit.common.ManagedExecutors;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.configuration.HandleProtocolProperties;
+import edu.kit.datamanager.pit.domain.PIDRecord;
+import edu.kit.datamanager.pit.pidsystem.RegistrationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.handle.api.HSAdapter;
+import net.handle.hdllib.HandleException;
+import net.handle.hdllib.HandleValue;
+
+/**
+ * Measures how many records per second the Handle adapter registers in bulk,
+ * against a local stand-in for the Handle server which takes a fixed time for
+ * each call. A window of one registers one record after the other.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhIncludes=HandleRegistrationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandleRegistrationBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+    private static final int POOL_SIZE = 8;
+    private static final long LATENCY_MILLIS = 2;
+
+    @Param({"1", "4", "16"})
+    public int window;
+
+    private final Map<String, HandleValue[]> handles = new ConcurrentHashMap<>();
+    private final AtomicLong batches = new AtomicLong();
+    private ManagedExecutors executors;
+    private HandleProtocolAdapter adapter;
+
+    /**
+     * @return a client which creates handles on the stand-in, taking a fixed latency for each call.
+     */
+    private HSAdapter client() {
+        return (HSAdapter) Proxy.newProxyInstance(
+                HSAdapter.class.getClassLoader(),
+                new Class<?>[]{HSAdapter.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "client@" + System.identityHashCode(proxy);
+                    case "createHandle" -> {
+                        Thread.sleep(LATENCY_MILLIS);
+                        if (handles.putIfAbsent((String) args[0], (HandleValue[]) args[1]) != null) {
+                            throw new HandleException(HandleException.HANDLE_ALREADY_EXISTS, "exists");
+                        }
+                        yield null;
+                    }
+                    default -> throw new HandleException(HandleException.INTERNAL_ERROR, "not implemented");
+                });
+    }
+
+    @Setup
+    public void setUp() throws HandleException {
+        HandleProtocolProperties props = new HandleProtocolProperties();
+        props.setClientPoolSize(POOL_SIZE);
+        props.setBulkRegistrationWindow(this.window);
+        HandleClientPool clients = HandleClientPool.create(
+                POOL_SIZE, this::client, Duration.ofSeconds(10), new SimpleMeterRegistry());
+        this.executors = new ManagedExecutors(new ApplicationProperties());
+        this.adapter = new HandleProtocolAdapter(props, clients, new HandleValue(100, "HS_ADMIN", ""), this.executors);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.executors.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<RegistrationResult> registerBatch() {
+        long batch = this.batches.getAndIncrement();
+        List<PIDRecord> records = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            PIDRecord pidRecord = new PIDRecord().withPID("sandboxed/" + batch + "-" + i);
+            pidRecord.addEntry("21.T11148/076759916209e5d62bd5", "", "21.T11148/301c6f04763a16f0f72a");
+            records.add(pidRecord);
+        }
+        return this.adapter.registerPidsUnchecked(records);
+    }
+}
@@ -24,26 +24,43 @@ import edu.kit.datamanager.pit.cli.CliTaskWriteFile;
 import edu.kit.datamanager.pit.cli.ICliTask;
 import edu.kit.datamanager.pit.cli.PidSource;
 import edu.kit.datamanager.pit.common.InvalidConfigException;
+import edu.kit.datamanager.pit.common.ManagedExecutors;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.configuration.PidGenerationProperties;
 import edu.kit.datamanager.pit.domain.PIDRecord;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixReservoir;
+import edu.kit.datamanager.pit.pidgeneration.SequenceBlockLeaser;
+import edu.kit.datamanager.pit.pidgeneration.SequenceBlocksDao;
+import edu.kit.datamanager.pit.pidlog.KnownPidFilter;
+import edu.kit.datamanager.pit.pidlog.KnownPidsDao;
 import edu.kit.datamanager.pit.pidsystem.IIdentifierSystem;
 import edu.kit.datamanager.pit.pitservice.ITypingService;
 import edu.kit.datamanager.pit.pitservice.IValidationStrategy;
 import edu.kit.datamanager.pit.pitservice.impl.TypingService;
 import edu.kit.datamanager.pit.resolver.Resolver;
 import edu.kit.datamanager.pit.typeregistry.ITypeRegistry;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryCaches;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryCachesEndpoint;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryResponseStore;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
+import edu.kit.datamanager.pit.typeregistry.impl.FallbackTypeRegistry;
+import edu.kit.datamanager.pit.typeregistry.impl.LocalTypeRegistry;
 import edu.kit.datamanager.pit.typeregistry.impl.TypeApi;
+import edu.kit.datamanager.pit.typeregistry.resilience.UpstreamGuards;
+import edu.kit.datamanager.pit.typeregistry.resilience.UpstreamHealthIndicator;
+import edu.kit.datamanager.pit.typeregistry.schema.CompiledSchemaStore;
 import edu.kit.datamanager.pit.typeregistry.schema.SchemaSetGenerator;
 import edu.kit.datamanager.pit.web.converter.SimplePidRecordConverter;
 import edu.kit.datamanager.security.filter.KeycloakJwtProperties;
-import org.apache.http.client.HttpClient;
-import org.apache.http.impl.client.cache.CacheConfig;
-import org.apache.http.impl.client.cache.CachingHttpClientBuilder;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InjectionPoint;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -54,11 +71,11 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.IOException;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 @SpringBootApplication
@@ -87,10 +104,6 @@ public class Application {
     protected static final String ERROR_CONFIGURATION = "Configuration error: {}";
     private static final Logger LOG = LoggerFactory.getLogger(Application.class);
 
-    public static ExecutorService newExecutor() {
-        return Executors.newThreadPerTaskExecutor(Executors.defaultThreadFactory());
-    }
-
     @Bean(name = "OBJECT_MAPPER_BEAN")
     public static ObjectMapper jsonObjectMapper() {
         return Jackson2ObjectMapperBuilder.json()
@@ -184,44 +197,138 @@ public class Application {
         return LoggerFactory.getLogger(targetClass.getCanonicalName());
     }
 
+    @Bean(destroyMethod = "close")
+    public ManagedExecutors managedExecutors(ApplicationProperties props) {
+        ManagedExecutors executors = new ManagedExecutors(props);
+        executors.bindTo(Metrics.globalRegistry);
+        return executors;
+    }
+
     @Bean
-    public SchemaSetGenerator schemaSetGenerator(ApplicationProperties props) {
-        return new SchemaSetGenerator(props);
+    public RegistryCaches registryCaches() {
+        return new RegistryCaches(Metrics.globalRegistry);
     }
 
     @Bean
-    public ITypeRegistry typeRegistry(ApplicationProperties props, SchemaSetGenerator schemaSetGenerator) {
-        return new TypeApi(props, schemaSetGenerator);
+    public RegistryCachesEndpoint registryCachesEndpoint(RegistryCaches caches) {
+        return new RegistryCachesEndpoint(caches);
     }
 
     @Bean
-    public Resolver resolver(ITypingService identifierSystem) {
-        return new Resolver(identifierSystem);
+    public RegistryResponseStore registryResponseStore(ApplicationProperties props) {
+        return new RegistryResponseStore(props.getCacheSnapshotPath());
     }
 
     @Bean
-    public ITypingService typingService(IIdentifierSystem identifierSystem, ITypeRegistry typeRegistry, IValidationStrategy defaultStrategy) {
-        return new TypingService(identifierSystem, typeRegistry, defaultStrategy);
+    public UpstreamGuards upstreamGuards(ApplicationProperties props) {
+        return new UpstreamGuards(props, Metrics.globalRegistry);
     }
 
     @Bean
-    public HttpClient httpClient() {
-        return CachingHttpClientBuilder
-                .create()
-                .setCacheConfig(cacheConfig())
-                .build();
+    public HealthIndicator typeRegistryHealthIndicator(UpstreamGuards upstreamGuards) {
+        return new UpstreamHealthIndicator(upstreamGuards);
     }
 
     @Bean
-    public CacheConfig cacheConfig() {
-        return CacheConfig
-                .custom()
-                .setMaxObjectSize(500000) // 500KB
-                .setMaxCacheEntries(2000)
-                // Set this to false and a response with queryString
-                // will be cached when it is explicitly cacheable
-                // .setNeverCacheHTTP10ResponsesWithQueryString(false)
-                .build();
+    public RegistryHttpClients registryHttpClients(ApplicationProperties props, UpstreamGuards upstreamGuards) {
+        return new RegistryHttpClients(props, upstreamGuards, Metrics.globalRegistry);
+    }
+
+    @Bean
+    public CompiledSchemaStore compiledSchemaStore() {
+        CompiledSchemaStore store = new CompiledSchemaStore();
+        store.bindTo(Metrics.globalRegistry);
+        return store;
+    }
+
+    @Bean
+    public SchemaSetGenerator schemaSetGenerator(
+            ApplicationProperties props,
+            RegistryResponseStore responseStore,
+            RegistryHttpClients httpClients,
+            ManagedExecutors executors,
+            RegistryCaches caches,
+            CompiledSchemaStore compiledSchemas
+    ) {
+        return new SchemaSetGenerator(props, responseStore, httpClients, executors, caches, compiledSchemas);
+    }
+
+    @Bean
+    public ITypeRegistry typeRegistry(
+            ApplicationProperties props,
+            SchemaSetGenerator schemaSetGenerator,
+            RegistryResponseStore responseStore,
+            RegistryHttpClients httpClients,
+            ManagedExecutors executors,
+            RegistryCaches caches
+    ) {
+        ApplicationProperties.TypeRegistryImpl implementation = props.getTypeRegistryImplementation();
+        if (implementation == ApplicationProperties.TypeRegistryImpl.REMOTE) {
+            return new TypeApi(props, schemaSetGenerator, responseStore, httpClients, executors, caches);
+        }
+        if (props.getTypeRegistryLocalPath() == null) {
+            throw new InvalidConfigException("pit.typeregistry.local.path is required for type registry implementation " + implementation);
+        }
+        ITypeRegistry local = new LocalTypeRegistry(props.getTypeRegistryLocalPath());
+        if (implementation == ApplicationProperties.TypeRegistryImpl.LOCAL) {
+            return local;
+        }
+        return new FallbackTypeRegistry(local, new TypeApi(props, schemaSetGenerator, responseStore, httpClients, executors, caches));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "pit.pidgeneration", name = "mode", havingValue = "sequence")
+    public SequenceBlockLeaser sequenceBlockLeaser(
+            SequenceBlocksDao sequenceBlocksDao,
+            PlatformTransactionManager transactionManager,
+            PidGenerationProperties pidGenerationProperties
+    ) {
+        return new SequenceBlockLeaser(sequenceBlocksDao, transactionManager, pidGenerationProperties.getSequenceName());
+    }
+
+    @Bean(destroyMethod = "close")
+    public PidSuffixReservoir pidSuffixReservoir(
+            PidSuffixGenerator suffixGenerator,
+            ITypingService typingService,
+            PidGenerationProperties pidGenerationProperties,
+            ManagedExecutors executors
+    ) {
+        PidSuffixReservoir reservoir = new PidSuffixReservoir(
+                suffixGenerator,
+                typingService,
+                pidGenerationProperties.getReservoirSize(),
+                pidGenerationProperties.getReservoirLowWatermark(),
+                executors.io(),
+                Metrics.globalRegistry);
+        reservoir.refill();
+        return reservoir;
+    }
+
+    @Bean
+    public Resolver resolver(ITypingService identifierSystem) {
+        return new Resolver(identifierSystem);
+    }
+
+    @Bean
+    public ITypingService typingService(
+            IIdentifierSystem identifierSystem,
+            ITypeRegistry typeRegistry,
+            IValidationStrategy defaultStrategy,
+            KnownPidsDao knownPidsDao,
+            PidGenerationProperties pidGenerationProperties,
+            ManagedExecutors executors
+    ) {
+        // built here, as the typing service is an identifier system itself
+        KnownPidFilter knownPids = new KnownPidFilter(
+                identifierSystem,
+                knownPidsDao,
+                pidGenerationProperties.getKnownPidsFilterSize(),
+                pidGenerationProperties.getKnownPidsFilterFalsePositiveRate(),
+                Metrics.globalRegistry);
+        if (knownPids.isEnabled()) {
+            CompletableFuture.runAsync(knownPids::rebuild, executors.io());
+        }
+        return new TypingService(identifierSystem, typeRegistry, defaultStrategy, knownPids);
     }
 
     @Bean
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.common;
+
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executors of the application, one per kind of work.
+ * <ul>
+ *     <li>{@link #io()} runs blocking I/O, like requests to the type registry
+ *     or the PID system, each task on its own virtual thread.</li>
+ *     <li>{@link #cpu()} runs CPU-bound work, like schema validation, on a
+ *     bounded pool sized to the available cores. If its queue is full, the
+ *     submitting thread runs the task itself.</li>
+ * </ul>
+ * Threads are named after their executor. The number of active and queued
+ * tasks can be exported as gauges using {@link #bindTo(MeterRegistry)}.
+ * Closing this object shuts down both executors, waiting for running tasks up
+ * to a configurable timeout.
+ */
+public class ManagedExecutors implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ManagedExecutors.class);
+
+    public static final String ACTIVE_METRIC = "pit.executor.active";
+    public static final String QUEUED_METRIC = "pit.executor.queued";
+
+    private final ExecutorService ioThreads;
+    private final AtomicInteger ioActive = new AtomicInteger();
+    private final AtomicInteger ioQueued = new AtomicInteger();
+    private final Executor io;
+    private final ThreadPoolExecutor cpu;
+    private final Duration shutdownTimeout;
+
+    public ManagedExecutors(ApplicationProperties props) {
+        this.ioThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pit-io-", 0).factory());
+        this.io = task -> {
+            this.ioQueued.incrementAndGet();
+            try {
+                this.ioThreads.execute(() -> {
+                    this.ioQueued.decrementAndGet();
+                    this.ioActive.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        this.ioActive.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                this.ioQueued.decrementAndGet();
+                throw e;
+            }
+        };
+        int cpuThreads = props.getExecutorCpuThreads() > 0
+                ? props.getExecutorCpuThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.cpu = new ThreadPoolExecutor(
+                cpuThreads,
+                cpuThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(props.getExecutorCpuQueueCapacity()),
+                Thread.ofPlatform().name("pit-cpu-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.shutdownTimeout = Duration.ofSeconds(props.getExecutorShutdownTimeoutSeconds());
+    }
+
+    /**
+     * Returns executors with the default configuration, e.g. for components
+     * created outside the application context. All such components share the
+     * same executors, which live as long as the JVM (without keeping it alive)
+     * and ignore {@link #close()}.
+     *
+     * @return shared executors with default settings.
+     */
+    public static ManagedExecutors standalone() {
+        return Standalone.INSTANCE;
+    }
+
+    private static final class Standalone {
+        static final ManagedExecutors INSTANCE = new ManagedExecutors(new ApplicationProperties()) {
+            @Override
+            public void close() {
+                // shared by all standalone components, so nobody may shut it down
+            }
+        };
+    }
+
+    /**
+     * @return an executor for blocking I/O tasks. Each task runs on its own
+     * virtual thread.
+     */
+    public Executor io() {
+        return this.io;
+    }
+
+    /**
+     * @return an executor for CPU-bound tasks, bounded to the configured
+     * number of threads.
+     */
+    public Executor cpu() {
+        return this.cpu;
+    }
+
+    /**
+     * Exports the number of active and queued tasks of both executors.
+     *
+     * @param registry the registry to export the gauges to.
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(ACTIVE_METRIC, this.ioActive, AtomicInteger::get)
+                .description("Tasks currently running on an executor.")
+                .tag("executor", "io")
+                .register(registry);
+        Gauge.builder(QUEUED_METRIC, this.ioQueued, AtomicInteger::get)
+                .description("Tasks submitted to an executor, but not yet running.")
+                .tag("executor", "io")
+                .register(registry);
+        Gauge.builder(ACTIVE_METRIC, this.cpu, ThreadPoolExecutor::getActiveCount)
+                .description("Tasks currently running on an executor.")
+                .tag("executor", "cpu")
+                .register(registry);
+        Gauge.builder(QUEUED_METRIC, this.cpu, pool -> pool.getQueue().size())
+                .description("Tasks submitted to an executor, but not yet running.")
+                .tag("executor", "cpu")
+                .register(registry);
+    }
+
+    /**
+     * Shuts down both executors. Running and queued tasks get the configured
+     * timeout to finish, then they are interrupted.
+     */
+    @Override
+    public void close() {
+        this.ioThreads.shutdown();
+        this.cpu.shutdown();
+        try {
+            long deadline = System.nanoTime() + this.shutdownTimeout.toNanos();
+            boolean ioDone = this.ioThreads.awaitTermination(this.shutdownTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            boolean cpuDone = this.cpu.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!ioDone || !cpuDone) {
+                LOG.warn("Executors did not finish within {}. Interrupting remaining tasks.", this.shutdownTimeout);
+                this.ioThreads.shutdownNow();
+                this.cpu.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            this.ioThreads.shutdownNow();
+            this.cpu.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -16,11 +16,13 @@
 package edu.kit.datamanager.pit.configuration;
 
 import edu.kit.datamanager.configuration.GenericApplicationProperties;
+import edu.kit.datamanager.pit.common.ManagedExecutors;
 import edu.kit.datamanager.pit.pitservice.IValidationStrategy;
 import edu.kit.datamanager.pit.pitservice.impl.EmbeddedStrictValidatorStrategy;
 import edu.kit.datamanager.pit.pitservice.impl.NoValidationStrategy;
 
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 
@@ -84,10 +86,10 @@ public class ApplicationProperties extends GenericApplicationProperties {
   private ValidationStrategy validationStrategy = ValidationStrategy.EMBEDDED_STRICT;
 
   @Bean
-  public IValidationStrategy defaultValidationStrategy(ITypeRegistry typeRegistry) {
+  public IValidationStrategy defaultValidationStrategy(ITypeRegistry typeRegistry, ManagedExecutors executors) {
     IValidationStrategy defaultStrategy = new NoValidationStrategy();
     if (this.validationStrategy == ValidationStrategy.EMBEDDED_STRICT) {
-      defaultStrategy = new EmbeddedStrictValidatorStrategy(typeRegistry, this);
+      defaultStrategy = new EmbeddedStrictValidatorStrategy(typeRegistry, this, executors.cpu());
     }
     return defaultStrategy;
   }
@@ -119,12 +121,109 @@ public class ApplicationProperties extends GenericApplicationProperties {
   @Value("${pit.typeregistry.baseURI}")
   private URL typeRegistryUri;
 
+  public enum TypeRegistryImpl {
+    // Query the Type API at the configured base URI.
+    REMOTE,
+    // Serve types from a local directory or archive only.
+    LOCAL,
+    // Serve types from a local directory or archive, query the Type API for unknown types.
+    LOCAL_FIRST;
+  }
+
+  @Value("${pit.typeregistry.implementation:remote}")
+  @NotNull
+  private TypeRegistryImpl typeRegistryImplementation = TypeRegistryImpl.REMOTE;
+
+  /**
+   * Directory or zip archive for the local type registry.
+   */
+  @Value("${pit.typeregistry.local.path:#{null}}")
+  private Path typeRegistryLocalPath;
+
   @Value("${pit.typeregistry.cache.maxEntries:1000}")
   private int cacheMaxEntries;
 
+  /**
+   * Byte budgets of the profile, attribute and schema caches. If greater than
+   * zero, the cache is bounded by the estimated bytes its entries retain
+   * instead of by cacheMaxEntries.
+   */
+  @Value("${pit.typeregistry.cache.profiles.maxBytes:0}")
+  private long cacheProfilesMaxBytes = 0;
+
+  @Value("${pit.typeregistry.cache.attributes.maxBytes:0}")
+  private long cacheAttributesMaxBytes = 0;
+
+  @Value("${pit.typeregistry.cache.schemas.maxBytes:0}")
+  private long cacheSchemasMaxBytes = 0;
+
   @Value("${pit.typeregistry.cache.lifetimeMinutes:10}")
   private long cacheExpireAfterWriteLifetime;
 
+  @Value("${pit.typeregistry.cache.maxStalenessMinutes:0}")
+  private long cacheMaxStaleness;
+
+  @Value("${pit.typeregistry.cache.notFound.lifetimeSeconds:60}")
+  private long cacheNotFoundLifetimeSeconds = 60;
+
+  @Value("${pit.typeregistry.cache.notFound.maxEntries:1000}")
+  private int cacheNotFoundMaxEntries = 1000;
+
+  @Value("${pit.typeregistry.cache.prefetchProfileAttributes:false}")
+  private boolean cachePrefetchProfileAttributes = false;
+
+  /**
+   * File to persist the raw type registry responses to, so the caches can be
+   * restored after a restart. If null, no snapshot is written or read.
+   */
+  @Value("${pit.typeregistry.cache.snapshot.path:#{null}}")
+  private Path cacheSnapshotPath;
+
+  @Value("${pit.typeregistry.schema.sourceTimeoutMillis:10000}")
+  private long schemaSourceTimeoutMillis = 10000;
+
+  @Value("${pit.typeregistry.schema.firstUsableWins:false}")
+  private boolean schemaFirstUsableWins = false;
+
+  @Value("${pit.typeregistry.http.connectTimeoutMillis:5000}")
+  private long httpConnectTimeoutMillis = 5000;
+
+  @Value("${pit.typeregistry.http.readTimeoutMillis:10000}")
+  private long httpReadTimeoutMillis = 10000;
+
+  @Value("${pit.typeregistry.http.maxConnectionsPerHost:32}")
+  private int httpMaxConnectionsPerHost = 32;
+
+  @Value("${pit.typeregistry.resilience.enabled:true}")
+  private boolean upstreamResilienceEnabled = true;
+
+  @Value("${pit.typeregistry.resilience.slidingWindowSize:20}")
+  private int upstreamSlidingWindowSize = 20;
+
+  @Value("${pit.typeregistry.resilience.failureRateThreshold:50}")
+  private float upstreamFailureRateThreshold = 50;
+
+  @Value("${pit.typeregistry.resilience.slowCallMillis:5000}")
+  private long upstreamSlowCallMillis = 5000;
+
+  @Value("${pit.typeregistry.resilience.openStateSeconds:30}")
+  private long upstreamOpenStateSeconds = 30;
+
+  @Value("${pit.typeregistry.resilience.maxConcurrentCalls:20}")
+  private int upstreamMaxConcurrentCalls = 20;
+
+  @Value("${pit.typeregistry.resilience.maxWaitMillis:1000}")
+  private long upstreamMaxWaitMillis = 1000;
+
+  @Value("${pit.executors.cpu.threads:0}")
+  private int executorCpuThreads = 0;
+
+  @Value("${pit.executors.cpu.queueCapacity:10000}")
+  private int executorCpuQueueCapacity = 10000;
+
+  @Value("${pit.executors.shutdownTimeoutSeconds:10}")
+  private long executorShutdownTimeoutSeconds = 10;
+
   @Value("${pit.validation.profileKey:21.T11148/076759916209e5d62bd5}")
   @Deprecated(forRemoval = true /*In Typed PID Maker 3.0.0*/)
   private String profileKey;
@@ -191,6 +290,22 @@ public class ApplicationProperties extends GenericApplicationProperties {
     this.validationStrategy = strategy;
   }
 
+  public TypeRegistryImpl getTypeRegistryImplementation() {
+    return typeRegistryImplementation;
+  }
+
+  public void setTypeRegistryImplementation(TypeRegistryImpl typeRegistryImplementation) {
+    this.typeRegistryImplementation = typeRegistryImplementation;
+  }
+
+  public Path getTypeRegistryLocalPath() {
+    return typeRegistryLocalPath;
+  }
+
+  public void setTypeRegistryLocalPath(Path typeRegistryLocalPath) {
+    this.typeRegistryLocalPath = typeRegistryLocalPath;
+  }
+
   public int getCacheMaxEntries() {
     if (this.cacheMaxEntries <= 10) {
       LOG.warn("Cache max entries is set to {} (low value)", this.cacheMaxEntries);
@@ -202,6 +317,30 @@ public class ApplicationProperties extends GenericApplicationProperties {
     this.cacheMaxEntries = cacheMaxEntries;
   }
 
+  public long getCacheProfilesMaxBytes() {
+    return cacheProfilesMaxBytes;
+  }
+
+  public void setCacheProfilesMaxBytes(long cacheProfilesMaxBytes) {
+    this.cacheProfilesMaxBytes = cacheProfilesMaxBytes;
+  }
+
+  public long getCacheAttributesMaxBytes() {
+    return cacheAttributesMaxBytes;
+  }
+
+  public void setCacheAttributesMaxBytes(long cacheAttributesMaxBytes) {
+    this.cacheAttributesMaxBytes = cacheAttributesMaxBytes;
+  }
+
+  public long getCacheSchemasMaxBytes() {
+    return cacheSchemasMaxBytes;
+  }
+
+  public void setCacheSchemasMaxBytes(long cacheSchemasMaxBytes) {
+    this.cacheSchemasMaxBytes = cacheSchemasMaxBytes;
+  }
+
   public long getCacheExpireAfterWriteLifetime() {
     return cacheExpireAfterWriteLifetime;
   }
@@ -210,6 +349,166 @@ public class ApplicationProperties extends GenericApplicationProperties {
     this.cacheExpireAfterWriteLifetime = cacheExpireAfterWriteLifetime;
   }
 
+  public long getCacheMaxStaleness() {
+    return cacheMaxStaleness;
+  }
+
+  public void setCacheMaxStaleness(long cacheMaxStaleness) {
+    this.cacheMaxStaleness = cacheMaxStaleness;
+  }
+
+  public long getCacheNotFoundLifetimeSeconds() {
+    return cacheNotFoundLifetimeSeconds;
+  }
+
+  public void setCacheNotFoundLifetimeSeconds(long cacheNotFoundLifetimeSeconds) {
+    this.cacheNotFoundLifetimeSeconds = cacheNotFoundLifetimeSeconds;
+  }
+
+  public int getCacheNotFoundMaxEntries() {
+    return cacheNotFoundMaxEntries;
+  }
+
+  public void setCacheNotFoundMaxEntries(int cacheNotFoundMaxEntries) {
+    this.cacheNotFoundMaxEntries = cacheNotFoundMaxEntries;
+  }
+
+  public boolean isCachePrefetchProfileAttributes() {
+    return cachePrefetchProfileAttributes;
+  }
+
+  public void setCachePrefetchProfileAttributes(boolean cachePrefetchProfileAttributes) {
+    this.cachePrefetchProfileAttributes = cachePrefetchProfileAttributes;
+  }
+
+  public long getSchemaSourceTimeoutMillis() {
+    return schemaSourceTimeoutMillis;
+  }
+
+  public void setSchemaSourceTimeoutMillis(long schemaSourceTimeoutMillis) {
+    this.schemaSourceTimeoutMillis = schemaSourceTimeoutMillis;
+  }
+
+  public boolean isSchemaFirstUsableWins() {
+    return schemaFirstUsableWins;
+  }
+
+  public void setSchemaFirstUsableWins(boolean schemaFirstUsableWins) {
+    this.schemaFirstUsableWins = schemaFirstUsableWins;
+  }
+
+  public long getHttpConnectTimeoutMillis() {
+    return httpConnectTimeoutMillis;
+  }
+
+  public void setHttpConnectTimeoutMillis(long httpConnectTimeoutMillis) {
+    this.httpConnectTimeoutMillis = httpConnectTimeoutMillis;
+  }
+
+  public long getHttpReadTimeoutMillis() {
+    return httpReadTimeoutMillis;
+  }
+
+  public void setHttpReadTimeoutMillis(long httpReadTimeoutMillis) {
+    this.httpReadTimeoutMillis = httpReadTimeoutMillis;
+  }
+
+  public int getHttpMaxConnectionsPerHost() {
+    return httpMaxConnectionsPerHost;
+  }
+
+  public void setHttpMaxConnectionsPerHost(int httpMaxConnectionsPerHost) {
+    this.httpMaxConnectionsPerHost = httpMaxConnectionsPerHost;
+  }
+
+  public boolean isUpstreamResilienceEnabled() {
+    return upstreamResilienceEnabled;
+  }
+
+  public void setUpstreamResilienceEnabled(boolean upstreamResilienceEnabled) {
+    this.upstreamResilienceEnabled = upstreamResilienceEnabled;
+  }
+
+  public int getUpstreamSlidingWindowSize() {
+    return upstreamSlidingWindowSize;
+  }
+
+  public void setUpstreamSlidingWindowSize(int upstreamSlidingWindowSize) {
+    this.upstreamSlidingWindowSize = upstreamSlidingWindowSize;
+  }
+
+  public float getUpstreamFailureRateThreshold() {
+    return upstreamFailureRateThreshold;
+  }
+
+  public void setUpstreamFailureRateThreshold(float upstreamFailureRateThreshold) {
+    this.upstreamFailureRateThreshold = upstreamFailureRateThreshold;
+  }
+
+  public long getUpstreamSlowCallMillis() {
+    return upstreamSlowCallMillis;
+  }
+
+  public void setUpstreamSlowCallMillis(long upstreamSlowCallMillis) {
+    this.upstreamSlowCallMillis = upstreamSlowCallMillis;
+  }
+
+  public long getUpstreamOpenStateSeconds() {
+    return upstreamOpenStateSeconds;
+  }
+
+  public void setUpstreamOpenStateSeconds(long upstreamOpenStateSeconds) {
+    this.upstreamOpenStateSeconds = upstreamOpenStateSeconds;
+  }
+
+  public int getUpstreamMaxConcurrentCalls() {
+    return upstreamMaxConcurrentCalls;
+  }
+
+  public void setUpstreamMaxConcurrentCalls(int upstreamMaxConcurrentCalls) {
+    this.upstreamMaxConcurrentCalls = upstreamMaxConcurrentCalls;
+  }
+
+  public long getUpstreamMaxWaitMillis() {
+    return upstreamMaxWaitMillis;
+  }
+
+  public void setUpstreamMaxWaitMillis(long upstreamMaxWaitMillis) {
+    this.upstreamMaxWaitMillis = upstreamMaxWaitMillis;
+  }
+
+  public int getExecutorCpuThreads() {
+    return executorCpuThreads;
+  }
+
+  public void setExecutorCpuThreads(int executorCpuThreads) {
+    this.executorCpuThreads = executorCpuThreads;
+  }
+
+  public int getExecutorCpuQueueCapacity() {
+    return executorCpuQueueCapacity;
+  }
+
+  public void setExecutorCpuQueueCapacity(int executorCpuQueueCapacity) {
+    this.executorCpuQueueCapacity = executorCpuQueueCapacity;
+  }
+
+  public long getExecutorShutdownTimeoutSeconds() {
+    return executorShutdownTimeoutSeconds;
+  }
+
+  public void setExecutorShutdownTimeoutSeconds(long executorShutdownTimeoutSeconds) {
+    this.executorShutdownTimeoutSeconds = executorShutdownTimeoutSeconds;
+  }
+
+  public Path getCacheSnapshotPath() {
+    return cacheSnapshotPath;
+  }
+
+  public void setCacheSnapshotPath(Path cacheSnapshotPath) {
+    this.cacheSnapshotPath = cacheSnapshotPath;
+  }
+
   public StorageStrategy getStorageStrategy() {
     return storageStrategy;
   }
@@ -2,6 +2,7 @@ package edu.kit.datamanager.pit.configuration;
 
 import edu.kit.datamanager.pit.recordModifiers.CopyAttribute;
 import edu.kit.datamanager.pit.recordModifiers.RecordModifier;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import net.handle.hdllib.Util;
 import org.slf4j.Logger;
@@ -47,6 +48,20 @@ public class HandleProtocolProperties {
     @NotNull
     protected List<String> handleRedirectAttributes = List.of();
 
+    // Number of Handle clients shared by all requests. Each one authenticates
+    // once and keeps its sessions, and at most this many operations run concurrently.
+    @Min(1)
+    private int clientPoolSize = 4;
+
+    // How long an operation waits for a free Handle client before it fails.
+    @Min(1)
+    private long clientPoolTimeoutMillis = 30_000;
+
+    // Number of records of a batch which are being registered at the same time.
+    // At most clientPoolSize of them are sent at once, the others wait for a free client.
+    @Min(1)
+    private int bulkRegistrationWindow = 16;
+
     public HandleProtocolProperties() {
         LOG.info("Parse HANDLE_PROTOCOL configuration details.");
     }
@@ -66,4 +81,28 @@ public class HandleProtocolProperties {
     public void setCredentials(HandleCredentials credentials) {
         this.credentials = credentials;
     }
+
+    public int getClientPoolSize() {
+        return clientPoolSize;
+    }
+
+    public void setClientPoolSize(int clientPoolSize) {
+        this.clientPoolSize = clientPoolSize;
+    }
+
+    public long getClientPoolTimeoutMillis() {
+        return clientPoolTimeoutMillis;
+    }
+
+    public void setClientPoolTimeoutMillis(long clientPoolTimeoutMillis) {
+        this.clientPoolTimeoutMillis = clientPoolTimeoutMillis;
+    }
+
+    public int getBulkRegistrationWindow() {
+        return bulkRegistrationWindow;
+    }
+
+    public void setBulkRegistrationWindow(int bulkRegistrationWindow) {
+        this.bulkRegistrationWindow = bulkRegistrationWindow;
+    }
 }
@@ -1,20 +1,27 @@
 package edu.kit.datamanager.pit.configuration;
 
 import java.util.Optional;
+import java.util.UUID;
 
 import jakarta.validation.constraints.NotNull;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import edu.kit.datamanager.pit.common.InvalidConfigException;
 import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+import edu.kit.datamanager.pit.pidgeneration.SequenceBlockLeaser;
 import edu.kit.datamanager.pit.pidgeneration.generators.HexChunksGenerator;
 import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenLowerCase;
 import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenPrefixed;
+import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenSequence;
 import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenUpperCase;
 import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenUuid4;
+import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenUuid5;
+import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenUuid7;
 
 @Validated
 @ConfigurationProperties("pit.pidgeneration")
@@ -23,7 +30,10 @@ public class PidGenerationProperties {
 
     enum Mode {
         UUID4,
-        HEX_CHUNKS
+        UUID7,
+        UUID5,
+        HEX_CHUNKS,
+        SEQUENCE
     }
 
     enum Case {
@@ -44,21 +54,107 @@ public class PidGenerationProperties {
      */
     private int numChunks = 4;
 
+    /**
+     * If a CHUNK-based generation method is being used, this determines whether
+     * a fast, non-cryptographic source of randomness is used instead of a
+     * secure one. Otherwise, this setting is being ignored.
+     */
+    private boolean fastRandomness = false;
+
     @NotNull
     private Optional<String> brandingPrefix = Optional.empty();
 
     private boolean customClientPidsEnabled = false;
 
+    /**
+     * If the UUID5 generation method is being used, this is the namespace the
+     * suffixes are derived in. Instances with different namespaces derive
+     * different suffixes from the same record.
+     */
+    @NotNull
+    private UUID nameNamespace = UUID.fromString("7c3a4e3d-58b0-4f5e-9f0a-2d1c6b8e4a91");
+
+    /**
+     * If the SEQUENCE generation method is being used, this is the name of the
+     * sequence in the database. Instances using the same name share the sequence.
+     */
+    @NotNull
+    private String sequenceName = "pid-suffix";
+
+    /**
+     * If the SEQUENCE generation method is being used, this is the amount of
+     * numbers each instance leases from the database at once.
+     */
+    private int sequenceBlockSize = 100;
+
+    @NotNull
+    private PidSuffixGenSequence.Encoding sequenceEncoding = PidSuffixGenSequence.Encoding.CROCKFORD_BASE32;
+
+    private boolean sequenceCheckSymbol = false;
+
+    /**
+     * The number of generated PID suffixes which are checked as unregistered
+     * in the background and kept ready for new PIDs. 0 disables the reservoir,
+     * so each new suffix is checked on request.
+     */
+    private int reservoirSize = 0;
+
+    /**
+     * The number of ready suffixes at which the reservoir is refilled.
+     */
+    private int reservoirLowWatermark = 0;
+
+    /**
+     * The number of PIDs the filter of known PIDs is sized for. The filter
+     * hints whether a PID is registered already, which the PID system still
+     * confirms. 0 disables the filter.
+     */
+    private long knownPidsFilterSize = 0;
+
+    /**
+     * The rate of false positives of the filter of known PIDs, if it contains
+     * the number of PIDs it is sized for.
+     */
+    private double knownPidsFilterFalsePositiveRate = 0.01;
+
+    /**
+     * The interval in which the filter of known PIDs is rebuilt.
+     */
+    private long knownPidsFilterRebuildIntervalMinutes = 60;
+
     /**
      * Creates a {@link PidSuffixGenerator} bean from the given configuration.
      * 
+     * @param blockLeaser leases the blocks of the sequence. Only available if
+     *                    the SEQUENCE generation method is configured.
      * @return a {@link PidSuffixGenerator} as defined by the configuration.
      */
     @Bean
-    public PidSuffixGenerator pidGenerator() {
+    public PidSuffixGenerator pidGenerator(ObjectProvider<SequenceBlockLeaser> blockLeaser) {
+        return this.createGenerator(blockLeaser.getIfAvailable());
+    }
+
+    /**
+     * Creates a {@link PidSuffixGenerator} from the given configuration.
+     * 
+     * @param blockLeaser leases the blocks of the sequence. Only required for
+     *                    the SEQUENCE generation method, may be null otherwise.
+     * @return a {@link PidSuffixGenerator} as defined by the configuration.
+     */
+    public PidSuffixGenerator createGenerator(SequenceBlockLeaser blockLeaser) {
         PidSuffixGenerator generator = new PidSuffixGenUuid4();
         if (this.mode == Mode.HEX_CHUNKS) {
-            generator = new HexChunksGenerator(this.numChunks);
+            generator = new HexChunksGenerator(this.numChunks, this.fastRandomness);
+        } else if (this.mode == Mode.UUID7) {
+            generator = new PidSuffixGenUuid7();
+        } else if (this.mode == Mode.UUID5) {
+            generator = new PidSuffixGenUuid5(this.nameNamespace);
+        } else if (this.mode == Mode.SEQUENCE) {
+            if (blockLeaser == null) {
+                throw new InvalidConfigException("The sequence generation mode requires a database to lease blocks from.");
+            }
+            generator = new PidSuffixGenSequence(
+                    blockLeaser::lease, this.sequenceBlockSize, this.sequenceEncoding, this.sequenceCheckSymbol);
         } // new generators have to be set up here
 
         if (casing == Case.LOWER) {
@@ -104,4 +200,72 @@ public class PidGenerationProperties {
         this.numChunks = numChunks;
     }
 
+    public void setFastRandomness(boolean fastRandomness) {
+        this.fastRandomness = fastRandomness;
+    }
+
+    public void setNameNamespace(UUID nameNamespace) {
+        this.nameNamespace = nameNamespace;
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    public void setSequenceName(String sequenceName) {
+        this.sequenceName = sequenceName;
+    }
+
+    public void setSequenceBlockSize(int sequenceBlockSize) {
+        this.sequenceBlockSize = sequenceBlockSize;
+    }
+
+    public void setSequenceEncoding(PidSuffixGenSequence.Encoding sequenceEncoding) {
+        this.sequenceEncoding = sequenceEncoding;
+    }
+
+    public void setSequenceCheckSymbol(boolean sequenceCheckSymbol) {
+        this.sequenceCheckSymbol = sequenceCheckSymbol;
+    }
+
+    public int getReservoirSize() {
+        return reservoirSize;
+    }
+
+    public void setReservoirSize(int reservoirSize) {
+        this.reservoirSize = reservoirSize;
+    }
+
+    public int getReservoirLowWatermark() {
+        return reservoirLowWatermark;
+    }
+
+    public void setReservoirLowWatermark(int reservoirLowWatermark) {
+        this.reservoirLowWatermark = reservoirLowWatermark;
+    }
+
+    public long getKnownPidsFilterSize() {
+        return knownPidsFilterSize;
+    }
+
+    public void setKnownPidsFilterSize(long knownPidsFilterSize) {
+        this.knownPidsFilterSize = knownPidsFilterSize;
+    }
+
+    public double getKnownPidsFilterFalsePositiveRate() {
+        return knownPidsFilterFalsePositiveRate;
+    }
+
+    public void setKnownPidsFilterFalsePositiveRate(double knownPidsFilterFalsePositiveRate) {
+        this.knownPidsFilterFalsePositiveRate = knownPidsFilterFalsePositiveRate;
+    }
+
+    public long getKnownPidsFilterRebuildIntervalMinutes() {
+        return knownPidsFilterRebuildIntervalMinutes;
+    }
+
+    public void setKnownPidsFilterRebuildIntervalMinutes(long knownPidsFilterRebuildIntervalMinutes) {
+        this.knownPidsFilterRebuildIntervalMinutes = knownPidsFilterRebuildIntervalMinutes;
+    }
+
 }
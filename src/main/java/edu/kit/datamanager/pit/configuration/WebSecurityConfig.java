@@ -77,6 +77,8 @@ public class WebSecurityConfig {
           .requestMatchers(HttpMethod.GET, "/swagger-ui.html").permitAll()
           .requestMatchers(HttpMethod.GET, "/swagger-ui/**").permitAll()
           .requestMatchers(HttpMethod.GET, "/v3/**").permitAll()
+          // flushing the type registry caches puts load on the registry, so only authenticated users may do it
+          .requestMatchers(HttpMethod.DELETE, "/actuator/typeregistrycache/**").authenticated()
           // permit access to actuator endpoints
           .requestMatchers("/actuator/**").permitAll()
           // only the actual API is protected
@@ -2,14 +2,13 @@ package edu.kit.datamanager.pit.domain;
 
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import edu.kit.datamanager.pit.pidsystem.IIdentifierSystem;
@@ -71,15 +70,7 @@ public class Operations {
             return date;
         }
 
-        Collection<AttributeInfo> types = new ArrayList<>();
-        List<CompletableFuture<?>> futures = Streams.failableStream(
-                pidRecord.getPropertyIdentifiers().stream())
-                .filter(this.identifierSystem::isPidRegistered)
-                .map(attributePid -> this.typeRegistry
-                            .queryAttributeInfo(attributePid)
-                            .thenAcceptAsync(types::add))
-                .collect(Collectors.toList());
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        Collection<AttributeInfo> types = this.queryRegisteredTypes(pidRecord);
 
         /*
          * as a last fallback, try to find types with human-readable names containing
@@ -133,14 +124,7 @@ public class Operations {
             return date;
         }
 
-        Collection<AttributeInfo> types = new ArrayList<>();
-        List<CompletableFuture<?>> futures = Streams.failableStream(pidRecord.getPropertyIdentifiers().stream())
-                .filter(this.identifierSystem::isPidRegistered)
-                .map(attributePid -> this.typeRegistry
-                            .queryAttributeInfo(attributePid)
-                            .thenAcceptAsync(types::add))
-                .collect(Collectors.toList());
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        Collection<AttributeInfo> types = this.queryRegisteredTypes(pidRecord);
 
         /*
          * as a last fallback, try to find types with human-readable names containing
@@ -165,6 +149,31 @@ public class Operations {
                 .min(Comparator.comparingLong(Date::getTime));
     }
 
+    /**
+     * Resolves the types of all attributes of a record which are registered
+     * PIDs, using a single bulk query. Attributes which can not be resolved
+     * are skipped.
+     *
+     * @param pidRecord the record whose attributes to resolve.
+     * @return the resolved types.
+     * @throws IOException on IO errors regarding checking the attribute PIDs.
+     */
+    private Collection<AttributeInfo> queryRegisteredTypes(PIDRecord pidRecord) throws IOException {
+        List<String> attributePids = Streams.failableStream(pidRecord.getPropertyIdentifiers().stream())
+                .filter(this.identifierSystem::isPidRegistered)
+                .collect(Collectors.toList());
+        return this.typeRegistry.queryAttributeInfos(attributePids)
+                // one unresolvable attribute fails the bulk query, so query each on its own to keep the others
+                .exceptionallyCompose(e -> ITypeRegistry.queryEach(attributePids, attributePid -> this.typeRegistry
+                        .queryAttributeInfo(attributePid)
+                        .exceptionally(notResolvable -> null)))
+                .join()
+                .values()
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     /**
      * Tries to extract a Date object from a String.
      * 
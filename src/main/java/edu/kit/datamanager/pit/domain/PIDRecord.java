@@ -213,6 +213,31 @@ public class PIDRecord implements EtagSupport, Cloneable {
         return values.toArray(new String[]{});
     }
 
+    /**
+     * Returns a canonical representation of the content of this record, which
+     * is equal for all records which are {@link #equals(Object) equal}, apart
+     * from the PID.
+     * <p>
+     * Like equality, it ignores the order of keys and values, names, and
+     * duplicates. Each key and value is prefixed with its length, so
+     * different contents never result in the same representation.
+     *
+     * @return the canonical representation of the content of this record.
+     */
+    @JsonIgnore
+    public String getCanonicalContent() {
+        return this.getSimpleEntries().stream()
+                .map(pair -> lengthPrefixed(pair.getKey()) + lengthPrefixed(pair.getValue()))
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining());
+    }
+
+    private static String lengthPrefixed(String text) {
+        String nonNull = text == null ? "" : text;
+        return nonNull.length() + ":" + nonNull;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
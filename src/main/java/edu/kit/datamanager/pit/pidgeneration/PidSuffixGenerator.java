@@ -14,6 +14,42 @@ public interface PidSuffixGenerator {
      */
     public abstract PidSuffix generate();
 
+    /**
+     * Generate a PID suffix for the given name, e.g. a digest of the content
+     * the PID will refer to.
+     * 
+     * Generators which are {@link #isNameBased() name-based} always return the
+     * same suffix for the same name. All others ignore the name and behave
+     * like {@link #generate()}.
+     * 
+     * @param name the name to derive the suffix from.
+     */
+    public default PidSuffix generate(String name) {
+        return this.generate();
+    }
+
+    /**
+     * Indicates whether {@link #generate(String)} derives the suffix from the
+     * given name. In this case, a suffix which is registered already refers to
+     * the same named object and should be reused instead of generating a new one.
+     * 
+     * @return true if equal names result in equal suffixes.
+     */
+    public default boolean isNameBased() {
+        return false;
+    }
+
+    /**
+     * Indicates whether each generated suffix is unique, e.g. because it is
+     * taken from a sequence. In this case, suffixes do not need to be checked
+     * at the PID system before they are used.
+     * 
+     * @return true if the generator never generates the same suffix twice.
+     */
+    public default boolean guaranteesUniqueness() {
+        return false;
+    }
+
     /**
      * Generates an infinite stream of PID suffixes, given the
      * {@link PidSuffixGenerator#generate()} implementation.
@@ -0,0 +1,210 @@
+package edu.kit.datamanager.pit.pidgeneration;
+
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.common.InvalidConfigException;
+import edu.kit.datamanager.pit.pidsystem.IIdentifierSystem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a number of PID suffixes ready which are known to be unregistered,
+ * so creating a PID does not have to wait for the PID system to confirm that
+ * a new suffix is still free.
+ * <p>
+ * Suffixes are generated by the configured {@link PidSuffixGenerator} and
+ * checked in the background, all missing suffixes at once, so the PID system
+ * can check them concurrently. Whenever the number of ready suffixes drops to
+ * the low watermark, the reservoir is refilled asynchronously. If it runs
+ * empty, a suffix is generated and checked on the calling thread, as without
+ * a reservoir.
+ * <p>
+ * A suffix is checked when it enters the reservoir, not when it is taken.
+ * Registering a PID fails anyway if the PID exists already, so in the
+ * unlikely case that a ready suffix got registered in the meantime, the
+ * creation fails instead of overwriting a record.
+ * <p>
+ * If the generator {@link PidSuffixGenerator#guaranteesUniqueness() guarantees
+ * unique suffixes}, they are neither checked nor kept ready, as generating
+ * them is cheap. Suffixes of {@link PidSuffixGenerator#isNameBased()
+ * name-based} generators are derived on request and not kept ready either.
+ */
+public class PidSuffixReservoir implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PidSuffixReservoir.class);
+
+    public static final String SIZE_METRIC = "pit.pidgeneration.reservoir.size";
+    public static final String LOW_WATERMARK_METRIC = "pit.pidgeneration.reservoir.lowwatermark.reached";
+    public static final String EMPTY_METRIC = "pit.pidgeneration.reservoir.empty";
+    public static final String REFILL_METRIC = "pit.pidgeneration.reservoir.refill";
+
+    private final PidSuffixGenerator generator;
+    private final IIdentifierSystem identifierSystem;
+    private final int capacity;
+    private final int lowWatermark;
+    private final Executor executor;
+    private final BlockingQueue<PidSuffix> ready;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    private final Counter lowWatermarkReached;
+    private final Counter emptyTakes;
+    private final Timer refillDuration;
+
+    /**
+     * @param generator        generates the suffixes.
+     * @param identifierSystem checks whether a suffix is registered already.
+     * @param capacity         the number of suffixes to keep ready. Zero or less disables the reservoir.
+     * @param lowWatermark     the number of ready suffixes at which a refill starts.
+     * @param executor         the executor to refill the reservoir on.
+     * @param meterRegistry    the registry to export the metrics of the reservoir to.
+     */
+    public PidSuffixReservoir(
+            PidSuffixGenerator generator,
+            IIdentifierSystem identifierSystem,
+            int capacity,
+            int lowWatermark,
+            Executor executor,
+            MeterRegistry meterRegistry
+    ) {
+        this.generator = generator;
+        this.identifierSystem = identifierSystem;
+        boolean keepsNothingReady = generator.guaranteesUniqueness() || generator.isNameBased();
+        this.capacity = keepsNothingReady ? 0 : Math.max(0, capacity);
+        this.lowWatermark = Math.clamp(lowWatermark, 0, Math.max(0, this.capacity - 1));
+        this.executor = executor;
+        this.ready = new LinkedBlockingQueue<>(Math.max(1, this.capacity));
+
+        Gauge.builder(SIZE_METRIC, this.ready, BlockingQueue::size)
+                .description("PID suffixes which are ready to be used.")
+                .register(meterRegistry);
+        this.lowWatermarkReached = Counter.builder(LOW_WATERMARK_METRIC)
+                .description("Refills started because the PID suffix reservoir reached its low watermark.")
+                .register(meterRegistry);
+        this.emptyTakes = Counter.builder(EMPTY_METRIC)
+                .description("PID suffixes which had to be checked on request, because the reservoir was empty.")
+                .register(meterRegistry);
+        this.refillDuration = Timer.builder(REFILL_METRIC)
+                .description("Time it took to refill the PID suffix reservoir.")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return this.capacity > 0;
+    }
+
+    /**
+     * @return the number of suffixes which are currently ready.
+     */
+    public int size() {
+        return this.ready.size();
+    }
+
+    /**
+     * Takes a suffix which is not registered yet.
+     *
+     * @return an unregistered suffix.
+     * @throws ExternalServiceException if the reservoir is empty and the PID system
+     *                                  could not be asked for a new suffix.
+     */
+    public PidSuffix take() throws ExternalServiceException {
+        PidSuffix suffix = this.ready.poll();
+        if (suffix == null) {
+            if (this.isEnabled()) {
+                this.emptyTakes.increment();
+            }
+            suffix = this.generateUnregistered();
+        }
+        if (this.isEnabled() && this.ready.size() <= this.lowWatermark && this.refill()) {
+            this.lowWatermarkReached.increment();
+        }
+        return suffix;
+    }
+
+    /**
+     * @return true if suffixes should be {@link #derive(String) derived} from
+     * a name instead of being taken.
+     */
+    public boolean isNameBased() {
+        return this.generator.isNameBased();
+    }
+
+    /**
+     * Derives the suffix for the given name. It is not checked, as a
+     * registered suffix refers to an object with the same name already.
+     *
+     * @param name the name to derive the suffix from.
+     * @return the suffix for the given name.
+     */
+    public PidSuffix derive(String name) {
+        return this.generator.generate(name);
+    }
+
+    /**
+     * Starts filling the reservoir up to its capacity in the background, unless
+     * a refill is running already.
+     *
+     * @return true if a refill was started.
+     */
+    public boolean refill() {
+        if (!this.isEnabled() || this.closed || !this.refilling.compareAndSet(false, true)) {
+            return false;
+        }
+        CompletableFuture.runAsync(() -> this.refillDuration.record(this::fill), this.executor)
+                .whenComplete((v, e) -> {
+                    this.refilling.set(false);
+                    if (e != null) {
+                        LOG.warn("Could not refill the PID suffix reservoir: {}", e.getMessage());
+                    }
+                });
+        return true;
+    }
+
+    protected void fill() {
+        String prefix = this.identifierSystem.getPrefix()
+                .orElseThrow(() -> new InvalidConfigException("This system cannot create PIDs."));
+        while (!this.closed && this.ready.size() < this.capacity) {
+            Map<String, PidSuffix> candidates = new LinkedHashMap<>();
+            for (int i = this.ready.size(); i < this.capacity; i++) {
+                PidSuffix suffix = this.generator.generate();
+                candidates.put(suffix.getWithPrefix(prefix), suffix);
+            }
+            Set<String> registered = this.identifierSystem.findRegisteredPids(candidates.keySet());
+            candidates.forEach((pid, suffix) -> {
+                if (!registered.contains(pid)) {
+                    this.ready.offer(suffix);
+                }
+            });
+        }
+    }
+
+    protected PidSuffix generateUnregistered() throws ExternalServiceException {
+        if (this.generator.guaranteesUniqueness()) {
+            return this.generator.generate();
+        }
+        return this.generator.infiniteStream()
+                .filter(suffix -> !this.identifierSystem.isPidRegistered(suffix))
+                .findFirst()  // as the stream is infinite, we should always find a suffix.
+                .orElseThrow(() -> new ExternalServiceException("Could not generate PID suffix which did not exist yet."));
+    }
+
+    /**
+     * Stops refilling. Suffixes which are ready can still be taken.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+}
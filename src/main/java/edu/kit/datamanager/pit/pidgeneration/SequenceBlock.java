@@ -0,0 +1,48 @@
+package edu.kit.datamanager.pit.pidgeneration;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Stores the next block of a suffix sequence which has not been leased yet.
+ * <p>
+ * All instances sharing a database lease their blocks from the same row, so
+ * each block, and therefore each number in it, is handed out only once.
+ */
+@Entity
+public class SequenceBlock {
+    @Id
+    @NotBlank(message = "The name of the sequence.")
+    private String name;
+
+    private long nextBlock;
+
+    @Version
+    private Long version;
+
+    public SequenceBlock() {}
+
+    public SequenceBlock(String name, long nextBlock) {
+        this.name = name;
+        this.nextBlock = nextBlock;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNextBlock() {
+        return nextBlock;
+    }
+
+    public void setNextBlock(long nextBlock) {
+        this.nextBlock = nextBlock;
+    }
+
+    @Override
+    public String toString() {
+        return "SequenceBlock [name=" + name + ", nextBlock=" + nextBlock + "]";
+    }
+}
@@ -0,0 +1,72 @@
+package edu.kit.datamanager.pit.pidgeneration;
+
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Leases blocks of a suffix sequence from the database.
+ * <p>
+ * Each lease increments the stored block number in its own transaction. If
+ * another instance leased a block concurrently, the optimistic lock fails and
+ * the lease is retried, so every block is leased exactly once, also in a
+ * cluster of instances sharing the database.
+ */
+public class SequenceBlockLeaser {
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final SequenceBlocksDao dao;
+    private final TransactionTemplate transactions;
+    private final String sequenceName;
+
+    /**
+     * @param dao                the access to the stored blocks.
+     * @param transactionManager the manager to run each lease in a new transaction with.
+     * @param sequenceName       the name of the sequence. Instances with the same name share the sequence.
+     */
+    public SequenceBlockLeaser(SequenceBlocksDao dao, PlatformTransactionManager transactionManager, String sequenceName) {
+        this.dao = dao;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sequenceName = sequenceName;
+    }
+
+    /**
+     * Leases the next block of the sequence.
+     *
+     * @return the number of the leased block, starting at zero.
+     * @throws ExternalServiceException if no block could be leased.
+     */
+    public long lease() throws ExternalServiceException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Long block = this.transactions.execute(status -> this.leaseOnce());
+                if (block == null) {
+                    throw new ExternalServiceException("Database", "No block leased for sequence " + this.sequenceName);
+                }
+                return block;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // another instance leased a block or created the sequence concurrently
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new ExternalServiceException(
+                            "Database",
+                            "Could not lease a block of sequence %s after %d attempts".formatted(this.sequenceName, attempt),
+                            e);
+                }
+            }
+        }
+    }
+
+    private long leaseOnce() {
+        SequenceBlock block = this.dao.findById(this.sequenceName)
+                .orElseGet(() -> new SequenceBlock(this.sequenceName, 0));
+        long leased = block.getNextBlock();
+        block.setNextBlock(leased + 1);
+        this.dao.saveAndFlush(block);
+        return leased;
+    }
+}
@@ -0,0 +1,9 @@
+package edu.kit.datamanager.pit.pidgeneration;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Object to access the blocks of suffix sequences in the database.
+ */
+public interface SequenceBlocksDao extends JpaRepository<SequenceBlock, String> {
+}
@@ -2,42 +2,72 @@ package edu.kit.datamanager.pit.pidgeneration.generators;
 
 import java.security.SecureRandom;
 import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
 
 import edu.kit.datamanager.pit.pidgeneration.PidSuffix;
 import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
 
 /**
  * Generates hex chunks of four characters each, separated by a dash.
- * 
+ *
  * Corresponds to four chunks by default, offering more than enough PIDs.
+ *
+ * The random bits of a suffix are drawn at once and written directly into the
+ * characters of the suffix, as batch creation may generate many suffixes in a
+ * row. By default, the bits are drawn from a {@link SecureRandom}. Optionally,
+ * a faster, thread-local source can be used, whose suffixes are unique with the
+ * same probability, but predictable.
  */
 public class HexChunksGenerator implements PidSuffixGenerator {
 
+    private static final int CHUNK_LENGTH = 4;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     protected Random random = new SecureRandom();
 
     protected int numChunks = 4;
 
+    private final boolean fastRandomness;
+
     public HexChunksGenerator(int numChunks) {
+        this(numChunks, false);
+    }
+
+    /**
+     * @param numChunks      the number of chunks of each suffix.
+     * @param fastRandomness whether to use a fast, non-cryptographic source of
+     *                       randomness instead of a {@link SecureRandom}.
+     */
+    public HexChunksGenerator(int numChunks, boolean fastRandomness) {
         this.numChunks = numChunks;
+        this.fastRandomness = fastRandomness;
     }
 
     @Override
     public PidSuffix generate() {
-        String suffix = IntStream.range(0, numChunks)
-                .mapToObj(i -> this.generateChunk())
-                .collect(Collectors.joining("-"));
+        if (numChunks <= 0) {
+            return new PidSuffix("");
+        }
+        int numDigits = numChunks * CHUNK_LENGTH;
+        // each byte provides two hex digits
+        byte[] bits = new byte[numDigits / 2];
+        this.randomSource().nextBytes(bits);
 
-        return new PidSuffix(suffix);
+        char[] suffix = new char[numDigits + numChunks - 1];
+        int position = 0;
+        for (int digit = 0; digit < numDigits; digit++) {
+            if (digit > 0 && digit % CHUNK_LENGTH == 0) {
+                suffix[position++] = '-';
+            }
+            int b = bits[digit / 2];
+            int nibble = digit % 2 == 0 ? b >>> 4 : b;
+            suffix[position++] = HEX_DIGITS[nibble & 0xF];
+        }
+        return new PidSuffix(new String(suffix));
     }
 
-    private String generateChunk() {
-        return IntStream.range(0, 4)
-                .mapToObj(i -> Integer.toHexString(random.nextInt(16)))
-                .collect(Collectors.joining())
-                .toUpperCase();
-
+    protected Random randomSource() {
+        return this.fastRandomness ? ThreadLocalRandom.current() : this.random;
     }
 
 }
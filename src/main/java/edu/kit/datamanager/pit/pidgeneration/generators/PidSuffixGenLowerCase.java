@@ -20,4 +20,18 @@ private PidSuffixGenerator generator;
         return new PidSuffix(this.generator.generate().get().toLowerCase());
     }
 
+    @Override
+    public PidSuffix generate(String name) {
+        return new PidSuffix(this.generator.generate(name).get().toLowerCase());
+    }
+
+    @Override
+    public boolean isNameBased() {
+        return this.generator.isNameBased();
+    }
+
+    @Override
+    public boolean guaranteesUniqueness() {
+        return this.generator.guaranteesUniqueness();
+    }
 }
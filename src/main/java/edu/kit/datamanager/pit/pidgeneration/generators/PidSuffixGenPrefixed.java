@@ -23,4 +23,19 @@ public class PidSuffixGenPrefixed implements PidSuffixGenerator {
         return new PidSuffix(this.prefix.concat(suffix));
     }
 
+    @Override
+    public PidSuffix generate(String name) {
+        String suffix = this.generator.generate(name).get().toUpperCase();
+        return new PidSuffix(this.prefix.concat(suffix));
+    }
+
+    @Override
+    public boolean isNameBased() {
+        return this.generator.isNameBased();
+    }
+
+    @Override
+    public boolean guaranteesUniqueness() {
+        return this.generator.guaranteesUniqueness();
+    }
 }
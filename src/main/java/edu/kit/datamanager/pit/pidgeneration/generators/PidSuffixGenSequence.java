@@ -0,0 +1,95 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import java.util.function.LongSupplier;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffix;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+
+/**
+ * Generates PID suffixes from a sequence of numbers, which is leased in
+ * blocks (hi/lo).
+ * <p>
+ * A block is a range of {@code blockSize} numbers. The generator hands out the
+ * numbers of its current block and only asks for a new block when it is used
+ * up. As the block source hands out each block only once, e.g. by
+ * incrementing a counter in a shared database, the suffixes are unique without
+ * checking each one at the PID system. Numbers of a block which are not used
+ * before a restart are skipped.
+ * <p>
+ * The numbers are encoded in decimal or in Crockford's Base32, which keeps the
+ * suffixes short and avoids characters which are easily confused. Optionally,
+ * a check symbol as defined by Crockford is appended, so typos can be detected.
+ */
+public class PidSuffixGenSequence implements PidSuffixGenerator {
+
+    public enum Encoding {
+        DECIMAL, CROCKFORD_BASE32
+    }
+
+    private static final char[] CROCKFORD_SYMBOLS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final char[] CHECK_SYMBOLS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ*~$=U".toCharArray();
+
+    private final LongSupplier blockSource;
+    private final int blockSize;
+    private final Encoding encoding;
+    private final boolean withCheckSymbol;
+
+    private long next = 0;
+    private long limit = 0;
+
+    /**
+     * @param blockSource     leases the next unused block number.
+     * @param blockSize       the amount of numbers in each block.
+     * @param encoding        the encoding of the numbers.
+     * @param withCheckSymbol whether to append a check symbol.
+     */
+    public PidSuffixGenSequence(LongSupplier blockSource, int blockSize, Encoding encoding, boolean withCheckSymbol) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive, but was " + blockSize);
+        }
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+        this.encoding = encoding;
+        this.withCheckSymbol = withCheckSymbol;
+    }
+
+    @Override
+    public PidSuffix generate() {
+        return new PidSuffix(this.encode(this.nextNumber()));
+    }
+
+    @Override
+    public boolean guaranteesUniqueness() {
+        return true;
+    }
+
+    protected synchronized long nextNumber() {
+        if (this.next >= this.limit) {
+            long block = this.blockSource.getAsLong();
+            this.next = Math.multiplyExact(block, (long) this.blockSize);
+            this.limit = this.next + this.blockSize;
+        }
+        return this.next++;
+    }
+
+    protected String encode(long number) {
+        String encoded = this.encoding == Encoding.CROCKFORD_BASE32
+                ? toCrockfordBase32(number)
+                : Long.toString(number);
+        if (this.withCheckSymbol) {
+            encoded += CHECK_SYMBOLS[(int) (number % CHECK_SYMBOLS.length)];
+        }
+        return encoded;
+    }
+
+    protected static String toCrockfordBase32(long number) {
+        if (number == 0) {
+            return "0";
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (long rest = number; rest > 0; rest >>>= 5) {
+            encoded.append(CROCKFORD_SYMBOLS[(int) (rest & 31)]);
+        }
+        return encoded.reverse().toString();
+    }
+}
@@ -20,4 +20,18 @@ public class PidSuffixGenUpperCase implements PidSuffixGenerator {
         return new PidSuffix(this.generator.generate().get().toUpperCase());
     }
 
+    @Override
+    public PidSuffix generate(String name) {
+        return new PidSuffix(this.generator.generate(name).get().toUpperCase());
+    }
+
+    @Override
+    public boolean isNameBased() {
+        return this.generator.isNameBased();
+    }
+
+    @Override
+    public boolean guaranteesUniqueness() {
+        return this.generator.guaranteesUniqueness();
+    }
 }
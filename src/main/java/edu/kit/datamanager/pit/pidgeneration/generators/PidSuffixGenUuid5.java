@@ -0,0 +1,66 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffix;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+
+/**
+ * Generates a PID suffix based on a name-based UUID5 (RFC 9562).
+ * <p>
+ * The suffix is derived from a SHA-1 digest of a namespace and the given name,
+ * e.g. the canonical content of a record. The same name always results in the
+ * same suffix, so resubmitting the same content can be detected by the
+ * suffix being registered already. Different namespaces result in different
+ * suffixes for the same name.
+ * <p>
+ * Without a name, a random UUID4 is generated.
+ */
+public class PidSuffixGenUuid5 implements PidSuffixGenerator {
+
+    private final byte[] namespace;
+
+    /**
+     * @param namespace the namespace of all names given to this generator.
+     */
+    public PidSuffixGenUuid5(UUID namespace) {
+        this.namespace = ByteBuffer.allocate(16)
+                .putLong(namespace.getMostSignificantBits())
+                .putLong(namespace.getLeastSignificantBits())
+                .array();
+    }
+
+    @Override
+    public PidSuffix generate() {
+        return new PidSuffix(UUID.randomUUID().toString());
+    }
+
+    @Override
+    public PidSuffix generate(String name) {
+        return new PidSuffix(this.nameBasedUuid(name).toString());
+    }
+
+    @Override
+    public boolean isNameBased() {
+        return true;
+    }
+
+    protected UUID nameBasedUuid(String name) {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+        sha1.update(this.namespace);
+        ByteBuffer hash = ByteBuffer.wrap(sha1.digest(name.getBytes(StandardCharsets.UTF_8)));
+        long mostSignificant = (hash.getLong() & ~0xF000L) | 0x5000L;
+        long leastSignificant = (hash.getLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
@@ -0,0 +1,75 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffix;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+
+/**
+ * Generates a PID suffix based on a time-ordered UUID7 (RFC 9562).
+ * <p>
+ * The first 48 bits are the Unix time in milliseconds, so suffixes generated
+ * later sort after earlier ones. New PIDs are therefore appended to the end of
+ * database indexes instead of being scattered across them, as it happens with
+ * UUID4 suffixes.
+ * <p>
+ * Within the same millisecond, the 12 bits following the version are used as a
+ * counter, which starts at a random value in its lower half. This keeps the
+ * suffixes of one generator strictly increasing, also if many are generated
+ * within one millisecond or the clock goes backwards. If the counter
+ * overflows, the generator continues in the next millisecond. The remaining
+ * 62 bits are random, as in a UUID4. Casing does not affect the order, as
+ * digits sort before letters in both cases.
+ */
+public class PidSuffixGenUuid7 implements PidSuffixGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+    protected Random random = new SecureRandom();
+
+    private final LongSupplier clock;
+    private long lastMillis = Long.MIN_VALUE;
+    private long counter = 0;
+
+    public PidSuffixGenUuid7() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock supplies the current Unix time in milliseconds.
+     */
+    protected PidSuffixGenUuid7(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public PidSuffix generate() {
+        return new PidSuffix(this.nextUuid().toString());
+    }
+
+    protected UUID nextUuid() {
+        long millis;
+        long sequence;
+        synchronized (this) {
+            long now = this.clock.getAsLong();
+            if (now > this.lastMillis) {
+                this.lastMillis = now;
+                this.counter = this.random.nextInt(1 << (COUNTER_BITS - 1));
+            } else if (this.counter < COUNTER_MAX) {
+                this.counter++;
+            } else {
+                this.lastMillis++;
+                this.counter = this.random.nextInt(1 << (COUNTER_BITS - 1));
+            }
+            millis = this.lastMillis;
+            sequence = this.counter;
+        }
+        long mostSignificant = (millis << 16) | (0x7L << 12) | sequence;
+        long leastSignificant = (this.random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.pidlog;
+
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.pidsystem.IIdentifierSystem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of the PIDs registered with the prefix of this instance.
+ * <p>
+ * The filter is built from all PIDs of the prefix and the PIDs in the local
+ * log of known PIDs. Afterwards, every PID registered by this instance is
+ * added. It is rebuilt periodically to include PIDs registered elsewhere and
+ * to forget deleted ones.
+ * <p>
+ * The filter is only a hint. Between two rebuilds, other instances may
+ * register PIDs which the filter does not contain, and a PID it contains may
+ * be a false positive. Whether a PID is registered is therefore always
+ * confirmed by the PID system, many PIDs at once if possible. The filter
+ * tells in advance which PIDs are {@link #mightBeRegistered(String) likely
+ * registered}, counts how often it was wrong, and adds registered PIDs it
+ * missed. As Handle PIDs are case-insensitive, PIDs are compared in lower
+ * case.
+ */
+public class KnownPidFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KnownPidFilter.class);
+
+    public static final String BYTES_METRIC = "pit.pidlog.filter.bytes";
+    public static final String PIDS_METRIC = "pit.pidlog.filter.pids";
+    public static final String FALSE_POSITIVE_RATE_METRIC = "pit.pidlog.filter.falsepositive.rate";
+    public static final String FALSE_POSITIVES_METRIC = "pit.pidlog.filter.falsepositives";
+    public static final String MISSES_METRIC = "pit.pidlog.filter.misses";
+
+    private final IIdentifierSystem identifierSystem;
+    private final KnownPidsDao knownPidsDao;
+    private final long expectedPids;
+    private final double falsePositiveRate;
+
+    /**
+     * The filter in use. Null until it was built from all PIDs of the prefix.
+     */
+    private volatile Bits current = null;
+    /**
+     * Collects the PIDs registered during a rebuild, so they are not lost.
+     */
+    private volatile Queue<String> addedDuringRebuild = null;
+
+    private final Counter falsePositives;
+    private final Counter misses;
+
+    /**
+     * @param identifierSystem  the PID system to list and check the PIDs of the prefix with.
+     * @param knownPidsDao      the log of known PIDs, which are added to the filter as well.
+     * @param expectedPids      the number of PIDs the filter is sized for. Zero or less disables the filter.
+     * @param falsePositiveRate the rate of false positives at the expected number of PIDs.
+     * @param meterRegistry     the registry to export the metrics of the filter to.
+     */
+    public KnownPidFilter(
+            IIdentifierSystem identifierSystem,
+            KnownPidsDao knownPidsDao,
+            long expectedPids,
+            double falsePositiveRate,
+            MeterRegistry meterRegistry
+    ) {
+        this.identifierSystem = identifierSystem;
+        this.knownPidsDao = knownPidsDao;
+        this.expectedPids = Math.max(0, expectedPids);
+        this.falsePositiveRate = Math.clamp(falsePositiveRate, 1e-9, 0.5);
+
+        Gauge.builder(BYTES_METRIC, this, filter -> filter.bits().map(Bits::bytes).orElse(0L))
+                .description("Memory used by the filter of known PIDs.")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(PIDS_METRIC, this, filter -> filter.bits().map(Bits::added).orElse(0L))
+                .description("PIDs added to the filter of known PIDs.")
+                .register(meterRegistry);
+        Gauge.builder(FALSE_POSITIVE_RATE_METRIC, this, filter -> filter.bits().map(Bits::falsePositiveRate).orElse(0.0))
+                .description("Estimated rate of PIDs which the filter of known PIDs contains wrongly.")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder(FALSE_POSITIVES_METRIC)
+                .description("PIDs which the filter contained, but which were not registered.")
+                .register(meterRegistry);
+        this.misses = Counter.builder(MISSES_METRIC)
+                .description("PIDs which the filter did not contain, but which were registered, e.g. by another instance.")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return this.expectedPids > 0;
+    }
+
+    /**
+     * @return true if the filter was built and can tell which PIDs are not registered.
+     */
+    public boolean isReady() {
+        return this.current != null;
+    }
+
+    private Optional<Bits> bits() {
+        return Optional.ofNullable(this.current);
+    }
+
+    /**
+     * Tells whether the given PID is likely registered, without asking the PID
+     * system. PIDs of other prefixes, and all PIDs until the filter is built,
+     * are assumed to be registered.
+     *
+     * @param pid the PID to look up.
+     * @return false if the PID was not registered when the filter was built, or
+     * by this instance afterwards.
+     */
+    public boolean mightBeRegistered(String pid) {
+        Bits bits = this.current;
+        return bits == null || !this.hasPrefix(pid) || bits.mightContain(normalize(pid));
+    }
+
+    /**
+     * Checks at the PID system whether the given PID is registered.
+     *
+     * @param pid the PID to check.
+     * @return true if the PID is registered.
+     * @throws ExternalServiceException if the PID system could not be asked.
+     */
+    public boolean isPidRegistered(String pid) throws ExternalServiceException {
+        boolean expected = this.mightBeRegistered(pid);
+        boolean registered = this.identifierSystem.isPidRegistered(pid);
+        this.learn(pid, expected, registered);
+        return registered;
+    }
+
+    /**
+     * Checks at the PID system which of the given PIDs are registered, many at
+     * once if the PID system supports it.
+     *
+     * @param pids the PIDs to check.
+     * @return the given PIDs which are registered.
+     * @throws ExternalServiceException if the PID system could not be asked.
+     */
+    public Set<String> findRegisteredPids(Collection<String> pids) throws ExternalServiceException {
+        Map<String, Boolean> expected = new HashMap<>();
+        pids.forEach(pid -> expected.put(pid, this.mightBeRegistered(pid)));
+        Set<String> registered = this.identifierSystem.findRegisteredPids(pids);
+        expected.forEach((pid, expectedRegistered) -> this.learn(pid, expectedRegistered, registered.contains(pid)));
+        return registered;
+    }
+
+    /**
+     * Counts the cases in which the filter was wrong, and adds registered PIDs
+     * it did not contain.
+     */
+    private void learn(String pid, boolean expected, boolean registered) {
+        if (!this.isReady() || !this.hasPrefix(pid)) {
+            return;
+        }
+        if (expected && !registered) {
+            this.falsePositives.increment();
+        } else if (!expected && registered) {
+            this.misses.increment();
+            this.add(pid);
+        }
+    }
+
+    /**
+     * Adds a PID which was registered.
+     *
+     * @param pid the registered PID.
+     */
+    public void add(String pid) {
+        String normalized = normalize(pid);
+        Queue<String> pending = this.addedDuringRebuild;
+        if (pending != null) {
+            pending.add(normalized);
+        }
+        Bits bits = this.current;
+        if (bits != null) {
+            bits.add(normalized);
+        }
+    }
+
+    /**
+     * Builds the filter again from all PIDs of the prefix. The previous filter
+     * stays in use until the new one is complete.
+     *
+     * @return true if the filter was rebuilt.
+     */
+    public synchronized boolean rebuild() {
+        if (!this.isEnabled()) {
+            return false;
+        }
+        Queue<String> pending = new ConcurrentLinkedQueue<>();
+        this.addedDuringRebuild = pending;
+        try {
+            List<String> known = new ArrayList<>();
+            this.knownPidsDao.findAll().forEach(knownPid -> known.add(knownPid.getPid()));
+            Collection<String> registered = this.identifierSystem.resolveAllPidsOfPrefix();
+
+            // leave room for growth until the next rebuild
+            long capacity = Math.max(this.expectedPids, 2L * (registered.size() + known.size()));
+            Bits bits = new Bits(capacity, this.falsePositiveRate);
+            known.forEach(pid -> bits.add(normalize(pid)));
+            registered.forEach(pid -> bits.add(normalize(pid)));
+            this.current = bits;
+            this.addedDuringRebuild = null;
+            // PIDs added before the swap may have missed the new filter
+            pending.forEach(bits::add);
+            LOG.info("Built filter of {} known PIDs using {} bytes.", bits.added(), bits.bytes());
+            return true;
+        } catch (RuntimeException e) {
+            LOG.warn("Could not build filter of known PIDs: {}", e.getMessage());
+            return false;
+        } finally {
+            this.addedDuringRebuild = null;
+        }
+    }
+
+    private boolean hasPrefix(String pid) {
+        return this.identifierSystem.getPrefix()
+                .map(prefix -> normalize(pid).startsWith(normalize(prefix)))
+                .orElse(false);
+    }
+
+    private static String normalize(String pid) {
+        return pid.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The bits of a Bloom filter. Bits are only ever set, so concurrent adds and
+     * lookups need no locking.
+     */
+    protected static class Bits {
+        private final AtomicLongArray words;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLong added = new AtomicLong();
+
+        protected Bits(long expectedEntries, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact(Math.max(1, (optimalBits + 63) / 64)));
+            this.numBits = 64L * this.words.length();
+            this.numHashes = (int) Math.clamp(Math.round((double) this.numBits / expectedEntries * Math.log(2)), 1, 30);
+        }
+
+        protected void add(String entry) {
+            long hash = hash(entry);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < this.numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, this.numBits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                this.words.getAndUpdate(word, w -> w | mask);
+            }
+            this.added.incrementAndGet();
+        }
+
+        protected boolean mightContain(String entry) {
+            long hash = hash(entry);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < this.numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, this.numBits);
+                if ((this.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected long added() {
+            return this.added.get();
+        }
+
+        protected long bytes() {
+            return 8L * this.words.length();
+        }
+
+        /**
+         * @return the expected rate of false positives, given the number of added entries.
+         */
+        protected double falsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) this.numHashes * this.added() / this.numBits), this.numHashes);
+        }
+
+        /**
+         * 64-bit FNV-1a hash of the characters of the entry.
+         */
+        private static long hash(String entry) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < entry.length(); i++) {
+                hash ^= entry.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        /**
+         * Finalization step of MurmurHash3, which spreads the bits of the hash.
+         */
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -26,8 +26,13 @@ import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Main abstraction interface towards the identifier system containing
@@ -98,6 +103,29 @@ public interface IIdentifierSystem {
         return isPidRegistered(suffix.getWithPrefix(prefix));
     }
 
+    /**
+     * Checks which of the given PIDs are already registered, like
+     * {@link #isPidRegistered(String)} does for a single one.
+     * <p>
+     * Checks one PID after the other. Implementations for which each check is
+     * a remote call should override this method to check the PIDs
+     * concurrently.
+     *
+     * @param pids the PIDs to check.
+     * @return the given PIDs which are registered.
+     * @throws ExternalServiceException on commonication errors or errors on other
+     *                                  services.
+     */
+    default Set<String> findRegisteredPids(Collection<String> pids) throws ExternalServiceException {
+        Set<String> registered = new HashSet<>();
+        for (String pid : pids) {
+            if (isPidRegistered(pid)) {
+                registered.add(pid);
+            }
+        }
+        return registered;
+    }
+
     /**
      * Queries all properties from the given PID, independent of types.
      *
@@ -159,6 +187,56 @@ public interface IIdentifierSystem {
     @Counted
     String registerPidUnchecked(@SpanAttribute final PIDRecord pidRecord) throws PidAlreadyExistsException, ExternalServiceException;
 
+    /**
+     * Registers many new PIDs, like {@link #registerPid(PIDRecord)} does for a
+     * single one.
+     * <p>
+     * All records are checked before any of them is registered. Afterwards,
+     * the records are registered independently, so if some of them fail, the
+     * others may still be registered. The results tell which ones were.
+     *
+     * @param pidRecords the records to register.
+     * @return the outcome for each record, in the order of the given records.
+     * @throws RecordValidationException if a record has no PID.
+     * @throws InvalidConfigException    if no prefix can be appended.
+     */
+    default List<RegistrationResult> registerPids(final List<PIDRecord> pidRecords)
+            throws RecordValidationException, InvalidConfigException {
+        for (PIDRecord pidRecord : pidRecords) {
+            if (pidRecord.getPid() == null || pidRecord.getPid().isEmpty()) {
+                throw new RecordValidationException(pidRecord, "PID must not be null or empty.");
+            }
+        }
+        for (PIDRecord pidRecord : pidRecords) {
+            pidRecord.setPid(appendPrefixIfAbsent(pidRecord.getPid()));
+        }
+        return registerPidsUnchecked(pidRecords);
+    }
+
+    /**
+     * Registers the given records with their given PIDs, without applying any
+     * checks, like {@link #registerPidUnchecked(PIDRecord)} does for a single
+     * one. A failing record does not stop the registration of the others.
+     * <p>
+     * Registers one record after the other. Implementations for which each
+     * registration is a remote call should override this method to register
+     * the records concurrently.
+     *
+     * @param pidRecords the records to register.
+     * @return the outcome for each record, in the order of the given records.
+     */
+    default List<RegistrationResult> registerPidsUnchecked(final List<PIDRecord> pidRecords) {
+        List<RegistrationResult> results = new ArrayList<>(pidRecords.size());
+        for (PIDRecord pidRecord : pidRecords) {
+            try {
+                results.add(RegistrationResult.success(pidRecord, registerPidUnchecked(pidRecord)));
+            } catch (RuntimeException e) {
+                results.add(RegistrationResult.failure(pidRecord, e));
+            }
+        }
+        return results;
+    }
+
     /**
      * Updates an existing record with the new given values. If the PID in the given
      * record is not valid, it will return false.
@@ -175,6 +253,39 @@ public interface IIdentifierSystem {
     @Counted
     boolean updatePid(@SpanAttribute PIDRecord pidRecord) throws PidNotFoundException, ExternalServiceException, RecordValidationException;
 
+    /**
+     * Updates an existing record with the new given values, if the record as it
+     * is currently registered passes the given precondition.
+     * <p>
+     * The current record is resolved once and used for both the precondition
+     * and the update, so callers do not need to resolve it beforehand, e.g. to
+     * compare its ETag. Implementations which need the current record to
+     * update it should override this method to avoid resolving it twice.
+     *
+     * @param pidRecord    Assumes an existing, valid PID inside this record.
+     * @param precondition receives the currently registered record and throws
+     *                     an exception if the update must not happen.
+     * @return false if there was no existing, valid PID in this record.
+     * @throws PidNotFoundException      if PID is not registered.
+     * @throws ExternalServiceException  if an error occured in communication with
+     *                                   other services.
+     * @throws RecordValidationException if record validation errors occurred.
+     */
+    default boolean updatePid(PIDRecord pidRecord, Consumer<PIDRecord> precondition)
+            throws PidNotFoundException, ExternalServiceException, RecordValidationException {
+        PIDRecord existingRecord;
+        try {
+            existingRecord = this.queryPid(pidRecord.getPid());
+        } catch (PidNotFoundException e) {
+            return false;
+        }
+        if (existingRecord == null) {
+            return false;
+        }
+        precondition.accept(existingRecord);
+        return this.updatePid(pidRecord);
+    }
+
     /**
      * Remove the given PID.
      * <p>
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.pidsystem;
+
+import edu.kit.datamanager.pit.domain.PIDRecord;
+import jakarta.annotation.Nullable;
+
+/**
+ * The outcome of registering one record of a bulk registration.
+ *
+ * @param pidRecord the record which was to be registered.
+ * @param pid       the registered PID, or null if the registration failed.
+ * @param error     the reason the registration failed, or null if it succeeded.
+ */
+public record RegistrationResult(
+        PIDRecord pidRecord,
+        @Nullable String pid,
+        @Nullable RuntimeException error
+) {
+    public static RegistrationResult success(PIDRecord pidRecord, String pid) {
+        return new RegistrationResult(pidRecord, pid, null);
+    }
+
+    public static RegistrationResult failure(PIDRecord pidRecord, RuntimeException error) {
+        return new RegistrationResult(pidRecord, null, error);
+    }
+
+    public boolean isSuccessful() {
+        return this.error == null;
+    }
+}
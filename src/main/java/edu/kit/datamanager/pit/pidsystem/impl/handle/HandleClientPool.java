@@ -0,0 +1,191 @@
+package edu.kit.datamanager.pit.pidsystem.impl.handle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.handle.api.HSAdapter;
+import net.handle.hdllib.HandleException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed number of Handle clients which are shared by all requests.
+ * <p>
+ * Each operation borrows a client for its duration, so at most as many
+ * operations run concurrently as there are clients. Further operations wait
+ * for a client to become free, up to a timeout. Idle clients are handed out
+ * in the order they were returned, which spreads the load over all clients.
+ * <p>
+ * The clients authenticate once when they are created and keep their
+ * sessions with the Handle servers, so following operations reuse them
+ * instead of authenticating again.
+ */
+public class HandleClientPool {
+
+    public static final String OPERATION_METRIC = "pit.pidsystem.handle.operation";
+    public static final String ERROR_METRIC = "pit.pidsystem.handle.operation.errors";
+    public static final String WAIT_METRIC = "pit.pidsystem.handle.pool.wait";
+
+    /**
+     * An operation using a Handle client.
+     *
+     * @param <T> the result of the operation.
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T apply(HSAdapter client) throws HandleException;
+    }
+
+    /**
+     * An operation using a Handle client without a result.
+     */
+    @FunctionalInterface
+    public interface Action {
+        void apply(HSAdapter client) throws HandleException;
+    }
+
+    /**
+     * Creates a new Handle client.
+     */
+    @FunctionalInterface
+    public interface ClientFactory {
+        HSAdapter create() throws HandleException;
+    }
+
+    private final BlockingQueue<HSAdapter> idle;
+    private final int size;
+    private final Duration timeout;
+    private final MeterRegistry meterRegistry;
+    private final Timer waitDuration;
+
+    /**
+     * @param clients       the clients to share. Must not be empty.
+     * @param timeout       how long an operation waits for a free client.
+     * @param meterRegistry the registry to export the metrics of the operations to.
+     */
+    public HandleClientPool(List<HSAdapter> clients, Duration timeout, MeterRegistry meterRegistry) {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("A pool needs at least one Handle client.");
+        }
+        this.idle = new ArrayBlockingQueue<>(clients.size(), true, clients);
+        this.size = clients.size();
+        this.timeout = timeout;
+        this.meterRegistry = meterRegistry;
+        this.waitDuration = Timer.builder(WAIT_METRIC)
+                .description("Time operations waited for a free Handle client.")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the given number of clients and shares them in a pool.
+     *
+     * @param size          the number of clients. At least one client is created.
+     * @param factory       creates (and authenticates) a client.
+     * @param timeout       how long an operation waits for a free client.
+     * @param meterRegistry the registry to export the metrics of the operations to.
+     * @return the pool of the created clients.
+     * @throws HandleException if a client could not be created.
+     */
+    public static HandleClientPool create(int size, ClientFactory factory, Duration timeout, MeterRegistry meterRegistry)
+            throws HandleException {
+        List<HSAdapter> clients = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, size); i++) {
+            clients.add(factory.create());
+        }
+        return new HandleClientPool(clients, timeout, meterRegistry);
+    }
+
+    /**
+     * @return the number of clients in this pool.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of clients which are currently not in use.
+     */
+    public int available() {
+        return this.idle.size();
+    }
+
+    /**
+     * Runs the given operation with a client of this pool, waiting for a free
+     * client if necessary.
+     *
+     * @param name      the name of the operation, used to tag its metrics.
+     * @param operation the operation to run.
+     * @param <T>       the result of the operation.
+     * @return the result of the operation.
+     * @throws HandleException if the operation failed, or no client became free in time.
+     */
+    public <T> T execute(String name, Operation<T> operation) throws HandleException {
+        HSAdapter client = this.borrow();
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String outcome = "success";
+        try {
+            return operation.apply(client);
+        } catch (HandleException e) {
+            outcome = "error";
+            this.countError(name, HandleException.getCodeStr(e.getCode()));
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "error";
+            this.countError(name, e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(OPERATION_METRIC)
+                    .description("Time it took to run an operation with a Handle client.")
+                    .tag("operation", name)
+                    .tag("outcome", outcome)
+                    .register(this.meterRegistry));
+            this.idle.offer(client);
+        }
+    }
+
+    private void countError(String operation, String code) {
+        Counter.builder(ERROR_METRIC)
+                .description("Handle operations which failed.")
+                .tag("operation", operation)
+                .tag("code", code)
+                .register(this.meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Like {@link #execute(String, Operation)}, for operations without a result.
+     *
+     * @param name   the name of the operation, used to tag its metrics.
+     * @param action the operation to run.
+     * @throws HandleException if the operation failed, or no client became free in time.
+     */
+    public void run(String name, Action action) throws HandleException {
+        this.execute(name, client -> {
+            action.apply(client);
+            return null;
+        });
+    }
+
+    private HSAdapter borrow() throws HandleException {
+        long start = System.nanoTime();
+        try {
+            HSAdapter client = this.idle.poll(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (client == null) {
+                throw new HandleException(
+                        HandleException.INTERNAL_ERROR,
+                        "No Handle client became free within " + this.timeout + ".");
+            }
+            return client;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HandleException(HandleException.INTERNAL_ERROR, "Interrupted while waiting for a Handle client.");
+        } finally {
+            this.waitDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package edu.kit.datamanager.pit.pidsystem.impl.handle;
 
 import edu.kit.datamanager.pit.common.PidUpdateException;
 import net.handle.hdllib.HandleValue;
+import net.handle.hdllib.ValueReference;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 
@@ -11,7 +13,8 @@ import java.util.Map;
  * Given two Value Maps, it splits the values in those which have been added,
  * updated or removed.
  * Using this lists, an update can be applied to the old record, to bring it to
- * the state of the new record.
+ * the state of the new record. Values at the same index which did not change
+ * are skipped, so an update without changes does not write anything.
  */
 class HandleDiff {
     private final Collection<HandleValue> toAdd = new ArrayList<>();
@@ -27,11 +30,9 @@ class HandleDiff {
             if (wasRemoved) {
                 // if a row in the record is not available anymore, we need to delete it
                 toRemove.add(old.getValue());
-            } else {
-                // otherwise, we should go and update it.
-                // we could also check for equality, but this is the safe and easy way.
-                // (the handlevalue classes can be complicated and we'd have to check their
-                // equality implementation)
+            } else if (!isUnchanged(old.getValue(), recordNew.get(old.getKey()))) {
+                // otherwise, we update it if it changed. Rewriting unchanged
+                // values would only cost time on the server.
                 toUpdate.add(recordNew.get(old.getKey()));
             }
         }
@@ -68,6 +69,32 @@ class HandleDiff {
         }
     }
 
+    /**
+     * Compares the values as the Handle server stores them. The timestamp is
+     * set by the server on every write, so it is ignored.
+     *
+     * @param old    the current value.
+     * @param future the value it should become.
+     * @return true if writing the future value would not change anything.
+     */
+    static boolean isUnchanged(final HandleValue old, final HandleValue future) {
+        return old.getIndex() == future.getIndex()
+                && Arrays.equals(old.getType(), future.getType())
+                && Arrays.equals(old.getData(), future.getData())
+                && old.getTTLType() == future.getTTLType()
+                && old.getTTL() == future.getTTL()
+                && old.getAdminCanRead() == future.getAdminCanRead()
+                && old.getAdminCanWrite() == future.getAdminCanWrite()
+                && old.getAnyoneCanRead() == future.getAnyoneCanRead()
+                && old.getAnyoneCanWrite() == future.getAnyoneCanWrite()
+                && Arrays.equals(referencesOf(old), referencesOf(future));
+    }
+
+    private static ValueReference[] referencesOf(final HandleValue value) {
+        // values without references may have null or an empty array
+        return value.getReferences() == null ? new ValueReference[0] : value.getReferences();
+    }
+
     public HandleValue[] added() {
         return this.toAdd.toArray(new HandleValue[] {});
     }
@@ -21,16 +21,17 @@ import edu.kit.datamanager.pit.configuration.HandleCredentials;
 import edu.kit.datamanager.pit.configuration.HandleProtocolProperties;
 import edu.kit.datamanager.pit.domain.PIDRecord;
 import edu.kit.datamanager.pit.pidsystem.IIdentifierSystem;
+import edu.kit.datamanager.pit.pidsystem.RegistrationResult;
 import edu.kit.datamanager.pit.recordModifiers.RecordModifier;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Metrics;
 import io.micrometer.observation.annotation.Observed;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.annotation.PostConstruct;
 import jakarta.validation.constraints.NotNull;
-import net.handle.api.HSAdapter;
 import net.handle.api.HSAdapterFactory;
 import net.handle.apps.batch.BatchUtil;
 import net.handle.hdllib.*;
@@ -44,7 +45,12 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.security.PrivateKey;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -64,18 +70,45 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
     // Properties specific to this adapter.
     @Autowired
     final private HandleProtocolProperties props;
-    // Handle Protocol implementation
-    private HSAdapter client;
+    // Handle Protocol implementation, shared by all requests
+    private HandleClientPool clients;
     // indicates if the adapter can modify and create PIDs or just resolve them.
     private boolean isAdminMode = false;
     // the value that is appended to every new record.
     private HandleValue adminValue;
+    // runs the registrations of a batch concurrently. Without it, they run one after the other.
+    @Autowired(required = false)
+    private ManagedExecutors executors;
 
     // For testing
+    @Autowired
     public HandleProtocolAdapter(HandleProtocolProperties props) {
         this.props = props;
     }
 
+    /**
+     * Creates an adapter in administrative mode which uses the given clients,
+     * e.g. to test it against a stand-in for the Handle System. Do not call
+     * {@link #init()} afterwards.
+     *
+     * @param props      the properties of the adapter.
+     * @param clients    the clients to talk to the Handle System.
+     * @param adminValue the value that is appended to every new record.
+     * @param executors  the executors to run bulk registrations on.
+     */
+    HandleProtocolAdapter(
+            HandleProtocolProperties props,
+            HandleClientPool clients,
+            HandleValue adminValue,
+            ManagedExecutors executors
+    ) {
+        this.props = props;
+        this.clients = clients;
+        this.isAdminMode = true;
+        this.adminValue = adminValue;
+        this.executors = executors;
+    }
+
     /**
      * Initializes internal classes.
      * We use this method with the @PostConstruct annotation to run it
@@ -94,7 +127,11 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
 
         if (!this.isAdminMode) {
             LOG.warn("No credentials found. Starting Handle Adapter with no administrative privileges.");
-            this.client = HSAdapterFactory.newInstance();
+            this.clients = HandleClientPool.create(
+                    props.getClientPoolSize(),
+                    HSAdapterFactory::newInstance,
+                    Duration.ofMillis(props.getClientPoolTimeoutMillis()),
+                    Metrics.globalRegistry);
 
         } else {
             HandleCredentials credentials = props.getCredentials();
@@ -102,16 +139,22 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
             byte[] privateKey = credentials.getPrivateKeyFileContent();
             byte[] passphrase = credentials.getPrivateKeyPassphraseAsBytes();
             LOG.debug("Logging in with user {}", credentials.getUserHandle());
-            this.client = HSAdapterFactory.newInstance(
-                    credentials.getUserHandle(),
-                    credentials.getPrivateKeyIndex(),
-                    privateKey,
-                    passphrase // "use null for unencrypted keys"
-            );
-            this.adminValue = this.client.createAdminValue(
+            // every client authenticates once and reuses its sessions afterwards
+            this.clients = HandleClientPool.create(
+                    props.getClientPoolSize(),
+                    () -> HSAdapterFactory.newInstance(
+                            credentials.getUserHandle(),
+                            credentials.getPrivateKeyIndex(),
+                            privateKey,
+                            passphrase // "use null for unencrypted keys"
+                    ),
+                    Duration.ofMillis(props.getClientPoolTimeoutMillis()),
+                    Metrics.globalRegistry);
+            LOG.info("Authenticated {} Handle clients.", this.clients.size());
+            this.adminValue = this.clients.execute("createAdminValue", client -> client.createAdminValue(
                     props.getCredentials().getUserHandle(),
                     props.getCredentials().getPrivateKeyIndex(),
-                    new HandleIndex().getHsAdminIndex());
+                    new HandleIndex().getHsAdminIndex()));
         }
     }
 
@@ -131,7 +174,7 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
     public boolean isPidRegistered(@SpanAttribute final String pid) throws ExternalServiceException {
         HandleValue[] recordProperties;
         try {
-            recordProperties = this.client.resolveHandle(pid, null, null);
+            recordProperties = this.clients.execute("resolveHandle", client -> client.resolveHandle(pid, null, null));
         } catch (HandleException e) {
             if (e.getCode() == HandleException.HANDLE_DOES_NOT_EXIST) {
                 return false;
@@ -142,6 +185,39 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
         return recordProperties != null && recordProperties.length > 0;
     }
 
+    /**
+     * Checks the given PIDs concurrently, with at most as many checks in
+     * flight as the bulk registration window allows.
+     */
+    @Override
+    public Set<String> findRegisteredPids(Collection<String> pids) throws ExternalServiceException {
+        if (this.executors == null || pids.size() < 2) {
+            return IIdentifierSystem.super.findRegisteredPids(pids);
+        }
+        Semaphore window = new Semaphore(Math.max(1, this.props.getBulkRegistrationWindow()));
+        Map<String, CompletableFuture<Boolean>> checks = new LinkedHashMap<>();
+        for (String pid : pids) {
+            window.acquireUninterruptibly();
+            checks.put(pid, CompletableFuture
+                    .supplyAsync(() -> this.isPidRegistered(pid), this.executors.io())
+                    .whenComplete((registered, e) -> window.release()));
+        }
+        Set<String> registered = new HashSet<>();
+        for (Map.Entry<String, CompletableFuture<Boolean>> check : checks.entrySet()) {
+            try {
+                if (check.getValue().join()) {
+                    registered.add(check.getKey());
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof ExternalServiceException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return registered;
+    }
+
     @Override
     @WithSpan(kind = SpanKind.CLIENT)
     @Timed
@@ -151,6 +227,15 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
         if (allValues.isEmpty()) {
             return null;
         }
+        return recordFrom(pid, allValues);
+    }
+
+    /**
+     * @param pid       the PID of the record.
+     * @param allValues all values of the record, including the handle internal ones.
+     * @return the record as it is exposed to users, without handle internal values.
+     */
+    private static PIDRecord recordFrom(final String pid, final Collection<HandleValue> allValues) {
         Collection<HandleValue> recordProperties = Streams.failableStream(allValues.stream())
                 .filter(value -> !HandleBehavior.isHandleInternalValue(value))
                 .collect(Collectors.toList());
@@ -163,7 +248,7 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
     @Counted
     protected Collection<HandleValue> queryAllHandleValues(@SpanAttribute final String pid) throws PidNotFoundException, ExternalServiceException {
         try {
-            HandleValue[] values = this.client.resolveHandle(pid, null, null);
+            HandleValue[] values = this.clients.execute("resolveHandle", client -> client.resolveHandle(pid, null, null));
             return Stream.of(values)
                     .collect(Collectors.toCollection(ArrayList::new));
         } catch (HandleException e) {
@@ -193,7 +278,8 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
         HandleValue[] futurePairsArray = futurePairs.toArray(new HandleValue[]{});
 
         try {
-            this.client.createHandle(preparedRecord.getPid(), futurePairsArray);
+            String pid = preparedRecord.getPid();
+            this.clients.run("createHandle", client -> client.createHandle(pid, futurePairsArray));
         } catch (HandleException e) {
             if (e.getCode() == HandleException.HANDLE_ALREADY_EXISTS) {
                 // Should not happen as this has to be checked on the REST handler level.
@@ -205,18 +291,56 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
         return preparedRecord.getPid();
     }
 
+    /**
+     * Registers the records concurrently. Up to the configured window of
+     * records is in flight at the same time, and each registration uses its
+     * own client of the pool, so the records are sent to the Handle System as
+     * fast as the pool allows.
+     */
+    @Override
+    @WithSpan(kind = SpanKind.CLIENT)
+    @Timed
+    @Counted
+    public List<RegistrationResult> registerPidsUnchecked(final List<PIDRecord> pidRecords) {
+        if (this.executors == null || pidRecords.size() < 2) {
+            return IIdentifierSystem.super.registerPidsUnchecked(pidRecords);
+        }
+        Semaphore window = new Semaphore(Math.max(1, this.props.getBulkRegistrationWindow()));
+        List<CompletableFuture<RegistrationResult>> results = new ArrayList<>(pidRecords.size());
+        for (PIDRecord pidRecord : pidRecords) {
+            window.acquireUninterruptibly();
+            results.add(CompletableFuture
+                    .supplyAsync(() -> {
+                        try {
+                            return RegistrationResult.success(pidRecord, this.registerPidUnchecked(pidRecord));
+                        } catch (RuntimeException e) {
+                            return RegistrationResult.failure(pidRecord, e);
+                        }
+                    }, this.executors.io())
+                    .whenComplete((result, e) -> window.release()));
+        }
+        return results.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
     @Override
     @WithSpan(kind = SpanKind.CLIENT)
     @Timed
     @Counted
     public boolean updatePid(@SpanAttribute final PIDRecord pidRecord) throws PidNotFoundException, ExternalServiceException, RecordValidationException {
-        if (!this.isValidPID(pidRecord.getPid())) {
+        return this.updatePid(pidRecord, existingRecord -> {});
+    }
+
+    @Override
+    @WithSpan(kind = SpanKind.CLIENT)
+    @Timed
+    @Counted
+    public boolean updatePid(@SpanAttribute final PIDRecord pidRecord, final Consumer<PIDRecord> precondition)
+            throws PidNotFoundException, ExternalServiceException, RecordValidationException {
+        if (!this.hasConfiguredPrefix(pidRecord.getPid())) {
             return false;
         }
-        PIDRecord preparedRecord = pidRecord;
-        for (RecordModifier modifier : this.props.getConfiguredModifiers()) {
-            preparedRecord = modifier.apply(preparedRecord);
-        }
         // We need to override the old record as the user has no possibility to update
         // single values, and matching is hard.
         // The API expects the user to insert what the result should be. Due to the
@@ -235,8 +359,25 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
         // way to do it, is to add things which do not exist yet, update what needs to be updated,
         // and in the end remove what needs to be removed (usually nothing!).
 
+        // The current values are resolved only once. They are used for the
+        // precondition, to keep the handle internal values, and for the diff.
+        Collection<HandleValue> oldHandleValues;
+        try {
+            oldHandleValues = this.queryAllHandleValues(pidRecord.getPid());
+        } catch (PidNotFoundException e) {
+            return false;
+        }
+        if (oldHandleValues.isEmpty()) {
+            return false;
+        }
+        // the precondition sees the record as given, before the modifiers change it
+        precondition.accept(recordFrom(pidRecord.getPid(), oldHandleValues));
+        PIDRecord preparedRecord = pidRecord;
+        for (RecordModifier modifier : this.props.getConfiguredModifiers()) {
+            preparedRecord = modifier.apply(preparedRecord);
+        }
+
         // index value
-        Collection<HandleValue> oldHandleValues = this.queryAllHandleValues(preparedRecord.getPid());
         Map<Integer, HandleValue> recordOld = oldHandleValues.stream()
                 .collect(Collectors.toMap(HandleValue::getIndex, v -> v));
         // 1)
@@ -249,18 +390,19 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
                 .stream()
                 .collect(Collectors.toMap(HandleValue::getIndex, v -> v));
 
+        String pid = preparedRecord.getPid();
         try {
             // 3)
             HandleDiff diff = new HandleDiff(recordOld, recordNew);
             // 4)
             if (diff.added().length > 0) {
-                this.client.addHandleValues(preparedRecord.getPid(), diff.added());
+                this.clients.run("addHandleValues", client -> client.addHandleValues(pid, diff.added()));
             }
             if (diff.updated().length > 0) {
-                this.client.updateHandleValues(preparedRecord.getPid(), diff.updated());
+                this.clients.run("updateHandleValues", client -> client.updateHandleValues(pid, diff.updated()));
             }
             if (diff.removed().length > 0) {
-                this.client.deleteHandleValues(preparedRecord.getPid(), diff.removed());
+                this.clients.run("deleteHandleValues", client -> client.deleteHandleValues(pid, diff.removed()));
             }
         } catch (HandleException e) {
             if (e.getCode() == HandleException.HANDLE_DOES_NOT_EXIST) {
@@ -280,7 +422,7 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
     @Counted
     public boolean deletePid(@SpanAttribute final String pid) throws ExternalServiceException {
         try {
-            this.client.deleteHandle(pid);
+            this.clients.run("deleteHandle", client -> client.deleteHandle(pid));
         } catch (HandleException e) {
             if (e.getCode() == HandleException.HANDLE_DOES_NOT_EXIST) {
                 return false;
@@ -353,29 +495,15 @@ public class HandleProtocolAdapter implements IIdentifierSystem {
     }
 
     /**
-     * Returns true if the PID is valid according to the following criteria:
-     * - PID is valid according to isIdentifierRegistered
-     * - If a generator prefix is set, the PID is expedted to have this prefix.
+     * Returns true if the PID may be modified by this adapter, which is the
+     * case if it has the prefix of the configured credentials. Without
+     * credentials, this is not checked, but modifications will fail anyway.
      *
      * @param pid the identifier / PID to check.
-     * @return true if PID is registered (and if has the generatorPrefix, if it
-     * exists).
+     * @return true if the PID has the configured prefix, or no credentials are configured.
      */
-    @WithSpan
-    @Timed
-    @Counted
-    protected boolean isValidPID(@SpanAttribute final String pid) {
+    protected boolean hasConfiguredPrefix(final String pid) {
         boolean isAuthMode = this.props.getCredentials() != null;
-        if (isAuthMode && !pid.startsWith(this.props.getCredentials().getHandleIdentifierPrefix())) {
-            return false;
-        }
-        try {
-            if (!this.isPidRegistered(pid)) {
-                return false;
-            }
-        } catch (ExternalServiceException e) {
-            return false;
-        }
-        return true;
+        return !isAuthMode || pid.startsWith(this.props.getCredentials().getHandleIdentifierPrefix());
     }
 }
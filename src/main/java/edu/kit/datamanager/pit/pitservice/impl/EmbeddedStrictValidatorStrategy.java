@@ -24,6 +24,7 @@ import edu.kit.datamanager.pit.domain.PIDRecord;
 import edu.kit.datamanager.pit.pitservice.IValidationStrategy;
 import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
 import edu.kit.datamanager.pit.typeregistry.ITypeRegistry;
+import edu.kit.datamanager.pit.typeregistry.RegisteredProfile;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.observation.annotation.Observed;
@@ -35,10 +36,12 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Validates a PID record using embedded profile(s).
@@ -55,11 +58,29 @@ public class EmbeddedStrictValidatorStrategy implements IValidationStrategy {
     protected final ITypeRegistry typeRegistry;
     protected final boolean alwaysAcceptAdditionalAttributes;
     protected final Set<String> profileKeys;
+    protected final Executor validationExecutor;
 
     public EmbeddedStrictValidatorStrategy(
             ITypeRegistry typeRegistry,
             ApplicationProperties config
     ) {
+        // validates on the thread which completed the attribute lookup
+        this(typeRegistry, config, Runnable::run);
+    }
+
+    /**
+     * @param typeRegistry       the registry to resolve attributes and profiles with.
+     * @param config             the application configuration.
+     * @param validationExecutor the executor to validate values on. Validation
+     *                           is CPU-bound, so it should not run on the
+     *                           threads waiting for the type registry.
+     */
+    public EmbeddedStrictValidatorStrategy(
+            ITypeRegistry typeRegistry,
+            ApplicationProperties config,
+            Executor validationExecutor
+    ) {
+        this.validationExecutor = validationExecutor;
         this.typeRegistry = typeRegistry;
         this.profileKeys = config.getProfileKeys();
         this.alwaysAcceptAdditionalAttributes = config.isValidationAlwaysAllowAdditionalAttributes();
@@ -88,6 +109,18 @@ public class EmbeddedStrictValidatorStrategy implements IValidationStrategy {
         }
     }
 
+    private static void validateValues(PIDRecord pidRecord, AttributeInfo attributeInfo) {
+        for (String value : pidRecord.getPropertyValues(attributeInfo.pid())) {
+            boolean isValid = attributeInfo.validate(value);
+            if (!isValid) {
+                throw new RecordValidationException(
+                        pidRecord,
+                        "Attribute %s has a non-complying value %s"
+                                .formatted(attributeInfo.pid(), value));
+            }
+        }
+    }
+
     @Override
     @WithSpan(kind = SpanKind.CLIENT)
     @Timed
@@ -98,42 +131,30 @@ public class EmbeddedStrictValidatorStrategy implements IValidationStrategy {
             throw new RecordValidationException(pidRecord, "Record is empty!");
         }
 
-        // For each attribute in record, resolve schema and check the value
-        List<CompletableFuture<AttributeInfo>> attributeInfoFutures = pidRecord.getPropertyIdentifiers().stream()
-                // resolve attribute info (type and schema)
-                .map(this.typeRegistry::queryAttributeInfo)
-                // validate values using schema
-                .map(attributeInfoFuture -> attributeInfoFuture.thenApply(attributeInfo -> {
-                    for (String value : pidRecord.getPropertyValues(attributeInfo.pid())) {
-                        boolean isValid = attributeInfo.validate(value);
-                        if (!isValid) {
-                            throw new RecordValidationException(
-                                    pidRecord,
-                                    "Attribute %s has a non-complying value %s"
-                                            .formatted(attributeInfo.pid(), value));
-                        }
-                    }
-                    return attributeInfo;
-                }))
-                // resolve profiles and apply their validation
-                .map(attributeInfoFuture -> attributeInfoFuture.thenCompose(attributeInfo -> {
-                    boolean indicatesProfileValue = this.profileKeys.contains(attributeInfo.pid());
-                    if (!indicatesProfileValue) {
-                        return CompletableFuture.completedFuture(attributeInfo);
-                    }
-                    CompletableFuture<?>[] profileFutures = Arrays.stream(pidRecord.getPropertyValues(attributeInfo.pid()))
-                            .map(this.typeRegistry::queryAsProfile)
-                            .map(registeredProfileFuture -> registeredProfileFuture.thenAccept(
-                                    registeredProfile -> registeredProfile.validateAttributes(pidRecord, this.alwaysAcceptAdditionalAttributes)))
-                            .toArray(CompletableFuture[]::new);
-                    return CompletableFuture.allOf(profileFutures).thenApply(v -> attributeInfo);
-                }))
+        // Resolve all attributes (type and schema) at once, then check the values of each attribute
+        CompletableFuture<Void> valuesValidated = this.typeRegistry
+                .queryAttributeInfos(pidRecord.getPropertyIdentifiers())
+                .thenCompose(attributeInfos -> CompletableFuture.allOf(attributeInfos.values().stream()
+                        .map(attributeInfo -> CompletableFuture.runAsync(
+                                () -> validateValues(pidRecord, attributeInfo),
+                                this.validationExecutor))
+                        .toArray(CompletableFuture<?>[]::new)));
+        // Resolve all profiles the record refers to at once, and apply their validation
+        List<String> profilePids = this.profileKeys.stream()
+                .map(pidRecord::getPropertyValues)
+                .flatMap(Arrays::stream)
                 .toList();
-
+        CompletableFuture<Map<String, RegisteredProfile>> profiles = this.typeRegistry.queryProfiles(profilePids);
+        // if both fail, errors in the values are reported first
+        CompletableFuture<Void> validated = valuesValidated.thenCombine(profiles, (v, registeredProfiles) -> {
+            registeredProfiles.values().forEach(registeredProfile ->
+                    registeredProfile.validateAttributes(pidRecord, this.alwaysAcceptAdditionalAttributes));
+            return null;
+        });
 
         try {
             LOG.trace("Processing all attributes in the record {}.", pidRecord.getPid());
-            CompletableFuture.allOf(attributeInfoFutures.toArray(new CompletableFuture<?>[0])).join();
+            validated.join();
             LOG.trace("Finished processing all attributes in the record {}.", pidRecord.getPid());
         } catch (CompletionException e) {
             LOG.trace("Exception occurred during validation of record {}. Unpack Exception, if required.", pidRecord.getPid(), e);
@@ -19,7 +19,9 @@ package edu.kit.datamanager.pit.pitservice.impl;
 import edu.kit.datamanager.pit.common.*;
 import edu.kit.datamanager.pit.domain.Operations;
 import edu.kit.datamanager.pit.domain.PIDRecord;
+import edu.kit.datamanager.pit.pidlog.KnownPidFilter;
 import edu.kit.datamanager.pit.pidsystem.IIdentifierSystem;
+import edu.kit.datamanager.pit.pidsystem.RegistrationResult;
 import edu.kit.datamanager.pit.pitservice.ITypingService;
 import edu.kit.datamanager.pit.pitservice.IValidationStrategy;
 import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
@@ -32,11 +34,17 @@ import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Core implementation class that offers the combined higher-level services
@@ -60,11 +68,22 @@ public class TypingService implements ITypingService {
      */
     protected IValidationStrategy defaultStrategy;
 
+    /**
+     * Answers whether PIDs are registered without asking the identifier
+     * system, if possible. Empty if no filter is used.
+     */
+    protected final Optional<KnownPidFilter> knownPids;
+
     public TypingService(IIdentifierSystem identifierSystem, ITypeRegistry typeRegistry, IValidationStrategy defaultStrategy) {
+        this(identifierSystem, typeRegistry, defaultStrategy, null);
+    }
+
+    public TypingService(IIdentifierSystem identifierSystem, ITypeRegistry typeRegistry, IValidationStrategy defaultStrategy, KnownPidFilter knownPids) {
         super();
         this.identifierSystem = identifierSystem;
         this.typeRegistry = typeRegistry;
         this.defaultStrategy = defaultStrategy;
+        this.knownPids = Optional.ofNullable(knownPids).filter(KnownPidFilter::isEnabled);
     }
 
     @Override
@@ -92,16 +111,54 @@ public class TypingService implements ITypingService {
     @Counted
     public boolean isPidRegistered(@SpanAttribute String pid) throws ExternalServiceException {
         LOG.trace("Performing isIdentifierRegistered({}).", pid);
+        if (this.knownPids.isPresent()) {
+            return this.knownPids.get().isPidRegistered(pid);
+        }
         return identifierSystem.isPidRegistered(pid);
     }
 
+    @Override
+    public Set<String> findRegisteredPids(Collection<String> pids) throws ExternalServiceException {
+        if (this.knownPids.isPresent()) {
+            return this.knownPids.get().findRegisteredPids(pids);
+        }
+        return identifierSystem.findRegisteredPids(pids);
+    }
+
     @Override
     @WithSpan(kind = SpanKind.CLIENT)
     @Timed
     @Counted
     public String registerPidUnchecked(@SpanAttribute final PIDRecord pidRecord) throws PidAlreadyExistsException, ExternalServiceException {
         LOG.trace("Performing registerPID({}).", pidRecord);
-        return identifierSystem.registerPidUnchecked(pidRecord);
+        String pid = identifierSystem.registerPidUnchecked(pidRecord);
+        this.knownPids.ifPresent(filter -> filter.add(pid));
+        return pid;
+    }
+
+    @Override
+    @WithSpan(kind = SpanKind.CLIENT)
+    @Timed
+    @Counted
+    public List<RegistrationResult> registerPidsUnchecked(final List<PIDRecord> pidRecords) {
+        LOG.trace("Performing registerPIDs({} records).", pidRecords.size());
+        List<RegistrationResult> results = identifierSystem.registerPidsUnchecked(pidRecords);
+        this.knownPids.ifPresent(filter -> results.stream()
+                .filter(RegistrationResult::isSuccessful)
+                .forEach(result -> filter.add(result.pid())));
+        return results;
+    }
+
+    /**
+     * Rebuilds the filter of known PIDs periodically, if one is used, so it
+     * includes PIDs registered elsewhere.
+     */
+    @Scheduled(
+            initialDelayString = "${pit.pidgeneration.known-pids-filter-rebuild-interval-minutes:60}",
+            fixedDelayString = "${pit.pidgeneration.known-pids-filter-rebuild-interval-minutes:60}",
+            timeUnit = TimeUnit.MINUTES)
+    public void rebuildKnownPids() {
+        this.knownPids.ifPresent(KnownPidFilter::rebuild);
     }
 
     @Override
@@ -138,15 +195,16 @@ public class TypingService implements ITypingService {
     private void enrichPIDInformationRecord(PIDRecord pidInfo) {
         // enrich record by querying type registry for all property definitions
         // to get the property names
-        for (String typeIdentifier : pidInfo.getPropertyIdentifiers()) {
-            AttributeInfo attributeInfo;
-            try {
-                attributeInfo = this.typeRegistry.queryAttributeInfo(typeIdentifier).join();
-            } catch (CompletionException | CancellationException ex) {
-                // TODO convert exceptions like in validation service.
-                throw new InvalidConfigException(LOG_MSG_TYPING_SERVICE_MISCONFIGURED);
-            }
+        Map<String, AttributeInfo> attributeInfos;
+        try {
+            attributeInfos = this.typeRegistry.queryAttributeInfos(pidInfo.getPropertyIdentifiers()).join();
+        } catch (CompletionException | CancellationException ex) {
+            // TODO convert exceptions like in validation service.
+            throw new InvalidConfigException(LOG_MSG_TYPING_SERVICE_MISCONFIGURED);
+        }
 
+        for (String typeIdentifier : pidInfo.getPropertyIdentifiers()) {
+            AttributeInfo attributeInfo = attributeInfos.get(typeIdentifier);
             if (attributeInfo != null) {
                 pidInfo.setPropertyName(typeIdentifier, attributeInfo.name());
             } else {
@@ -163,6 +221,15 @@ public class TypingService implements ITypingService {
         return this.identifierSystem.updatePid(pidRecord);
     }
 
+    @Override
+    @WithSpan(kind = SpanKind.CLIENT)
+    @Timed
+    @Counted
+    public boolean updatePid(@SpanAttribute PIDRecord pidRecord, Consumer<PIDRecord> precondition)
+            throws PidNotFoundException, ExternalServiceException, RecordValidationException {
+        return this.identifierSystem.updatePid(pidRecord, precondition);
+    }
+
     @Override
     @WithSpan(kind = SpanKind.CLIENT)
     @Timed
@@ -20,7 +20,11 @@ import io.micrometer.core.annotation.Timed;
 import io.micrometer.observation.annotation.Observed;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Main abstraction interface towards the type registry. Contains all methods
@@ -36,10 +40,62 @@ public interface ITypeRegistry {
     @Timed
     CompletableFuture<RegisteredProfile> queryAsProfile(String profilePid);
 
+    /**
+     * Queries several attributes at once. Duplicate PIDs are queried only once.
+     * <p>
+     * The returned future fails if any of the attributes can not be resolved.
+     *
+     * @param attributePids the PIDs of the attributes.
+     * @return the attributes, by PID, in the order of the given PIDs.
+     */
+    @WithSpan
+    @Timed
+    default CompletableFuture<Map<String, AttributeInfo>> queryAttributeInfos(Collection<String> attributePids) {
+        return queryEach(attributePids, this::queryAttributeInfo);
+    }
+
+    /**
+     * Queries several profiles at once. Duplicate PIDs are queried only once.
+     * <p>
+     * The returned future fails if any of the profiles can not be resolved.
+     *
+     * @param profilePids the PIDs of the profiles.
+     * @return the profiles, by PID, in the order of the given PIDs.
+     */
+    @WithSpan
+    @Timed
+    default CompletableFuture<Map<String, RegisteredProfile>> queryProfiles(Collection<String> profilePids) {
+        return queryEach(profilePids, this::queryAsProfile);
+    }
+
     /**
      * An identifier for exceptions and debugging purposes.
      *
      * @return a name ur url string that identifies the implementation or configuration well in case of errors.
      */
     String getRegistryIdentifier();
+
+    /**
+     * Runs a single-key query for each distinct key concurrently and collects
+     * the results. Used by registries which have no cheaper way to resolve
+     * several keys at once.
+     *
+     * @param keys  the keys to query.
+     * @param query the query for a single key.
+     * @param <V>   the type of the results.
+     * @return the results, by key, in the order of the given keys. Fails if any query fails.
+     */
+    static <V> CompletableFuture<Map<String, V>> queryEach(
+            Collection<String> keys,
+            Function<String, CompletableFuture<V>> query
+    ) {
+        Map<String, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        keys.forEach(key -> futures.computeIfAbsent(key, query));
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    Map<String, V> results = new LinkedHashMap<>();
+                    futures.forEach((key, future) -> results.put(key, future.join()));
+                    return results;
+                });
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Lifetime settings of a type registry cache, with optional serving of stale
+ * entries.
+ * <p>
+ * Entries are refreshed in the background after half of their lifetime. By
+ * default, they expire after their lifetime, so if the registry is slow or
+ * unavailable at that time, lookups have to wait for it or fail. If a maximum
+ * staleness is configured, entries are kept for this additional time after
+ * their lifetime. They will still be served while a background refresh runs,
+ * and a failing refresh keeps them. Lookups of such stale entries are counted
+ * in the {@value #STALE_HITS_METRIC} metric.
+ * <p>
+ * Caches use the {@link #expiry(Function)} of their lifetime, so entries
+ * restored from a snapshot expire relative to when their response was fetched,
+ * not when they were restored.
+ */
+public class CacheLifetime {
+
+    public static final String STALE_HITS_METRIC = "pit.typeregistry.cache.stale.hits";
+
+    private final Duration lifetime;
+    private final Duration maxStaleness;
+    private final Counter staleHits;
+
+    /**
+     * @param cacheName            name of the cache, used as a metrics tag.
+     * @param lifetimeMinutes      the time in minutes after which an entry is considered stale.
+     * @param maxStalenessMinutes  the time in minutes a stale entry may still be served. Zero disables serving stale entries.
+     * @param meterRegistry        the registry to export the metrics of the cache to.
+     */
+    public CacheLifetime(String cacheName, long lifetimeMinutes, long maxStalenessMinutes, MeterRegistry meterRegistry) {
+        this.lifetime = Duration.ofMinutes(lifetimeMinutes);
+        this.maxStaleness = Duration.ofMinutes(Math.max(0, maxStalenessMinutes));
+        this.staleHits = Counter.builder(STALE_HITS_METRIC)
+                .description("Lookups served from a type registry cache entry older than its lifetime.")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+    }
+
+    public boolean servesStale() {
+        return !this.maxStaleness.isZero();
+    }
+
+    public Duration refreshAfterWrite() {
+        return this.lifetime.dividedBy(2);
+    }
+
+    public Duration expireAfterWrite() {
+        return this.lifetime.plus(this.maxStaleness);
+    }
+
+    /**
+     * Expires entries {@link #expireAfterWrite()} after the response they were
+     * built from was fetched. For entries without a known fetch time, e.g. if
+     * responses are not stored, this is when they were written, like
+     * {@code Caffeine.expireAfterWrite} does.
+     *
+     * @param fetchedAt returns when the response of an entry was fetched, if known.
+     * @param <V>       the value type of the cache.
+     * @return the expiry to build the cache with.
+     */
+    public <V> Expiry<String, V> expiry(Function<String, Optional<Instant>> fetchedAt) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                return remainingLifetime(fetchedAt.apply(key)).toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                return remainingLifetime(fetchedAt.apply(key)).toNanos();
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * @param fetchedAt when a response was fetched.
+     * @return true if an entry of this response would be expired by now.
+     */
+    public boolean isExpired(Instant fetchedAt) {
+        return this.remainingLifetime(Optional.of(fetchedAt)).isZero();
+    }
+
+    private Duration remainingLifetime(Optional<Instant> fetchedAt) {
+        Duration remaining = fetchedAt
+                .map(fetched -> this.expireAfterWrite().minus(Duration.between(fetched, Instant.now())))
+                .orElse(this.expireAfterWrite());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    /**
+     * @param cache the cache containing the entry.
+     * @param key   the key of the entry.
+     * @return the time since the entry (or its restored response) was fetched, if known.
+     */
+    public Optional<Duration> ageOf(AsyncCache<String, ?> cache, String key) {
+        Policy<String, ?> policy = cache.synchronous().policy();
+        return policy.expireVariably()
+                .flatMap(expiration -> expiration.getExpiresAfter(key))
+                .map(remaining -> this.expireAfterWrite().minus(remaining))
+                .or(() -> policy.expireAfterWrite().flatMap(expiration -> expiration.ageOf(key)));
+    }
+
+    /**
+     * Counts a lookup if it will be served from a stale entry. Call this before
+     * the lookup.
+     *
+     * @param cache the cache which is about to be queried.
+     * @param key   the key which is about to be looked up.
+     */
+    public void recordLookup(AsyncCache<String, ?> cache, String key) {
+        if (!this.servesStale()) {
+            return;
+        }
+        this.ageOf(cache, key)
+                .filter(age -> age.compareTo(this.lifetime) > 0)
+                .ifPresent(age -> this.staleHits.increment());
+    }
+}
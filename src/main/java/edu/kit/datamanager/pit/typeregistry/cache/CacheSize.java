@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.networknt.schema.JsonSchema;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounds the size of type registry caches, either by the number of entries
+ * or by the estimated number of bytes the entries retain.
+ * <p>
+ * Compiled schemas vary from a few hundred bytes to several hundred
+ * kilobytes, so an entry count does not say much about the memory a cache
+ * needs. With a byte budget, each entry is weighed by an estimate of its
+ * retained size: the length of its texts and, for schemas, the length of the
+ * schema document plus an estimate of its compiled validators.
+ * <p>
+ * The estimate of a compiled schema is computed once and remembered for as
+ * long as the schema is in use, so weighing an entry does not serialize its
+ * schema again. Compiled schemas are shared between entries (see
+ * {@code CompiledSchemaStore}), but sharing is not counted: every entry is
+ * weighed as if it owned its schema. The byte budget is therefore an upper
+ * bound, which caches with many types of the same schema reach before they
+ * actually retain that many bytes.
+ */
+public final class CacheSize {
+
+    /**
+     * Estimated overhead of a string object, in addition to its characters.
+     */
+    static final long STRING_OVERHEAD_BYTES = 40;
+    /**
+     * Compiled validators are estimated to retain this many times the length of
+     * their schema document.
+     */
+    static final long COMPILED_SCHEMA_FACTOR = 8;
+
+    /**
+     * Remembers the estimate of each compiled schema. Keys are compared by
+     * identity and held weakly, so an estimate is dropped with its schema.
+     */
+    private static final Cache<JsonSchema, Long> SCHEMA_ESTIMATES = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    private CacheSize() {}
+
+    /**
+     * Creates a cache builder bounded by a byte budget if one is given, and by
+     * the number of entries otherwise.
+     *
+     * @param maxEntries    the maximum number of entries, used if no byte budget is given.
+     * @param maxBytes      the byte budget. Zero or less disables it.
+     * @param retainedBytes estimates the bytes retained by a value.
+     * @param <V>           the value type of the cache.
+     * @return the bounded builder.
+     */
+    public static <V> Caffeine<String, V> newBuilder(int maxEntries, long maxBytes, ToLongFunction<V> retainedBytes) {
+        if (maxBytes > 0) {
+            return Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((String key, V value) -> toWeight(ofText(key) + retainedBytes.applyAsLong(value)));
+        }
+        // equivalent to maximumSize, but keeps the builder typed
+        return Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .weigher((String key, V value) -> 1);
+    }
+
+    /**
+     * @param texts the texts to estimate. Null values are ignored.
+     * @return the estimated bytes retained by the given texts.
+     */
+    public static long ofText(String... texts) {
+        long bytes = 0;
+        for (String text : texts) {
+            if (text != null) {
+                bytes += STRING_OVERHEAD_BYTES + text.length();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param schema the compiled schema. May be null.
+     * @return the estimated bytes retained by the schema document and its compiled validators,
+     * not considering that the schema may be shared with other entries.
+     */
+    public static long ofSchema(JsonSchema schema) {
+        if (schema == null) {
+            return 0;
+        }
+        return SCHEMA_ESTIMATES.get(schema, CacheSize::estimate);
+    }
+
+    private static long estimate(JsonSchema schema) {
+        long documentLength = schema.getSchemaNode().toString().length();
+        return documentLength + documentLength * COMPILED_SCHEMA_FACTOR;
+    }
+
+    static int toWeight(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.kit.datamanager.pit.common.TypeNotFoundException;
+import io.micrometer.core.instrument.Counter;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Remembers PIDs which the type registry does not know, so repeated lookups
+ * of the same unknown PID (e.g. a typo in a record) do not reach the registry
+ * again.
+ * <p>
+ * Not-found outcomes are kept for a short lifetime of their own, so types
+ * which are registered later become visible quickly. Stored outcomes and
+ * lookups answered from this cache are counted in the
+ * {@value #NOT_FOUND_METRIC} metric. The cache is registered as
+ * {@code <cache name>.notfound} in {@link RegistryCaches}, so single entries
+ * can be invalidated via the cache endpoint.
+ */
+public class NegativeCache {
+
+    public static final String NOT_FOUND_METRIC = "pit.typeregistry.cache.notfound";
+
+    private final AsyncCache<String, TypeNotFoundException> notFound;
+    private final boolean enabled;
+    private final Counter stored;
+    private final Counter hits;
+
+    /**
+     * @param cacheName       name of the cache this cache complements.
+     * @param lifetimeSeconds how long a not-found outcome is remembered. Zero disables this cache.
+     * @param maxEntries      the maximum number of remembered outcomes.
+     * @param caches          the registry to register this cache in, and to export its metrics to.
+     */
+    public NegativeCache(String cacheName, long lifetimeSeconds, int maxEntries, RegistryCaches caches) {
+        this.enabled = lifetimeSeconds > 0;
+        this.notFound = caches.register(cacheName + ".notfound", Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(0, lifetimeSeconds)))
+                .recordStats()
+                .buildAsync());
+        this.stored = Counter.builder(NOT_FOUND_METRIC)
+                .description("Not-found outcomes of the type registry, stored or served from the negative cache.")
+                .tag("cache", cacheName)
+                .tag("result", "stored")
+                .register(caches.meterRegistry());
+        this.hits = Counter.builder(NOT_FOUND_METRIC)
+                .description("Not-found outcomes of the type registry, stored or served from the negative cache.")
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(caches.meterRegistry());
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Returns the remembered not-found outcome of a key, if any, and counts
+     * the hit.
+     *
+     * @param key the key to look up.
+     * @return the exception the key was not found with.
+     */
+    public Optional<TypeNotFoundException> get(String key) {
+        if (!this.enabled) {
+            return Optional.empty();
+        }
+        Optional<TypeNotFoundException> outcome = Optional.ofNullable(this.notFound.getIfPresent(key))
+                .map(CompletableFuture::join);
+        outcome.ifPresent(e -> this.hits.increment());
+        return outcome;
+    }
+
+    /**
+     * Checks whether a key is known as not found, without counting a hit.
+     *
+     * @param key the key to check.
+     * @return true if the key is remembered as not found.
+     */
+    public boolean contains(String key) {
+        return this.enabled && this.notFound.asMap().containsKey(key);
+    }
+
+    public void put(String key, TypeNotFoundException e) {
+        if (this.enabled) {
+            this.notFound.put(key, CompletableFuture.completedFuture(e));
+            this.stored.increment();
+        }
+    }
+
+    /**
+     * Remembers the outcome of a lookup if it failed because the key is not
+     * known. Meant to be used with {@link CompletableFuture#whenComplete}.
+     *
+     * @param key the key which was looked up.
+     * @param e   the failure of the lookup, may be null.
+     */
+    public void rememberIfNotFound(String key, Throwable e) {
+        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+        if (cause instanceof TypeNotFoundException notFoundException) {
+            this.put(key, notFoundException);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Knows all caches of the type registry, so they can be monitored and
+ * administrated in one place.
+ * <p>
+ * Registered caches export their statistics (hits, misses, load times,
+ * evictions, size) as the Micrometer cache.* metrics, tagged with the cache
+ * name. Caches must be built with {@code recordStats()} for the statistics to
+ * be recorded. The weighted size of each cache (see {@link CacheSize}) is
+ * exported as {@value #WEIGHTED_SIZE_METRIC}.
+ */
+public class RegistryCaches {
+
+    public static final String WEIGHTED_SIZE_METRIC = "pit.typeregistry.cache.weighted.size";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, AsyncCache<String, ?>> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CacheLifetime> lifetimes = new ConcurrentHashMap<>();
+
+    public RegistryCaches(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates a registry whose metrics are not exported, e.g. for components
+     * created outside the application context.
+     *
+     * @return a registry exporting to a private meter registry.
+     */
+    public static RegistryCaches standalone() {
+        return new RegistryCaches(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Registers a cache and binds its statistics to the meter registry.
+     *
+     * @param name  the unique name of the cache.
+     * @param cache the cache to register.
+     * @param <V>   the value type of the cache.
+     * @param <C>   the type of the cache.
+     * @return the given cache.
+     */
+    public <V, C extends AsyncCache<String, V>> C register(String name, C cache) {
+        this.caches.put(name, cache);
+        Gauge.builder(WEIGHTED_SIZE_METRIC, cache, RegistryCaches::weightedSize)
+                .description("Estimated bytes retained by a byte-bounded type registry cache, or its number of entries otherwise.")
+                .tag("cache", name)
+                .register(this.meterRegistry);
+        return CaffeineCacheMetrics.monitor(this.meterRegistry, cache, name);
+    }
+
+    /**
+     * Registers a cache which uses the {@link CacheLifetime#expiry(java.util.function.Function) expiry} of
+     * the given lifetime, so the ages of its entries can be told.
+     *
+     * @param name     the unique name of the cache.
+     * @param cache    the cache to register.
+     * @param lifetime the lifetime of the entries of the cache.
+     * @param <V>      the value type of the cache.
+     * @param <C>      the type of the cache.
+     * @return the given cache.
+     */
+    public <V, C extends AsyncCache<String, V>> C register(String name, C cache, CacheLifetime lifetime) {
+        this.lifetimes.put(name, lifetime);
+        return this.register(name, cache);
+    }
+
+    private static double weightedSize(AsyncCache<String, ?> cache) {
+        Cache<String, ?> synchronous = cache.synchronous();
+        OptionalLong weightedSize = synchronous.policy().eviction()
+                .map(Policy.Eviction::weightedSize)
+                .orElse(OptionalLong.empty());
+        return weightedSize.isPresent() ? weightedSize.getAsLong() : synchronous.estimatedSize();
+    }
+
+    /**
+     * @return the registry the caches export their metrics to, for the metrics which belong to them.
+     */
+    public MeterRegistry meterRegistry() {
+        return this.meterRegistry;
+    }
+
+    public Optional<AsyncCache<String, ?>> get(String name) {
+        return Optional.ofNullable(this.caches.get(name));
+    }
+
+    public Optional<CacheLifetime> lifetimeOf(String name) {
+        return Optional.ofNullable(this.lifetimes.get(name));
+    }
+
+    /**
+     * @return a read-only view on all registered caches, by name.
+     */
+    public Map<String, AsyncCache<String, ?>> all() {
+        return Collections.unmodifiableMap(this.caches);
+    }
+}
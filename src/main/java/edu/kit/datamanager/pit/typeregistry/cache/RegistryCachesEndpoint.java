@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint to inspect and invalidate the type registry caches.
+ * <ul>
+ *     <li>{@code GET /actuator/typeregistrycache} lists all caches and their statistics.</li>
+ *     <li>{@code GET /actuator/typeregistrycache/{cache}} lists the keys of a cache, their age and when they expire.</li>
+ *     <li>{@code DELETE /actuator/typeregistrycache/{cache}} invalidates a whole cache.</li>
+ *     <li>{@code DELETE /actuator/typeregistrycache/{cache}?key={pid}} invalidates a single entry.</li>
+ * </ul>
+ */
+@Endpoint(id = "typeregistrycache")
+public class RegistryCachesEndpoint {
+
+    private final RegistryCaches caches;
+
+    public RegistryCachesEndpoint(RegistryCaches caches) {
+        this.caches = caches;
+    }
+
+    @ReadOperation
+    public Map<String, CacheDescriptor> caches() {
+        Map<String, CacheDescriptor> result = new TreeMap<>();
+        this.caches.all().forEach((name, cache) -> result.put(name, CacheDescriptor.of(cache)));
+        return result;
+    }
+
+    /**
+     * @param cache the name of the cache.
+     * @return the entries of the cache, or null (not found) if the cache is unknown.
+     */
+    @ReadOperation
+    @Nullable
+    public List<EntryDescriptor> entries(@Selector String cache) {
+        return this.caches.get(cache)
+                .map(asyncCache -> this.describeEntries(cache, asyncCache))
+                .orElse(null);
+    }
+
+    /**
+     * Invalidates a whole cache, or a single entry of it.
+     *
+     * @param cache the name of the cache.
+     * @param key   the key of the entry to invalidate. If null, all entries are invalidated.
+     * @return the state of the cache after invalidation, or null (not found) if the cache is unknown.
+     */
+    @DeleteOperation
+    @Nullable
+    public CacheDescriptor invalidate(@Selector String cache, @Nullable String key) {
+        return this.caches.get(cache)
+                .map(asyncCache -> {
+                    if (key == null) {
+                        asyncCache.synchronous().invalidateAll();
+                    } else {
+                        asyncCache.synchronous().invalidate(key);
+                    }
+                    return CacheDescriptor.of(asyncCache);
+                })
+                .orElse(null);
+    }
+
+    private List<EntryDescriptor> describeEntries(String name, AsyncCache<String, ?> asyncCache) {
+        Cache<String, ?> cache = asyncCache.synchronous();
+        Optional<CacheLifetime> lifetime = this.caches.lifetimeOf(name);
+        return cache.asMap().keySet().stream()
+                .sorted()
+                .map(key -> new EntryDescriptor(
+                        key,
+                        lifetime.flatMap(cacheLifetime -> cacheLifetime.ageOf(asyncCache, key))
+                                .or(() -> cache.policy().expireAfterWrite().flatMap(expiration -> expiration.ageOf(key)))
+                                .map(Duration::toSeconds)
+                                .orElse(null),
+                        cache.policy().expireVariably()
+                                .flatMap(expiration -> expiration.getExpiresAfter(key))
+                                .or(() -> cache.policy().expireAfterWrite()
+                                        .flatMap(expiration -> expiration.ageOf(key)
+                                                .map(age -> expiration.getExpiresAfter().minus(age))))
+                                .map(Duration::toSeconds)
+                                .orElse(null)))
+                .toList();
+    }
+
+    public record CacheDescriptor(
+            long estimatedSize,
+            long hitCount,
+            long missCount,
+            double hitRate,
+            long loadCount,
+            long loadFailureCount,
+            double averageLoadPenaltyMillis,
+            long evictionCount
+    ) {
+        static CacheDescriptor of(AsyncCache<String, ?> cache) {
+            CacheStats stats = cache.synchronous().stats();
+            return new CacheDescriptor(
+                    cache.synchronous().estimatedSize(),
+                    stats.hitCount(),
+                    stats.missCount(),
+                    stats.hitRate(),
+                    stats.loadCount(),
+                    stats.loadFailureCount(),
+                    stats.averageLoadPenalty() / 1_000_000.0,
+                    stats.evictionCount());
+        }
+    }
+
+    /**
+     * @param key              the key of the entry.
+     * @param ageSeconds       the time since the entry (or its restored response) was loaded, if known.
+     * @param expiresInSeconds the time until the entry expires, if known.
+     */
+    public record EntryDescriptor(String key, @Nullable Long ageSeconds, @Nullable Long expiresInSeconds) {}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import edu.kit.datamanager.pit.Application;
+import edu.kit.datamanager.pit.typeregistry.http.Validators;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the raw responses which the type registry caches were built from, so
+ * they can be written to a snapshot file and restored after a restart.
+ * <p>
+ * Responses are grouped into regions, usually one per cache (or per schema
+ * source). Parsed objects (e.g. compiled schemas) are not stored, they are
+ * rebuilt from the raw responses on startup.
+ * <p>
+ * If no snapshot file is configured, the store is disabled and does not keep
+ * any responses.
+ */
+public class RegistryResponseStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryResponseStore.class);
+
+    private static final TypeReference<Map<String, Map<String, StoredResponse>>> SNAPSHOT_FORMAT = new TypeReference<>() {};
+
+    @Nullable
+    private final Path snapshotFile;
+    private final ConcurrentMap<String, ConcurrentMap<String, StoredResponse>> regions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a store which is backed by the given snapshot file.
+     * <p>
+     * If the file exists, its content is loaded immediately.
+     *
+     * @param snapshotFile the file to read the snapshot from and write it to.
+     *                     If null, the store is disabled.
+     */
+    public RegistryResponseStore(@Nullable Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        if (snapshotFile != null) {
+            this.load();
+        }
+    }
+
+    /**
+     * Creates a store which does not keep any responses.
+     *
+     * @return a disabled store.
+     */
+    public static RegistryResponseStore disabled() {
+        return new RegistryResponseStore(null);
+    }
+
+    public boolean isEnabled() {
+        return this.snapshotFile != null;
+    }
+
+    /**
+     * Remembers a response body, using the current time as fetch timestamp.
+     *
+     * @param region the region (usually the cache) the response belongs to.
+     * @param key    the key of the response within the region, usually a PID.
+     * @param body   the raw response body.
+     */
+    public void put(String region, String key, String body) {
+        this.put(region, key, body, Validators.NONE);
+    }
+
+    /**
+     * Remembers a response body and its validators, using the current time as
+     * fetch timestamp.
+     *
+     * @param region     the region (usually the cache) the response belongs to.
+     * @param key        the key of the response within the region, usually a PID.
+     * @param body       the raw response body.
+     * @param validators the validators of the response.
+     */
+    public void put(String region, String key, String body, Validators validators) {
+        if (!this.isEnabled() || body == null) {
+            return;
+        }
+        this.regions
+                .computeIfAbsent(region, r -> new ConcurrentHashMap<>())
+                .put(key, new StoredResponse(body, Instant.now(), validators));
+    }
+
+    /**
+     * Marks a stored response as still up to date, e.g. after the registry
+     * answered a conditional request with "not modified".
+     *
+     * @param region the region the response belongs to.
+     * @param key    the key of the response within the region.
+     */
+    public void touch(String region, String key) {
+        Optional.ofNullable(this.regions.get(region))
+                .ifPresent(responses -> responses.computeIfPresent(key, (k, response) ->
+                        new StoredResponse(response.body(), Instant.now(), response.validators())));
+    }
+
+    public void remove(String region, String key) {
+        Optional.ofNullable(this.regions.get(region))
+                .ifPresent(responses -> responses.remove(key));
+    }
+
+    public Optional<StoredResponse> get(String region, String key) {
+        return Optional.ofNullable(this.regions.get(region))
+                .map(responses -> responses.get(key));
+    }
+
+    /**
+     * @param region the region the response belongs to.
+     * @param key    the key of the response within the region.
+     * @return when the stored response was fetched (or last confirmed), if one is stored.
+     */
+    public Optional<Instant> fetchedAt(String region, String key) {
+        return this.get(region, key).map(StoredResponse::fetchedAt);
+    }
+
+    /**
+     * Returns a read-only view on all responses of a region.
+     *
+     * @param region the region to return.
+     * @return a map from keys to responses. Empty if the region is unknown.
+     */
+    public Map<String, StoredResponse> region(String region) {
+        return Collections.unmodifiableMap(this.regions.getOrDefault(region, new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Writes all responses to the snapshot file.
+     * <p>
+     * Runs periodically and on shutdown. The file is replaced atomically, so a
+     * crash during writing will not leave a broken snapshot behind.
+     */
+    @Scheduled(
+            initialDelayString = "${pit.typeregistry.cache.snapshot.intervalMinutes:5}",
+            fixedDelayString = "${pit.typeregistry.cache.snapshot.intervalMinutes:5}",
+            timeUnit = TimeUnit.MINUTES)
+    @PreDestroy
+    public synchronized void persist() {
+        if (!this.isEnabled()) {
+            return;
+        }
+        try {
+            Path directory = this.snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, this.snapshotFile.getFileName().toString(), ".tmp");
+            Application.jsonObjectMapper().writeValue(tmp.toFile(), this.regions);
+            Files.move(tmp, this.snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.debug("Wrote type registry cache snapshot to {}.", this.snapshotFile);
+        } catch (IOException e) {
+            LOG.warn("Could not write type registry cache snapshot to {}: {}", this.snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the snapshot file, if it exists. Unreadable snapshots are ignored,
+     * as the caches will simply be filled from the registry again.
+     */
+    protected void load() {
+        if (!Files.isRegularFile(this.snapshotFile)) {
+            LOG.info("No type registry cache snapshot found at {}. Starting with empty caches.", this.snapshotFile);
+            return;
+        }
+        try {
+            Map<String, Map<String, StoredResponse>> snapshot = Application.jsonObjectMapper()
+                    .readValue(this.snapshotFile.toFile(), SNAPSHOT_FORMAT);
+            snapshot.forEach((region, responses) -> this.regions
+                    .computeIfAbsent(region, r -> new ConcurrentHashMap<>())
+                    .putAll(responses));
+            LOG.info("Loaded type registry cache snapshot from {}.", this.snapshotFile);
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable type registry cache snapshot at {}: {}", this.snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Puts a restored value into a cache, applying the usual staleness rules.
+     * <p>
+     * The value is rebuilt asynchronously, so restoring does not block. If the
+     * response is older than the refresh threshold of the cache, the value will
+     * still be served, but a refresh is triggered in the background. The entry
+     * expires when the response would have expired, and responses which are
+     * expired already are not restored at all.
+     *
+     * @param cache     the cache to restore the value into. Its expiry must use the fetch times of the stored responses, see {@link CacheLifetime#expiry}.
+     * @param key       the key of the value.
+     * @param fetchedAt when the raw response of the value was fetched.
+     * @param rebuild   rebuilds the value from the raw response.
+     * @param executor  the executor to rebuild the value on.
+     * @param lifetime  the lifetime settings of the cache.
+     * @param <V>       the value type of the cache.
+     * @return false if the response was expired, so nothing was restored.
+     */
+    public static <V> boolean restore(
+            AsyncLoadingCache<String, V> cache,
+            String key,
+            Instant fetchedAt,
+            Supplier<V> rebuild,
+            Executor executor,
+            CacheLifetime lifetime
+    ) {
+        if (lifetime.isExpired(fetchedAt)) {
+            return false;
+        }
+        return restore(cache, key, fetchedAt, CompletableFuture.supplyAsync(rebuild, executor), lifetime);
+    }
+
+    /**
+     * Puts a value, which is being restored, into a cache, applying the usual
+     * staleness rules.
+     *
+     * @param cache     the cache to restore the value into. Its expiry must use the fetch times of the stored responses, see {@link CacheLifetime#expiry}.
+     * @param key       the key of the value.
+     * @param fetchedAt when the raw response of the value was fetched.
+     * @param restored  the value, rebuilt from the raw response.
+     * @param lifetime  the lifetime settings of the cache.
+     * @param <V>       the value type of the cache.
+     * @return false if the response was expired, so nothing was restored.
+     */
+    public static <V> boolean restore(
+            AsyncLoadingCache<String, V> cache,
+            String key,
+            Instant fetchedAt,
+            CompletableFuture<V> restored,
+            CacheLifetime lifetime
+    ) {
+        if (lifetime.isExpired(fetchedAt)) {
+            restored.cancel(false);
+            return false;
+        }
+        boolean isStale = Duration.between(fetchedAt, Instant.now()).compareTo(lifetime.refreshAfterWrite()) >= 0;
+        cache.put(key, restored);
+        if (isStale) {
+            restored.thenRun(() -> cache.synchronous().refresh(key));
+        }
+        return true;
+    }
+}
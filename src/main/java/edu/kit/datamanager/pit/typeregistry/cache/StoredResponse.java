@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import edu.kit.datamanager.pit.typeregistry.http.Validators;
+import jakarta.annotation.Nullable;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A raw response of the type registry (or a schema source), as it was received.
+ *
+ * @param body the unparsed response body.
+ * @param fetchedAt the time the response was received, or last confirmed as unchanged.
+ * @param validators the validators of the response. Null in snapshots written before they were stored.
+ */
+public record StoredResponse(
+        String body,
+        Instant fetchedAt,
+        @Nullable Validators validators
+) {
+    public StoredResponse(String body, Instant fetchedAt) {
+        this(body, fetchedAt, Validators.NONE);
+    }
+
+    public Validators validatorsOrNone() {
+        return Objects.requireNonNullElse(this.validators, Validators.NONE);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.http;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The outcome of a possibly conditional request.
+ *
+ * @param body       the response body, or null if the server reported it as not modified.
+ * @param validators the validators of the response, to be sent with the next request.
+ */
+public record FetchedDocument(
+        @Nullable String body,
+        Validators validators
+) {
+    public boolean notModified() {
+        return this.body == null;
+    }
+}
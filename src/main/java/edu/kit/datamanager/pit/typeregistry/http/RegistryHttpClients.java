@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.http;
+
+import edu.kit.datamanager.pit.Application;
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.typeregistry.resilience.UpstreamGuards;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates the HTTP clients for all requests to the type registry and schema
+ * sources, so they share one connection pool and the same limits.
+ * <p>
+ * All clients use one {@link HttpClient}, which keeps HTTP/1.1 connections
+ * alive per host and multiplexes requests over HTTP/2 connections where the
+ * server supports it. Idle HTTP/1.1 connections are closed after the
+ * keep-alive timeout of the JDK client, which can be set for the whole JVM
+ * with the system property {@code jdk.httpclient.keepalive.timeout} at startup.
+ * Every client applies:
+ * <ul>
+ *     <li>the configured connect and read timeouts,</li>
+ *     <li>a limit of concurrent requests per host,</li>
+ *     <li>the upstream guards (circuit breaker and bulkhead),</li>
+ *     <li>a {@value #REQUESTS_METRIC} timer, tagged with host, route and status.</li>
+ * </ul>
+ */
+public class RegistryHttpClients {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryHttpClients.class);
+
+    public static final String REQUESTS_METRIC = "pit.typeregistry.http.requests";
+
+    protected final HttpClient httpClient;
+    protected final Duration readTimeout;
+    protected final int maxConnectionsPerHost;
+    protected final UpstreamGuards upstreamGuards;
+    protected final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    protected final MeterRegistry meterRegistry;
+
+    public RegistryHttpClients(ApplicationProperties props, UpstreamGuards upstreamGuards, MeterRegistry meterRegistry) {
+        this.upstreamGuards = upstreamGuards;
+        this.meterRegistry = meterRegistry;
+        this.readTimeout = Duration.ofMillis(props.getHttpReadTimeoutMillis());
+        this.maxConnectionsPerHost = props.getHttpMaxConnectionsPerHost();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(props.getHttpConnectTimeoutMillis()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Creates clients with the default configuration and without upstream
+     * guards, whose metrics are not exported.
+     *
+     * @return clients with default settings.
+     */
+    public static RegistryHttpClients withDefaults() {
+        return new RegistryHttpClients(new ApplicationProperties(), UpstreamGuards.disabled(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Creates a client for one route of an upstream.
+     *
+     * @param route   name of the route, used for metrics and the upstream guards.
+     * @param baseUrl the base URL of all requests of this client.
+     * @return a client using the shared connection pool and limits.
+     */
+    public RestClient create(String route, String baseUrl) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(this.httpClient);
+        requestFactory.setReadTimeout(this.readTimeout);
+        return RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .requestInterceptor(this.measure(route))
+                // waiting for a local permit must not count as upstream latency or failure
+                .requestInterceptor(this.limitPerHost())
+                .requestInterceptor(this.upstreamGuards.interceptorFor(route))
+                .build();
+    }
+
+    protected ClientHttpRequestInterceptor measure(String route) {
+        return (request, body, execution) -> {
+            String host = hostOf(request.getURI());
+            long start = System.nanoTime();
+            String status = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                status = String.valueOf(response.getStatusCode().value());
+                return response;
+            } finally {
+                long nanos = System.nanoTime() - start;
+                Timer.builder(REQUESTS_METRIC)
+                        .description("Requests to the type registry and schema sources.")
+                        .tag("host", host)
+                        .tag("route", route)
+                        .tag("status", status)
+                        .register(this.meterRegistry)
+                        .record(nanos, TimeUnit.NANOSECONDS);
+                long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+                if (millis > Application.LONG_HTTP_REQUEST_THRESHOLD) {
+                    LOG.warn("Long http request to {} ({}ms)", request.getURI(), millis);
+                }
+            }
+        };
+    }
+
+    /**
+     * Limits the concurrent requests per host. A permit is held until the
+     * response is closed, as the body is read after the interceptors returned.
+     */
+    protected ClientHttpRequestInterceptor limitPerHost() {
+        return (request, body, execution) -> {
+            String host = hostOf(request.getURI());
+            Semaphore permits = this.hostPermits.computeIfAbsent(host, h -> new Semaphore(this.maxConnectionsPerHost));
+            try {
+                if (!permits.tryAcquire(this.readTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new ExternalServiceException(host, "Too many concurrent requests.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExternalServiceException(host, "Interrupted while waiting for a connection.", e);
+            }
+            try {
+                return new PermitReleasingResponse(execution.execute(request, body), permits);
+            } catch (CancellationException e) {
+                // the request factory cancels requests exceeding the read timeout
+                permits.release();
+                throw new HttpTimeoutException("Request to %s timed out after %d ms.".formatted(host, this.readTimeout.toMillis()));
+            } catch (IOException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        };
+    }
+
+    protected static String hostOf(URI uri) {
+        return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    private static class PermitReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingResponse(ClientHttpResponse delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
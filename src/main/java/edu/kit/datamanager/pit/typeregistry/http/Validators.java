@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.http;
+
+import jakarta.annotation.Nullable;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * The validators of a response (ETag, Last-Modified), which allow asking the
+ * server whether a response changed, instead of downloading it again.
+ *
+ * @param etag         the ETag header of the response, if any.
+ * @param lastModified the Last-Modified header of the response, if any.
+ */
+public record Validators(
+        @Nullable String etag,
+        @Nullable String lastModified
+) {
+    public static final Validators NONE = new Validators(null, null);
+
+    public static Validators of(HttpHeaders responseHeaders) {
+        return new Validators(
+                responseHeaders.getETag(),
+                responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    public boolean isEmpty() {
+        return this.etag == null && this.lastModified == null;
+    }
+
+    /**
+     * Makes a request conditional, so the server answers with 304 (Not
+     * Modified) if the response did not change.
+     *
+     * @param requestHeaders the headers of the request.
+     */
+    public void applyTo(HttpHeaders requestHeaders) {
+        if (this.etag != null) {
+            requestHeaders.setIfNoneMatch(this.etag);
+        }
+        if (this.lastModified != null) {
+            requestHeaders.set(HttpHeaders.IF_MODIFIED_SINCE, this.lastModified);
+        }
+    }
+}
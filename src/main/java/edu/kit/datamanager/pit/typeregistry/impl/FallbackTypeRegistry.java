@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.impl;
+
+import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
+import edu.kit.datamanager.pit.typeregistry.ITypeRegistry;
+import edu.kit.datamanager.pit.typeregistry.RegisteredProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Queries a primary type registry first and only asks the fallback registry if
+ * the primary one fails, e.g. because it does not know the requested type.
+ * <p>
+ * Used to prefer a local registry over a remote one.
+ */
+public class FallbackTypeRegistry implements ITypeRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FallbackTypeRegistry.class);
+
+    protected final ITypeRegistry primary;
+    protected final ITypeRegistry fallback;
+
+    public FallbackTypeRegistry(ITypeRegistry primary, ITypeRegistry fallback) {
+        this.primary = primary;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public CompletableFuture<AttributeInfo> queryAttributeInfo(String attributePid) {
+        return this.primary.queryAttributeInfo(attributePid)
+                .exceptionallyCompose(e -> {
+                    LOG.debug("Attribute {} not available from {}, asking {}.",
+                            attributePid, primary.getRegistryIdentifier(), fallback.getRegistryIdentifier());
+                    return this.fallback.queryAttributeInfo(attributePid);
+                });
+    }
+
+    @Override
+    public CompletableFuture<RegisteredProfile> queryAsProfile(String profilePid) {
+        return this.primary.queryAsProfile(profilePid)
+                .exceptionallyCompose(e -> {
+                    LOG.debug("Profile {} not available from {}, asking {}.",
+                            profilePid, primary.getRegistryIdentifier(), fallback.getRegistryIdentifier());
+                    return this.fallback.queryAsProfile(profilePid);
+                });
+    }
+
+    /**
+     * Queries all attributes from the primary registry at once. If that fails,
+     * each attribute is queried on its own, so only the attributes missing in
+     * the primary registry are taken from the fallback registry.
+     */
+    @Override
+    public CompletableFuture<Map<String, AttributeInfo>> queryAttributeInfos(Collection<String> attributePids) {
+        return this.primary.queryAttributeInfos(attributePids)
+                .exceptionallyCompose(e -> ITypeRegistry.queryEach(attributePids, this::queryAttributeInfo));
+    }
+
+    /**
+     * Queries all profiles from the primary registry at once. If that fails,
+     * each profile is queried on its own, so only the profiles missing in the
+     * primary registry are taken from the fallback registry.
+     */
+    @Override
+    public CompletableFuture<Map<String, RegisteredProfile>> queryProfiles(Collection<String> profilePids) {
+        return this.primary.queryProfiles(profilePids)
+                .exceptionallyCompose(e -> ITypeRegistry.queryEach(profilePids, this::queryAsProfile));
+    }
+
+    @Override
+    public String getRegistryIdentifier() {
+        return "%s, falling back to %s".formatted(
+                this.primary.getRegistryIdentifier(),
+                this.fallback.getRegistryIdentifier());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaException;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import edu.kit.datamanager.pit.Application;
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.common.InvalidConfigException;
+import edu.kit.datamanager.pit.common.TypeNotFoundException;
+import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
+import edu.kit.datamanager.pit.typeregistry.ITypeRegistry;
+import edu.kit.datamanager.pit.typeregistry.RegisteredProfile;
+import edu.kit.datamanager.pit.typeregistry.schema.SchemaInfo;
+import jakarta.validation.constraints.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * A type registry which serves profiles, attributes and schemas from a local
+ * directory or zip archive, without any network access.
+ * <p>
+ * The content is expected in the format the Type API returns it:
+ * <pre>
+ * types/{prefix}_{suffix}.json    type or profile, as returned by /v1/types/{pid}
+ * schemas/{prefix}_{suffix}.json  schema, as returned by /v1/types/schema/{pid}
+ * </pre>
+ * The PID of a file is its name without extension, where the first underscore
+ * is replaced by a slash. Everything is parsed, compiled and indexed on
+ * startup, so lookups return completed futures.
+ */
+public class LocalTypeRegistry implements ITypeRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalTypeRegistry.class);
+
+    protected static final String TYPES_DIRECTORY = "types";
+    protected static final String SCHEMAS_DIRECTORY = "schemas";
+
+    protected final String origin;
+    protected final Map<String, CompletableFuture<AttributeInfo>> attributes = new HashMap<>();
+    protected final Map<String, CompletableFuture<RegisteredProfile>> profiles = new HashMap<>();
+    JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
+
+    /**
+     * Loads all types and schemas from the given directory or zip archive.
+     *
+     * @param source a directory or a zip archive.
+     * @throws InvalidConfigException if the source does not exist or can not be read.
+     */
+    public LocalTypeRegistry(@NotNull Path source) {
+        this.origin = source.toAbsolutePath().toString();
+        if (Files.isDirectory(source)) {
+            this.index(source);
+        } else if (Files.isRegularFile(source)) {
+            try (FileSystem archive = FileSystems.newFileSystem(source)) {
+                this.index(archive.getPath("/"));
+            } catch (IOException e) {
+                throw new InvalidConfigException("Local type registry archive can not be read: " + source, e);
+            }
+        } else {
+            throw new InvalidConfigException("Local type registry source does not exist: " + source);
+        }
+        LOG.info("Loaded {} types from local type registry at {}.", this.attributes.size(), this.origin);
+    }
+
+    protected void index(Path root) {
+        Map<String, JsonNode> types = readDocuments(root.resolve(TYPES_DIRECTORY));
+        Map<String, JsonNode> schemas = readDocuments(root.resolve(SCHEMAS_DIRECTORY));
+        types.forEach((pid, type) -> {
+            SchemaInfo schema = schemas.containsKey(pid)
+                    ? this.compileSchema(pid, schemas.get(pid))
+                    : new SchemaInfo(this.origin, null, new TypeNotFoundException(pid));
+            this.attributes.put(pid, CompletableFuture.completedFuture(
+                    TypeApi.parseAttribute(pid, type, Set.of(schema))));
+            try {
+                this.profiles.put(pid, CompletableFuture.completedFuture(
+                        TypeApi.parseProfile(this.origin, pid, type)));
+            } catch (ExternalServiceException e) {
+                this.profiles.put(pid, CompletableFuture.failedFuture(e));
+            }
+        });
+    }
+
+    protected Map<String, JsonNode> readDocuments(Path directory) {
+        Map<String, JsonNode> documents = new HashMap<>();
+        if (!Files.isDirectory(directory)) {
+            LOG.warn("Local type registry has no directory {}.", directory);
+            return documents;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .forEach(file -> {
+                        try {
+                            documents.put(pidOf(file), Application.jsonObjectMapper().readTree(Files.readString(file)));
+                        } catch (IOException e) {
+                            LOG.warn("Ignoring unreadable file {} in local type registry: {}", file, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            throw new InvalidConfigException("Local type registry can not be read: " + directory, e);
+        }
+        return documents;
+    }
+
+    protected SchemaInfo compileSchema(String pid, JsonNode schemaDocument) {
+        JsonSchema schema;
+        try {
+            schema = schemaFactory.getSchema(schemaDocument);
+        } catch (JsonSchemaException e) {
+            schema = null;
+        }
+        if (schema == null || schema.getSchemaNode().isMissingNode() || schema.getSchemaNode().isTextual()) {
+            return new SchemaInfo(
+                    this.origin,
+                    null,
+                    new ExternalServiceException(this.origin, "Schema (" + pid + ") is not a valid schema."));
+        }
+        schema.initializeValidators();
+        return new SchemaInfo(this.origin, schema, null);
+    }
+
+    /**
+     * Returns the PID of a file, e.g. "21.T11148/abc" for "21.T11148_abc.json".
+     */
+    static String pidOf(Path file) {
+        String name = file.getFileName().toString();
+        name = name.substring(0, name.length() - ".json".length());
+        return name.replaceFirst("_", "/");
+    }
+
+    @Override
+    public CompletableFuture<AttributeInfo> queryAttributeInfo(String attributePid) {
+        CompletableFuture<AttributeInfo> attribute = this.attributes.get(attributePid);
+        return attribute != null ? attribute : CompletableFuture.failedFuture(new TypeNotFoundException(attributePid));
+    }
+
+    @Override
+    public CompletableFuture<RegisteredProfile> queryAsProfile(String profilePid) {
+        CompletableFuture<RegisteredProfile> profile = this.profiles.get(profilePid);
+        return profile != null ? profile : CompletableFuture.failedFuture(new TypeNotFoundException(profilePid));
+    }
+
+    @Override
+    public String getRegistryIdentifier() {
+        return this.origin;
+    }
+}
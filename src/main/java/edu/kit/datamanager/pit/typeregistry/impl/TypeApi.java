@@ -17,11 +17,13 @@
 package edu.kit.datamanager.pit.typeregistry.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import edu.kit.datamanager.pit.Application;
 import edu.kit.datamanager.pit.common.ExternalServiceException;
 import edu.kit.datamanager.pit.common.InvalidConfigException;
+import edu.kit.datamanager.pit.common.ManagedExecutors;
 import edu.kit.datamanager.pit.common.TypeNotFoundException;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
 import edu.kit.datamanager.pit.domain.ImmutableList;
@@ -29,6 +31,15 @@ import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
 import edu.kit.datamanager.pit.typeregistry.ITypeRegistry;
 import edu.kit.datamanager.pit.typeregistry.RegisteredProfile;
 import edu.kit.datamanager.pit.typeregistry.RegisteredProfileAttribute;
+import edu.kit.datamanager.pit.typeregistry.cache.CacheLifetime;
+import edu.kit.datamanager.pit.typeregistry.cache.CacheSize;
+import edu.kit.datamanager.pit.typeregistry.cache.NegativeCache;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryCaches;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryResponseStore;
+import edu.kit.datamanager.pit.typeregistry.cache.StoredResponse;
+import edu.kit.datamanager.pit.typeregistry.http.FetchedDocument;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
+import edu.kit.datamanager.pit.typeregistry.http.Validators;
 import edu.kit.datamanager.pit.typeregistry.schema.SchemaInfo;
 import edu.kit.datamanager.pit.typeregistry.schema.SchemaSetGenerator;
 import io.micrometer.core.annotation.Counted;
@@ -39,20 +50,28 @@ import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.web.client.RestClient;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.StreamSupport;
 
 @Observed
@@ -61,15 +80,63 @@ public class TypeApi implements ITypeRegistry {
 
     private static final Logger LOG = LoggerFactory.getLogger(TypeApi.class);
 
+    protected static final String REGION_PROFILES = "profiles";
+    protected static final String REGION_ATTRIBUTES = "attributes";
+    protected static final String UPSTREAM = "type-api";
+    /**
+     * Number of types which are loaded at the same time by bulk queries and
+     * prefetching, so these do not use up the concurrent requests allowed per
+     * upstream.
+     */
+    protected static final int MAX_PARALLEL_LOADS = 4;
+
     protected final URL baseUrl;
     protected final RestClient http;
     protected final AsyncLoadingCache<String, RegisteredProfile> profileCache;
     protected final AsyncLoadingCache<String, AttributeInfo> attributeCache;
+    protected final CacheLifetime profileLifetime;
+    protected final CacheLifetime attributeLifetime;
+    protected final NegativeCache profilesNotFound;
+    protected final NegativeCache attributesNotFound;
 
     protected final SchemaSetGenerator schemaSetGenerator;
+    protected final RegistryResponseStore responseStore;
+    protected final Executor executor;
+    protected final ConcurrentMap<String, Validators> profileValidators = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, Validators> attributeValidators = new ConcurrentHashMap<>();
+    protected final boolean prefetchProfileAttributes;
 
     public TypeApi(ApplicationProperties properties, SchemaSetGenerator schemaSetGenerator) {
+        this(properties, schemaSetGenerator, RegistryResponseStore.disabled(), RegistryHttpClients.withDefaults());
+    }
+
+    public TypeApi(
+            ApplicationProperties properties,
+            SchemaSetGenerator schemaSetGenerator,
+            RegistryResponseStore responseStore,
+            RegistryHttpClients httpClients
+    ) {
+        this(
+                properties,
+                schemaSetGenerator,
+                responseStore,
+                httpClients,
+                ManagedExecutors.standalone(),
+                RegistryCaches.standalone());
+    }
+
+    public TypeApi(
+            ApplicationProperties properties,
+            SchemaSetGenerator schemaSetGenerator,
+            RegistryResponseStore responseStore,
+            RegistryHttpClients httpClients,
+            ManagedExecutors executors,
+            RegistryCaches caches
+    ) {
+        this.executor = executors.io();
+        this.prefetchProfileAttributes = properties.isCachePrefetchProfileAttributes();
         this.schemaSetGenerator = schemaSetGenerator;
+        this.responseStore = responseStore;
         this.baseUrl = properties.getTypeRegistryUri();
         String baseUri;
         try {
@@ -77,105 +144,436 @@ public class TypeApi implements ITypeRegistry {
         } catch (URISyntaxException e) {
             throw new InvalidConfigException("Type-Api base url not valid: " + baseUrl);
         }
-        this.http = RestClient.builder()
-                .baseUrl(baseUri)
-                .requestInterceptor((request, body, execution) -> {
-                    long start = System.currentTimeMillis();
-                    ClientHttpResponse response = execution.execute(request, body);
-                    long timeSpan = System.currentTimeMillis() - start;
-                    boolean isLongRequest = timeSpan > Application.LONG_HTTP_REQUEST_THRESHOLD;
-                    if (isLongRequest) {
-                        LOG.warn("Long http request to {} ({}ms)", request.getURI(), timeSpan);
+        this.http = httpClients.create(UPSTREAM, baseUri);
+
+        int maximumSize = properties.getCacheMaxEntries();
+        this.profileLifetime = new CacheLifetime(
+                REGION_PROFILES,
+                properties.getCacheExpireAfterWriteLifetime(),
+                properties.getCacheMaxStaleness(),
+                caches.meterRegistry());
+        this.attributeLifetime = new CacheLifetime(
+                REGION_ATTRIBUTES,
+                properties.getCacheExpireAfterWriteLifetime(),
+                properties.getCacheMaxStaleness(),
+                caches.meterRegistry());
+
+        this.profilesNotFound = new NegativeCache(
+                REGION_PROFILES,
+                properties.getCacheNotFoundLifetimeSeconds(),
+                properties.getCacheNotFoundMaxEntries(),
+                caches);
+        this.attributesNotFound = new NegativeCache(
+                REGION_ATTRIBUTES,
+                properties.getCacheNotFoundLifetimeSeconds(),
+                properties.getCacheNotFoundMaxEntries(),
+                caches);
+
+        this.profileCache = caches.register(REGION_PROFILES, CacheSize
+                .<RegisteredProfile>newBuilder(maximumSize, properties.getCacheProfilesMaxBytes(), TypeApi::retainedBytes)
+                .recordStats()
+                .executor(this.executor)
+                .refreshAfterWrite(this.profileLifetime.refreshAfterWrite())
+                .expireAfter(this.profileLifetime.expiry(key -> this.responseStore.fetchedAt(REGION_PROFILES, key)))
+                .removalListener((String key, RegisteredProfile value, RemovalCause cause) -> {
+                    LOG.trace("Removing profile {} from profile cache. Cause: {}", key, cause);
+                    if (cause.wasEvicted()) {
+                        this.responseStore.remove(REGION_PROFILES, key);
+                    }
+                    if (cause != RemovalCause.REPLACED) {
+                        this.profileValidators.remove(key);
                     }
-                    return response;
                 })
-                .build();
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<RegisteredProfile> asyncLoad(String maybeProfilePid, Executor loadExecutor) {
+                        LOG.trace("Loading profile {} to cache.", maybeProfilePid);
+                        return loadProfile(maybeProfilePid);
+                    }
 
-        int maximumSize = properties.getCacheMaxEntries();
-        long expireAfterWrite = properties.getCacheExpireAfterWriteLifetime();
-
-        this.profileCache = Caffeine.newBuilder()
-                .maximumSize(maximumSize)
-                .executor(Application.newExecutor())
-                .refreshAfterWrite(Duration.ofMinutes(expireAfterWrite / 2))
-                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES)
-                .removalListener((key, value, cause) ->
-                        LOG.trace("Removing profile {} from profile cache. Cause: {}", key, cause)
-                )
-                .buildAsync(maybeProfilePid -> {
-                    LOG.trace("Loading profile {} to cache.", maybeProfilePid);
-                    return this.queryProfile(maybeProfilePid);
-                });
+                    @Override
+                    public CompletableFuture<Map<String, RegisteredProfile>> asyncLoadAll(
+                            Set<? extends String> profilePids,
+                            Executor loadExecutor
+                    ) {
+                        return loadProfiles(profilePids);
+                    }
 
-        this.attributeCache = Caffeine.newBuilder()
-                .maximumSize(maximumSize)
-                .executor(Application.newExecutor())
-                .refreshAfterWrite(Duration.ofMinutes(expireAfterWrite / 2))
-                .expireAfterWrite(expireAfterWrite, TimeUnit.MINUTES)
-                .removalListener((key, value, cause) ->
-                        LOG.trace("Removing profile {} from profile cache. Cause: {}", key, cause)
-                )
-                .buildAsync(attributePid -> {
-                    LOG.trace("Loading attribute {} to cache.", attributePid);
-                    return this.queryAttribute(attributePid);
-                });
+                    @Override
+                    public CompletableFuture<RegisteredProfile> asyncReload(
+                            String profilePid,
+                            RegisteredProfile oldValue,
+                            Executor loadExecutor
+                    ) {
+                        return reloadProfile(profilePid, oldValue);
+                    }
+                }), this.profileLifetime);
+
+        this.attributeCache = caches.register(REGION_ATTRIBUTES, CacheSize
+                .<AttributeInfo>newBuilder(maximumSize, properties.getCacheAttributesMaxBytes(), TypeApi::retainedBytes)
+                .recordStats()
+                .executor(this.executor)
+                .refreshAfterWrite(this.attributeLifetime.refreshAfterWrite())
+                .expireAfter(this.attributeLifetime.expiry(key -> this.responseStore.fetchedAt(REGION_ATTRIBUTES, key)))
+                .removalListener((String key, AttributeInfo value, RemovalCause cause) -> {
+                    LOG.trace("Removing attribute {} from attribute cache. Cause: {}", key, cause);
+                    if (cause.wasEvicted()) {
+                        this.responseStore.remove(REGION_ATTRIBUTES, key);
+                    }
+                    if (cause != RemovalCause.REPLACED) {
+                        this.attributeValidators.remove(key);
+                    }
+                })
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<AttributeInfo> asyncLoad(String attributePid, Executor loadExecutor) {
+                        LOG.trace("Loading attribute {} to cache.", attributePid);
+                        return loadAttribute(attributePid);
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<String, AttributeInfo>> asyncLoadAll(
+                            Set<? extends String> attributePids,
+                            Executor loadExecutor
+                    ) {
+                        return loadAttributes(attributePids);
+                    }
+
+                    @Override
+                    public CompletableFuture<AttributeInfo> asyncReload(
+                            String attributePid,
+                            AttributeInfo oldValue,
+                            Executor loadExecutor
+                    ) {
+                        return reloadAttribute(attributePid, oldValue);
+                    }
+                }), this.attributeLifetime);
+
+        this.restoreFromStore();
     }
 
-    @WithSpan(kind = SpanKind.CLIENT)
-    @Counted
-    protected AttributeInfo queryAttribute(@SpanAttribute String attributePid) {
-        return http.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path(attributePid)
-                        .build())
-                .exchange((clientRequest, clientResponse) -> {
-                    if (clientResponse.getStatusCode().is2xxSuccessful()) {
-                        try (InputStream inputStream = clientResponse.getBody()) {
-                            String body = new String(inputStream.readAllBytes());
-                            return extractAttributeInformation(attributePid, Application.jsonObjectMapper().readTree(body));
-                        } catch (IOException e) {
-                            throw new TypeNotFoundException(attributePid);
-                        }
-                    } else {
-                        throw new TypeNotFoundException(attributePid);
+    /**
+     * Fills the caches with profiles and attributes rebuilt from the raw
+     * responses in the response store. Stale entries will be refreshed in the
+     * background, expired ones are dropped.
+     */
+    protected void restoreFromStore() {
+        Map<String, StoredResponse> profiles = this.responseStore.region(REGION_PROFILES);
+        profiles.forEach((profilePid, response) -> {
+            boolean restored = RegistryResponseStore.restore(
+                    this.profileCache,
+                    profilePid,
+                    response.fetchedAt(),
+                    () -> this.extractProfileInformation(profilePid, this.parseResponse(response.body())),
+                    this.executor,
+                    this.profileLifetime);
+            if (restored) {
+                this.profileValidators.put(profilePid, response.validatorsOrNone());
+            } else {
+                this.responseStore.remove(REGION_PROFILES, profilePid);
+            }
+        });
+        Map<String, StoredResponse> attributes = this.responseStore.region(REGION_ATTRIBUTES);
+        attributes.forEach((attributePid, response) -> {
+            if (this.attributeLifetime.isExpired(response.fetchedAt())) {
+                this.responseStore.remove(REGION_ATTRIBUTES, attributePid);
+                return;
+            }
+            RegistryResponseStore.restore(
+                    this.attributeCache,
+                    attributePid,
+                    response.fetchedAt(),
+                    // only parsed, as storing the response again would reset the time it was fetched at
+                    this.schemaSetGenerator.generateFor(attributePid).thenApply(schemaSet -> {
+                        this.attributeValidators.put(attributePid, response.validatorsOrNone());
+                        return this.parseAttribute(attributePid, this.parseResponse(response.body()), schemaSet);
+                    }),
+                    this.attributeLifetime);
+        });
+        if (!profiles.isEmpty() || !attributes.isEmpty()) {
+            LOG.info("Restored {} profiles and {} attributes from snapshot.", profiles.size(), attributes.size());
+        }
+    }
+
+    protected JsonNode parseResponse(String body) throws ExternalServiceException {
+        try {
+            return Application.jsonObjectMapper().readTree(body);
+        } catch (IOException e) {
+            throw new ExternalServiceException(baseUrl.toString(), "Response is not valid JSON.", e);
+        }
+    }
+
+    /**
+     * Loads an attribute without blocking: the type document and the schemas
+     * are requested concurrently and combined when both are available.
+     *
+     * @param attributePid the PID of the attribute.
+     * @return the attribute information.
+     */
+    protected CompletableFuture<AttributeInfo> loadAttribute(String attributePid) {
+        return this.combineAttribute(
+                attributePid,
+                CompletableFuture.supplyAsync(() -> this.queryType(attributePid, Validators.NONE), this.executor),
+                this.schemaSetGenerator.generateFor(attributePid));
+    }
+
+    /**
+     * Loads several attributes for a bulk query. The Type API has no bulk
+     * endpoint, so the attributes are loaded one by one, but only a few at a
+     * time. Attributes which can not be loaded are left out of the result.
+     *
+     * @param attributePids the PIDs of the attributes which are not cached yet.
+     * @return the attributes which could be loaded, by PID.
+     */
+    protected CompletableFuture<Map<String, AttributeInfo>> loadAttributes(Collection<? extends String> attributePids) {
+        return loadBounded(attributePids, this::loadAttribute, (attributePid, e) -> {
+            this.attributesNotFound.rememberIfNotFound(attributePid, e);
+            LOG.debug("Loading attribute {} failed: {}", attributePid, e.getMessage());
+        });
+    }
+
+    /**
+     * Refreshes an attribute. The type document is requested conditionally, so
+     * an unchanged document is neither downloaded nor parsed again. The schemas
+     * are taken from the schema cache, which revalidates them by itself.
+     *
+     * @param attributePid the PID of the attribute.
+     * @param previous     the attribute information before the refresh.
+     * @return the refreshed attribute information.
+     */
+    protected CompletableFuture<AttributeInfo> reloadAttribute(String attributePid, AttributeInfo previous) {
+        Validators validators = this.attributeValidators.getOrDefault(attributePid, Validators.NONE);
+        return CompletableFuture
+                .supplyAsync(() -> this.queryType(attributePid, validators), this.executor)
+                .thenCombine(this.schemaSetGenerator.generateFor(attributePid), (document, schemaSet) -> {
+                    if (document.notModified()) {
+                        this.responseStore.touch(REGION_ATTRIBUTES, attributePid);
+                        return new AttributeInfo(previous.pid(), previous.name(), previous.typeName(), schemaSet);
                     }
+                    return this.storeAttribute(attributePid, document, schemaSet);
                 });
     }
 
-    protected AttributeInfo extractAttributeInformation(String attributePid, JsonNode jsonNode) {
+    protected CompletableFuture<AttributeInfo> combineAttribute(
+            String attributePid,
+            CompletableFuture<FetchedDocument> typeDocument,
+            CompletableFuture<Set<SchemaInfo>> schemas
+    ) {
+        return typeDocument.thenCombine(schemas, (document, schemaSet) -> this.storeAttribute(attributePid, document, schemaSet));
+    }
+
+    protected AttributeInfo storeAttribute(String attributePid, FetchedDocument document, Set<SchemaInfo> schemas) {
+        AttributeInfo attributeInfo = parseAttribute(attributePid, this.parseResponse(document.body()), schemas);
+        this.attributeValidators.put(attributePid, document.validators());
+        this.responseStore.put(REGION_ATTRIBUTES, attributePid, document.body(), document.validators());
+        return attributeInfo;
+    }
+
+    /**
+     * @param profile a cached profile.
+     * @return the estimated bytes the profile retains in the cache.
+     */
+    static long retainedBytes(RegisteredProfile profile) {
+        return CacheSize.ofText(profile.pid()) + profile.attributes().items().stream()
+                .mapToLong(attribute -> CacheSize.ofText(attribute.pid()))
+                .sum();
+    }
+
+    /**
+     * @param attributeInfo a cached attribute.
+     * @return the estimated bytes the attribute and its schemas retain in the cache.
+     */
+    static long retainedBytes(AttributeInfo attributeInfo) {
+        return CacheSize.ofText(attributeInfo.pid(), attributeInfo.name(), attributeInfo.typeName())
+                + SchemaSetGenerator.retainedBytes(attributeInfo.jsonSchema());
+    }
+
+    /**
+     * Creates the attribute information from a Type API type document.
+     *
+     * @param attributePid the PID of the attribute.
+     * @param jsonNode the type document, as returned by the Type API.
+     * @param schemas the schemas to validate values of this attribute with.
+     * @return the attribute information.
+     */
+    static AttributeInfo parseAttribute(String attributePid, JsonNode jsonNode, Set<SchemaInfo> schemas) {
         String typeName = jsonNode.path("type").asText();
         String name = jsonNode.path("name").asText();
-        Set<SchemaInfo> schemas = this.querySchemas(attributePid);
         return new AttributeInfo(attributePid, name, typeName, schemas);
     }
 
-    @WithSpan(kind = SpanKind.CLIENT)
-    @Counted
-    protected Set<SchemaInfo> querySchemas(@SpanAttribute String maybeSchemaPid) throws TypeNotFoundException, ExternalServiceException {
-        return schemaSetGenerator.generateFor(maybeSchemaPid).join();
+    protected CompletableFuture<RegisteredProfile> loadProfile(String maybeProfilePid) {
+        return CompletableFuture
+                .supplyAsync(() -> this.queryType(maybeProfilePid, Validators.NONE), this.executor)
+                .thenApply(document -> this.storeProfile(maybeProfilePid, document))
+                .whenComplete((profile, e) -> this.prefetchAttributes(profile));
+    }
+
+    /**
+     * Loads several profiles for a bulk query, a few at a time. Profiles which
+     * can not be loaded are left out of the result.
+     *
+     * @param profilePids the PIDs of the profiles which are not cached yet.
+     * @return the profiles which could be loaded, by PID.
+     */
+    protected CompletableFuture<Map<String, RegisteredProfile>> loadProfiles(Collection<? extends String> profilePids) {
+        return loadBounded(profilePids, this::loadProfile, (profilePid, e) -> {
+            this.profilesNotFound.rememberIfNotFound(profilePid, e);
+            LOG.debug("Loading profile {} failed: {}", profilePid, e.getMessage());
+        });
+    }
+
+    /**
+     * Runs the given load for each key, but at most {@link #MAX_PARALLEL_LOADS}
+     * at a time.
+     *
+     * @param keys      the keys to load.
+     * @param load      loads the value of a single key.
+     * @param onFailure is called for each key whose value could not be loaded.
+     * @param <V>       the type of the values.
+     * @return the values which could be loaded, by key.
+     */
+    protected static <V> CompletableFuture<Map<String, V>> loadBounded(
+            Collection<? extends String> keys,
+            Function<String, CompletableFuture<V>> load,
+            BiConsumer<String, Throwable> onFailure
+    ) {
+        List<String> distinctKeys = keys.stream().distinct().map(String.class::cast).toList();
+        Map<String, V> loaded = new ConcurrentHashMap<>();
+        int lanes = Math.min(MAX_PARALLEL_LOADS, distinctKeys.size());
+        CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<?> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < distinctKeys.size(); i += MAX_PARALLEL_LOADS) {
+                String key = distinctKeys.get(i);
+                chain = chain.thenCompose(previous -> load.apply(key)
+                        .handle((value, e) -> {
+                            if (e != null) {
+                                onFailure.accept(key, e);
+                            } else if (value != null) {
+                                loaded.put(key, value);
+                            }
+                            return null;
+                        }));
+            }
+            laneFutures[lane] = chain;
+        }
+        return CompletableFuture.allOf(laneFutures).thenApply(v -> loaded);
+    }
+
+    /**
+     * Refreshes a profile. The profile is requested conditionally, so an
+     * unchanged profile is neither downloaded nor parsed again.
+     *
+     * @param profilePid the PID of the profile.
+     * @param previous   the profile before the refresh.
+     * @return the refreshed profile.
+     */
+    protected CompletableFuture<RegisteredProfile> reloadProfile(String profilePid, RegisteredProfile previous) {
+        Validators validators = this.profileValidators.getOrDefault(profilePid, Validators.NONE);
+        return CompletableFuture
+                .supplyAsync(() -> this.queryType(profilePid, validators), this.executor)
+                .thenApply(document -> {
+                    if (document.notModified()) {
+                        this.responseStore.touch(REGION_PROFILES, profilePid);
+                        return previous;
+                    }
+                    return this.storeProfile(profilePid, document);
+                })
+                .whenComplete((profile, e) -> this.prefetchAttributes(profile));
+    }
+
+    /**
+     * Loads the attributes of a profile (and therefore their schemas) into the
+     * cache in the background, if enabled. Attributes which are already cached
+     * or known as not found are skipped.
+     *
+     * @param profile the profile whose attributes to prefetch. May be null, if loading the profile failed.
+     */
+    protected void prefetchAttributes(RegisteredProfile profile) {
+        if (!this.prefetchProfileAttributes || profile == null) {
+            return;
+        }
+        List<String> missing = profile.attributes().items().stream()
+                .map(RegisteredProfileAttribute::pid)
+                .distinct()
+                .filter(attributePid -> !this.attributeCache.asMap().containsKey(attributePid))
+                .filter(attributePid -> !this.attributesNotFound.contains(attributePid))
+                .toList();
+        loadBounded(missing, this.attributeCache::get, (attributePid, e) -> {
+            this.attributesNotFound.rememberIfNotFound(attributePid, e);
+            LOG.debug("Prefetching attribute {} of profile {} failed: {}", attributePid, profile.pid(), e.getMessage());
+        });
     }
 
+    protected RegisteredProfile storeProfile(String profilePid, FetchedDocument document) {
+        RegisteredProfile profile = extractProfileInformation(profilePid, this.parseResponse(document.body()));
+        this.profileValidators.put(profilePid, document.validators());
+        this.responseStore.put(REGION_PROFILES, profilePid, document.body(), document.validators());
+        return profile;
+    }
+
+    /**
+     * Fetches the type document of a type or profile.
+     *
+     * @param maybeTypePid the PID of the type or profile.
+     * @param validators   the validators of the previous response. If not empty, the request is conditional.
+     * @return the raw type document, or "not modified".
+     * @throws TypeNotFoundException if the registry does not know this PID (404 or 410).
+     * @throws ExternalServiceException if the registry failed to answer, e.g. with a server
+     *                                  error, another client error like 429, or an unreadable body.
+     */
     @WithSpan(kind = SpanKind.CLIENT)
     @Counted
-    protected RegisteredProfile queryProfile(@SpanAttribute String maybeProfilePid) throws TypeNotFoundException, ExternalServiceException {
+    protected FetchedDocument queryType(@SpanAttribute String maybeTypePid, Validators validators)
+            throws TypeNotFoundException, ExternalServiceException {
         return http.get()
                 .uri(uriBuilder -> uriBuilder
-                        .path(maybeProfilePid)
+                        .path(maybeTypePid)
                         .build())
+                .headers(validators::applyTo)
                 .exchange((clientRequest, clientResponse) -> {
-                    if (clientResponse.getStatusCode().is2xxSuccessful()) {
-                        InputStream inputStream = clientResponse.getBody();
-                        String body = new String(inputStream.readAllBytes());
-                        inputStream.close();
-                        return extractProfileInformation(maybeProfilePid, Application.jsonObjectMapper().readTree(body));
-                    } else {
-                        throw new TypeNotFoundException(maybeProfilePid);
+                    HttpStatusCode status = clientResponse.getStatusCode();
+                    if (status.value() == 304 && !validators.isEmpty()) {
+                        return new FetchedDocument(null, validators);
+                    } else if (status.value() == 404 || status.value() == 410) {
+                        throw new TypeNotFoundException(maybeTypePid);
+                    } else if (!status.is2xxSuccessful()) {
+                        // not a statement about the PID (e.g. rate limits or missing authorization),
+                        // so it must not be cached as "not found"
+                        throw new ExternalServiceException(
+                                this.baseUrl.toString(),
+                                "Error querying %s: %s".formatted(maybeTypePid, status.value()));
+                    }
+                    try (InputStream inputStream = clientResponse.getBody()) {
+                        return new FetchedDocument(
+                                new String(inputStream.readAllBytes(), StandardCharsets.UTF_8),
+                                Validators.of(clientResponse.getHeaders()));
+                    } catch (IOException e) {
+                        throw new ExternalServiceException(
+                                this.baseUrl.toString(),
+                                "Response (%s) could not be read.".formatted(maybeTypePid),
+                                e);
                     }
                 });
     }
 
     protected RegisteredProfile extractProfileInformation(String profilePid, JsonNode typeApiResponse)
             throws TypeNotFoundException, ExternalServiceException {
+        return parseProfile(baseUrl.toString(), profilePid, typeApiResponse);
+    }
+
+    /**
+     * Creates the profile information from a Type API type document.
+     *
+     * @param origin the registry the document is from, used in error messages.
+     * @param profilePid the PID of the profile.
+     * @param typeApiResponse the type document, as returned by the Type API.
+     * @return the profile information.
+     * @throws ExternalServiceException if the profile contains malformed attributes.
+     */
+    static RegisteredProfile parseProfile(String origin, String profilePid, JsonNode typeApiResponse)
+            throws ExternalServiceException {
 
         List<RegisteredProfileAttribute> attributes = new ArrayList<>();
         typeApiResponse.path("content").path("properties").forEach(item -> {
@@ -201,7 +599,7 @@ public class TypeApi implements ITypeRegistry {
                     attributeRepeatable);
 
             if (obligationNode.isNull() || repeatableNode.isNull() || attributePid.trim().isEmpty()) {
-                throw new ExternalServiceException(baseUrl.toString(), "Malformed attribute in profile (%s): " + attribute);
+                throw new ExternalServiceException(origin, "Malformed attribute in profile (%s): " + attribute);
             }
             attributes.add(attribute);
 
@@ -231,14 +629,87 @@ public class TypeApi implements ITypeRegistry {
     @WithSpan
     @Counted
     public CompletableFuture<AttributeInfo> queryAttributeInfo(@SpanAttribute String attributePid) {
-        return this.attributeCache.get(attributePid);
+        Optional<TypeNotFoundException> notFound = this.attributesNotFound.get(attributePid);
+        if (notFound.isPresent()) {
+            return CompletableFuture.failedFuture(notFound.get());
+        }
+        this.attributeLifetime.recordLookup(this.attributeCache, attributePid);
+        return this.attributeCache.get(attributePid)
+                .whenComplete((attributeInfo, e) -> this.attributesNotFound.rememberIfNotFound(attributePid, e));
     }
 
     @Override
     @WithSpan
     @Counted
     public CompletableFuture<RegisteredProfile> queryAsProfile(@SpanAttribute String profilePid) {
-        return this.profileCache.get(profilePid);
+        Optional<TypeNotFoundException> notFound = this.profilesNotFound.get(profilePid);
+        if (notFound.isPresent()) {
+            return CompletableFuture.failedFuture(notFound.get());
+        }
+        this.profileLifetime.recordLookup(this.profileCache, profilePid);
+        return this.profileCache.get(profilePid)
+                .whenComplete((profile, e) -> this.profilesNotFound.rememberIfNotFound(profilePid, e));
+    }
+
+    /**
+     * Queries several attributes at once, using a single bulk lookup on the
+     * attribute cache. Attributes which are not cached yet are loaded a few at
+     * a time.
+     */
+    @Override
+    @WithSpan
+    @Counted
+    public CompletableFuture<Map<String, AttributeInfo>> queryAttributeInfos(Collection<String> attributePids) {
+        return queryAll(attributePids, this.attributeCache, this.attributeLifetime, this.attributesNotFound, this::queryAttributeInfo);
+    }
+
+    /**
+     * Queries several profiles at once, using a single bulk lookup on the
+     * profile cache. Profiles which are not cached yet are loaded a few at a
+     * time.
+     */
+    @Override
+    @WithSpan
+    @Counted
+    public CompletableFuture<Map<String, RegisteredProfile>> queryProfiles(Collection<String> profilePids) {
+        return queryAll(profilePids, this.profileCache, this.profileLifetime, this.profilesNotFound, this::queryAsProfile);
+    }
+
+    /**
+     * Looks up several keys in a cache at once.
+     * <p>
+     * Keys which are known as not found fail the query right away. Keys the
+     * bulk load could not load are queried once more on their own, so the
+     * caller receives the actual error.
+     */
+    protected static <V> CompletableFuture<Map<String, V>> queryAll(
+            Collection<String> keys,
+            AsyncLoadingCache<String, V> cache,
+            CacheLifetime lifetime,
+            NegativeCache notFound,
+            Function<String, CompletableFuture<V>> querySingle
+    ) {
+        Set<String> distinctKeys = new LinkedHashSet<>(keys);
+        for (String key : distinctKeys) {
+            Optional<TypeNotFoundException> knownAsNotFound = notFound.get(key);
+            if (knownAsNotFound.isPresent()) {
+                return CompletableFuture.failedFuture(knownAsNotFound.get());
+            }
+            lifetime.recordLookup(cache, key);
+        }
+        return cache.getAll(distinctKeys).thenCompose(loaded -> {
+            List<String> failed = distinctKeys.stream()
+                    .filter(key -> !loaded.containsKey(key))
+                    .toList();
+            if (failed.isEmpty()) {
+                return CompletableFuture.completedFuture(loaded);
+            }
+            return ITypeRegistry.queryEach(failed, querySingle).thenApply(retried -> {
+                Map<String, V> results = new LinkedHashMap<>();
+                distinctKeys.forEach(key -> results.put(key, loaded.getOrDefault(key, retried.get(key))));
+                return results;
+            });
+        });
     }
 
     @Override
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.resilience;
+
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Protects the application from degraded upstream services (Type API, schema
+ * sources) with one circuit breaker and one bulkhead per upstream.
+ * <p>
+ * The circuit breaker opens if too many of the recent calls failed (IO errors
+ * or 5xx responses) or were slow. While open, calls are rejected immediately
+ * instead of waiting for timeouts. After a while, a few probe calls are
+ * permitted to check if the upstream recovered. The bulkhead limits the
+ * number of concurrent calls to an upstream.
+ * <p>
+ * Rejected calls fail with an {@link ExternalServiceException}. States, calls
+ * and rejections are reported as metrics.
+ */
+public class UpstreamGuards {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UpstreamGuards.class);
+
+    public static final String BULKHEAD_REJECTIONS_METRIC = "pit.typeregistry.upstream.bulkhead.rejected";
+
+    @Nullable
+    private final CircuitBreakerRegistry circuitBreakers;
+    @Nullable
+    private final BulkheadRegistry bulkheads;
+    private final ConcurrentMap<String, ClientHttpRequestInterceptor> interceptors = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates guards according to the given configuration.
+     *
+     * @param props         the configuration. If resilience is disabled there, no
+     *                      calls will be guarded.
+     * @param meterRegistry the registry to export the states, calls and rejections to.
+     */
+    public UpstreamGuards(ApplicationProperties props, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        if (!props.isUpstreamResilienceEnabled()) {
+            this.circuitBreakers = null;
+            this.bulkheads = null;
+            return;
+        }
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(props.getUpstreamSlidingWindowSize())
+                .minimumNumberOfCalls(props.getUpstreamSlidingWindowSize())
+                .failureRateThreshold(props.getUpstreamFailureRateThreshold())
+                .slowCallDurationThreshold(Duration.ofMillis(props.getUpstreamSlowCallMillis()))
+                .slowCallRateThreshold(props.getUpstreamFailureRateThreshold())
+                .waitDurationInOpenState(Duration.ofSeconds(props.getUpstreamOpenStateSeconds()))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+        this.bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(props.getUpstreamMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ofMillis(props.getUpstreamMaxWaitMillis()))
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(this.circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(this.bulkheads).bindTo(meterRegistry);
+    }
+
+    /**
+     * Creates guards which do not protect any calls.
+     *
+     * @return disabled guards.
+     */
+    public static UpstreamGuards disabled() {
+        ApplicationProperties props = new ApplicationProperties();
+        props.setUpstreamResilienceEnabled(false);
+        return new UpstreamGuards(props, new SimpleMeterRegistry());
+    }
+
+    public boolean isEnabled() {
+        return this.circuitBreakers != null;
+    }
+
+    /**
+     * Returns an interceptor which guards all requests of a client to the given
+     * upstream.
+     *
+     * All clients of an upstream share the same interceptor, so its event
+     * consumers and metrics are only registered once.
+     *
+     * @param upstream name of the upstream, used for metrics and errors.
+     * @return an interceptor to add to the client of the upstream.
+     */
+    public ClientHttpRequestInterceptor interceptorFor(String upstream) {
+        if (!this.isEnabled()) {
+            return (request, body, execution) -> execution.execute(request, body);
+        }
+        return this.interceptors.computeIfAbsent(upstream, this::createInterceptor);
+    }
+
+    private ClientHttpRequestInterceptor createInterceptor(String upstream) {
+        CircuitBreaker circuitBreaker = this.circuitBreakers.circuitBreaker(upstream);
+        Bulkhead bulkhead = this.bulkheads.bulkhead(upstream);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> LOG.warn(
+                "Circuit breaker of upstream {} changed: {}",
+                upstream,
+                event.getStateTransition()));
+        Counter bulkheadRejections = Counter.builder(BULKHEAD_REJECTIONS_METRIC)
+                .description("Calls to an upstream rejected because too many calls were running.")
+                .tag("upstream", upstream)
+                .register(this.meterRegistry);
+        bulkhead.getEventPublisher().onCallRejected(event -> bulkheadRejections.increment());
+
+        return (request, body, execution) -> {
+            try {
+                bulkhead.acquirePermission();
+            } catch (BulkheadFullException e) {
+                throw new ExternalServiceException(upstream, "Too many concurrent requests.", e);
+            }
+            try {
+                circuitBreaker.acquirePermission();
+            } catch (CallNotPermittedException e) {
+                bulkhead.onComplete();
+                throw new ExternalServiceException(upstream, "Unavailable, requests are paused.", e);
+            }
+            long start = circuitBreaker.getCurrentTimestamp();
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                long duration = circuitBreaker.getCurrentTimestamp() - start;
+                if (response.getStatusCode().is5xxServerError()) {
+                    circuitBreaker.onError(
+                            duration,
+                            circuitBreaker.getTimestampUnit(),
+                            new ExternalServiceException(upstream, "Status " + response.getStatusCode().value()));
+                } else {
+                    circuitBreaker.onSuccess(duration, circuitBreaker.getTimestampUnit());
+                }
+                return response;
+            } catch (IOException | RuntimeException e) {
+                circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(), e);
+                throw e;
+            } finally {
+                bulkhead.onComplete();
+            }
+        };
+    }
+
+    /**
+     * @return the circuit breakers of all upstreams which were guarded so far.
+     */
+    public Set<CircuitBreaker> circuitBreakers() {
+        return Optional.ofNullable(this.circuitBreakers)
+                .map(registry -> registry.getAllCircuitBreakers())
+                .orElse(Set.of());
+    }
+
+    /**
+     * @param upstream the name of the upstream.
+     * @return the bulkhead of the upstream, if it was guarded so far.
+     */
+    public Optional<Bulkhead> bulkhead(String upstream) {
+        return Optional.ofNullable(this.bulkheads)
+                .flatMap(registry -> registry.find(upstream));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.kit.datamanager.pit.typeregistry.resilience;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Map;
+
+/**
+ * Reports the circuit breaker and bulkhead state of each guarded upstream.
+ * <p>
+ * The status is {@value #DEGRADED_CODE} while a circuit breaker is open, i.e.
+ * while requests to an upstream are rejected. This status is not part of the
+ * default status order, so it does not change the aggregated health of the
+ * application. An unavailable type registry must not fail liveness or
+ * readiness probes, as restarting the service would not help, but would drop
+ * its caches. To let it show in the aggregated health, add it to
+ * {@code management.endpoint.health.status.order}.
+ */
+public class UpstreamHealthIndicator implements HealthIndicator {
+
+    public static final String DEGRADED_CODE = "DEGRADED";
+    public static final Status DEGRADED = new Status(DEGRADED_CODE, "Requests to an upstream are paused.");
+
+    private final UpstreamGuards guards;
+
+    public UpstreamHealthIndicator(UpstreamGuards guards) {
+        this.guards = guards;
+    }
+
+    @Override
+    public Health health() {
+        if (!this.guards.isEnabled()) {
+            return Health.unknown().withDetail("reason", "Upstream resilience is disabled.").build();
+        }
+        Health.Builder health = Health.up();
+        for (CircuitBreaker circuitBreaker : this.guards.circuitBreakers()) {
+            CircuitBreaker.State state = circuitBreaker.getState();
+            if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN) {
+                health.status(DEGRADED);
+            }
+            CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+            health.withDetail(circuitBreaker.getName(), Map.of(
+                    "state", state,
+                    "failureRate", metrics.getFailureRate(),
+                    "slowCallRate", metrics.getSlowCallRate(),
+                    "notPermittedCalls", metrics.getNumberOfNotPermittedCalls(),
+                    "availableConcurrentCalls", this.guards.bulkhead(circuitBreaker.getName())
+                            .map(bulkhead -> bulkhead.getMetrics().getAvailableConcurrentCalls())
+                            .orElse(0)));
+        }
+        return health.build();
+    }
+}
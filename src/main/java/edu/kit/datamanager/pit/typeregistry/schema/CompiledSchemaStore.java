@@ -0,0 +1,115 @@
+package edu.kit.datamanager.pit.typeregistry.schema;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import edu.kit.datamanager.pit.Application;
+import edu.kit.datamanager.pit.typeregistry.cache.CacheSize;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles JSON schemas and shares the compiled schemas between all types
+ * with the same schema.
+ * <p>
+ * Many types in a registry share the same schema (e.g. for dates, URLs or
+ * handles). Compiled schemas are therefore stored by a hash of the normalized
+ * schema document and its specification version, so equal schemas are
+ * compiled and initialized only once. A compiled schema is kept as long as
+ * any cached schema information refers to it.
+ */
+public class CompiledSchemaStore {
+
+    protected static final String CACHE_NAME = "compiled-schemas";
+
+    /**
+     * Writes object properties in a fixed order, so documents which differ
+     * only in the order of their properties are stored under the same key.
+     */
+    private static final ObjectMapper NORMALIZING_MAPPER = Application.jsonObjectMapper()
+            .copy()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private final Map<SpecVersion.VersionFlag, JsonSchemaFactory> factories = new ConcurrentHashMap<>();
+    private final Cache<String, JsonSchema> schemas = Caffeine.newBuilder()
+            .weakValues()
+            .recordStats()
+            .build();
+
+    /**
+     * Registers the hit rate and size of the store at the given registry.
+     *
+     * @param registry the registry to register the metrics at.
+     */
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, this.schemas, CACHE_NAME);
+    }
+
+    /**
+     * Returns the compiled schema for the given schema document, compiling it
+     * if no equal schema has been compiled before.
+     *
+     * @param version        the specification version of the schema.
+     * @param schemaDocument the schema document.
+     * @return the compiled and initialized schema.
+     * @throws IOException if the document is not a usable schema.
+     */
+    public JsonSchema getOrCompile(SpecVersion.VersionFlag version, JsonNode schemaDocument) throws IOException {
+        String key = version.name() + ":" + hash(schemaDocument);
+        try {
+            return this.schemas.get(key, k -> this.compile(version, schemaDocument));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @return the number of distinct compiled schemas currently stored.
+     */
+    public long size() {
+        this.schemas.cleanUp();
+        return this.schemas.estimatedSize();
+    }
+
+    protected JsonSchema compile(SpecVersion.VersionFlag version, JsonNode schemaDocument) {
+        JsonSchema schema = this.factories
+                .computeIfAbsent(version, JsonSchemaFactory::getInstance)
+                .getSchema(schemaDocument);
+        if (schema == null || schema.getSchemaNode().isMissingNode() || schema.getSchemaNode().isTextual()) {
+            throw new UncheckedIOException(new IOException("Could not create valid schema from %s"
+                    .formatted(schemaDocument)));
+        }
+        schema.initializeValidators();
+        // estimate the size once now, instead of when the first cache weighs it
+        CacheSize.ofSchema(schema);
+        return schema;
+    }
+
+    protected static String hash(JsonNode schemaDocument) throws IOException {
+        try {
+            byte[] normalized = NORMALIZING_MAPPER.writeValueAsBytes(
+                    NORMALIZING_MAPPER.treeToValue(schemaDocument, Object.class));
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(normalized));
+        } catch (JsonProcessingException e) {
+            throw new IOException("Could not normalize schema " + schemaDocument, e);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
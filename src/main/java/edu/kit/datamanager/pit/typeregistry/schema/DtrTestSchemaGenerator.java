@@ -2,87 +2,103 @@ package edu.kit.datamanager.pit.typeregistry.schema;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.networknt.schema.JsonSchema;
-import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 import edu.kit.datamanager.pit.Application;
 import edu.kit.datamanager.pit.common.ExternalServiceException;
 import edu.kit.datamanager.pit.common.InvalidConfigException;
 import edu.kit.datamanager.pit.common.TypeNotFoundException;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryResponseStore;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
+import edu.kit.datamanager.pit.typeregistry.http.Validators;
+import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.NotNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
 
 public class DtrTestSchemaGenerator implements SchemaGenerator {
-    private static final Logger LOG = LoggerFactory.getLogger(DtrTestSchemaGenerator.class);
-
     protected static final String ORIGIN = "dtr-test";
     protected final URI baseUrl;
     protected final RestClient http;
-    JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V4);
+    protected final RegistryResponseStore responseStore;
+    protected static final SpecVersion.VersionFlag SPEC_VERSION = SpecVersion.VersionFlag.V4;
+    protected final CompiledSchemaStore compiledSchemas;
+
+    public DtrTestSchemaGenerator(
+            @NotNull ApplicationProperties props,
+            @NotNull RegistryResponseStore responseStore,
+            @NotNull RegistryHttpClients httpClients
+    ) {
+        this(props, responseStore, httpClients, new CompiledSchemaStore());
+    }
 
-    public DtrTestSchemaGenerator(@NotNull ApplicationProperties props) {
+    public DtrTestSchemaGenerator(
+            @NotNull ApplicationProperties props,
+            @NotNull RegistryResponseStore responseStore,
+            @NotNull RegistryHttpClients httpClients,
+            @NotNull CompiledSchemaStore compiledSchemas
+    ) {
+        this.responseStore = responseStore;
+        this.compiledSchemas = compiledSchemas;
         try {
             this.baseUrl = props.getHandleBaseUri().toURI();
         } catch (URISyntaxException e) {
             throw new InvalidConfigException("BaseUrl not configured properly.");
         }
-        HttpClient httpClient = java.net.http.HttpClient.newBuilder()
-                .followRedirects(java.net.http.HttpClient.Redirect.NORMAL)
-                .build();
-        this.http = RestClient.builder()
-                .baseUrl(this.baseUrl.toString())
-                .requestFactory(new JdkClientHttpRequestFactory(httpClient))
-                .requestInterceptor((request, body, execution) -> {
-                    long start = System.currentTimeMillis();
-                    ClientHttpResponse response = execution.execute(request,  body);
-                    long timeSpan = System.currentTimeMillis() - start;
-                    boolean isLongRequest = timeSpan > Application.LONG_HTTP_REQUEST_THRESHOLD;
-                    if (isLongRequest) {
-                        LOG.warn("Long http request to {} ({}ms)", request.getURI(), timeSpan);
-                    }
-                    return response;
-                })
-                .build();
+        this.http = httpClients.create(ORIGIN, this.baseUrl.toString());
     }
 
     @Override
     public SchemaInfo generateSchema(@NotNull String maybeTypePid) {
+        return this.fetchSchema(maybeTypePid, null);
+    }
+
+    @Override
+    public SchemaInfo regenerateSchema(@NotNull String maybeTypePid, @NotNull SchemaInfo previous) {
+        return this.fetchSchema(maybeTypePid, previous);
+    }
+
+    /**
+     * Resolves the type PID and compiles its schema. If a usable previous
+     * schema is given, the request is conditional, and the previous schema is
+     * kept if the record is reported as unchanged.
+     *
+     * @param maybeTypePid the PID of the type.
+     * @param previous     the previous schema of this type, if any.
+     * @return the schema.
+     */
+    protected SchemaInfo fetchSchema(@NotNull String maybeTypePid, @Nullable SchemaInfo previous) {
+        Validators validators = previous != null && previous.schema() != null ? previous.validators() : Validators.NONE;
         return this.http.get().uri(uriBuilder -> uriBuilder.pathSegment(maybeTypePid).build())
+                .headers(validators::applyTo)
                 .exchange((request, response) -> {
                     HttpStatusCode status = response.getStatusCode();
-                    if (status.is2xxSuccessful()) {
-                        JsonSchema schema = null;
+                    if (status.value() == 304 && previous != null) {
+                        this.responseStore.touch(this.storeRegion(), maybeTypePid);
+                        return previous;
+                    } else if (status.is2xxSuccessful()) {
+                        String body;
                         try (InputStream inputStream = response.getBody()) {
-                            JsonNode schemaNode = Application.jsonObjectMapper().readTree(
-                                    Application.jsonObjectMapper()
-                                            .readTree(inputStream)
-                                            .path("validationSchema")
-                                            .asText());
-                            schema = this.schemaFactory.getSchema(schemaNode);
-                            if (schema == null || schema.getSchemaNode().isMissingNode() || schema.getSchemaNode().isTextual()) {
-                                throw new IOException(ORIGIN + "could not create valid schema for %s from %s "
-                                        .formatted(maybeTypePid, schemaNode));
-                            }
-                            schema.initializeValidators();
+                            body = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
                         } catch (IOException e) {
                             return new SchemaInfo(
                                     ORIGIN,
-                                    schema,
-                                    new ExternalServiceException(baseUrl.toString(), "No valid schema found resolving PID " + maybeTypePid, e)
+                                    null,
+                                    new ExternalServiceException(baseUrl.toString(), "Could not read response resolving PID " + maybeTypePid, e)
                             );
                         }
-                        return new SchemaInfo(ORIGIN, schema, null);
+                        Validators received = Validators.of(response.getHeaders());
+                        SchemaInfo schemaInfo = this.schemaFromResponse(maybeTypePid, body).withValidators(received);
+                        if (schemaInfo.error() == null) {
+                            this.responseStore.put(this.storeRegion(), maybeTypePid, body, received);
+                        }
+                        return schemaInfo;
                     } else if (status.value() == 404) {
                         return new SchemaInfo(
                                 ORIGIN,
@@ -100,4 +116,29 @@ public class DtrTestSchemaGenerator implements SchemaGenerator {
                     }
                 });
     }
+
+    @Override
+    public SchemaInfo schemaFromResponse(@NotNull String maybeTypePid, @NotNull String responseBody) {
+        JsonSchema schema = null;
+        try {
+            JsonNode schemaNode = Application.jsonObjectMapper().readTree(
+                    Application.jsonObjectMapper()
+                            .readTree(responseBody)
+                            .path("validationSchema")
+                            .asText());
+            schema = this.compiledSchemas.getOrCompile(SPEC_VERSION, schemaNode);
+        } catch (IOException e) {
+            return new SchemaInfo(
+                    ORIGIN,
+                    schema,
+                    new ExternalServiceException(baseUrl.toString(), "No valid schema found resolving PID " + maybeTypePid, e)
+            );
+        }
+        return new SchemaInfo(ORIGIN, schema, null);
+    }
+
+    @Override
+    public String origin() {
+        return ORIGIN;
+    }
 }
@@ -9,4 +9,40 @@ public interface SchemaGenerator {
      * @return the generated schema.
      */
     SchemaInfo generateSchema(String maybeTypePid) throws ExternalServiceException;
+
+    /**
+     * Generates a schema for the given type again, e.g. to refresh a cache.
+     * <p>
+     * Generators fetching schemas over HTTP should send the validators of the
+     * previous response, and return the previous schema if the source reports
+     * it as unchanged. The default implementation generates the schema anew.
+     * @param maybeTypePid the PID for the type to generate a schema for.
+     * @param previous the schema this generator returned before.
+     * @return the generated schema, or the previous one if it did not change.
+     */
+    default SchemaInfo regenerateSchema(String maybeTypePid, SchemaInfo previous) throws ExternalServiceException {
+        return this.generateSchema(maybeTypePid);
+    }
+
+    /**
+     * Generates a schema from a response this generator received earlier,
+     * without contacting any external service. Used to restore schemas from
+     * a cache snapshot.
+     * @param maybeTypePid the PID for the type to generate a schema for.
+     * @param responseBody the raw response body received for this type.
+     * @return the generated schema.
+     */
+    SchemaInfo schemaFromResponse(String maybeTypePid, String responseBody);
+
+    /**
+     * @return the origin of the generated schemas, as stated in {@link SchemaInfo#origin()}.
+     */
+    String origin();
+
+    /**
+     * @return the name of the region in which raw responses of this generator are stored.
+     */
+    default String storeRegion() {
+        return "schemas:" + this.origin();
+    }
 }
@@ -1,11 +1,29 @@
 package edu.kit.datamanager.pit.typeregistry.schema;
 
 import com.networknt.schema.JsonSchema;
+import edu.kit.datamanager.pit.typeregistry.http.Validators;
 import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.NotNull;
 
+/**
+ * @param origin     the source of the schema.
+ * @param schema     the compiled schema, if generation succeeded.
+ * @param error      the reason why generation failed, if it failed.
+ * @param validators the validators of the response the schema was compiled
+ *                   from. Used to check whether the schema changed, without
+ *                   downloading and compiling it again.
+ */
 public record SchemaInfo(
         @NotNull String origin,
         @Nullable JsonSchema schema,
-        @Nullable Throwable error
-) {}
+        @Nullable Throwable error,
+        @NotNull Validators validators
+) {
+    public SchemaInfo(String origin, JsonSchema schema, Throwable error) {
+        this(origin, schema, error, Validators.NONE);
+    }
+
+    public SchemaInfo withValidators(Validators validators) {
+        return new SchemaInfo(this.origin, this.schema, this.error, validators);
+    }
+}
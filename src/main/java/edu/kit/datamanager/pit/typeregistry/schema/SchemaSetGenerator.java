@@ -1,37 +1,191 @@
 package edu.kit.datamanager.pit.typeregistry.schema;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import edu.kit.datamanager.pit.Application;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.common.ManagedExecutors;
+import edu.kit.datamanager.pit.common.TypeNotFoundException;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.typeregistry.cache.CacheLifetime;
+import edu.kit.datamanager.pit.typeregistry.cache.CacheSize;
+import edu.kit.datamanager.pit.typeregistry.cache.NegativeCache;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryCaches;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryResponseStore;
+import edu.kit.datamanager.pit.typeregistry.cache.StoredResponse;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class SchemaSetGenerator {
     private static final Logger LOGGER = LoggerFactory.getLogger(SchemaSetGenerator.class);
+    protected static final String CACHE_NAME = "schemas";
     protected final Set<SchemaGenerator> GENERATORS;
     protected final AsyncLoadingCache<String, Set<SchemaInfo>> CACHE;
+    protected final RegistryResponseStore responseStore;
+    protected final CacheLifetime lifetime;
+    protected final Duration sourceTimeout;
+    protected final boolean firstUsableWins;
+    protected final NegativeCache notFound;
+    protected final Executor executor;
 
     public SchemaSetGenerator(ApplicationProperties props) {
-        GENERATORS = Set.of(
-                new TypeApiSchemaGenerator(props),
-                new DtrTestSchemaGenerator(props)
-        );
-
-        CACHE = Caffeine.newBuilder()
-                .maximumSize(props.getCacheMaxEntries())
-                .executor(Application.newExecutor())
-                .refreshAfterWrite(Duration.ofMinutes(props.getCacheExpireAfterWriteLifetime() / 2))
-                .expireAfterWrite(props.getCacheExpireAfterWriteLifetime(), TimeUnit.MINUTES)
-                .buildAsync(attributePid -> GENERATORS.stream()
-                        .map(schemaGenerator -> schemaGenerator.generateSchema(attributePid))
-                        .peek(schemaInfo -> {
+        this(props, RegistryResponseStore.disabled(), RegistryHttpClients.withDefaults());
+    }
+
+    public SchemaSetGenerator(ApplicationProperties props, RegistryResponseStore responseStore, RegistryHttpClients httpClients) {
+        this(props, responseStore, httpClients, ManagedExecutors.standalone(), RegistryCaches.standalone());
+    }
+
+    public SchemaSetGenerator(
+            ApplicationProperties props,
+            RegistryResponseStore responseStore,
+            RegistryHttpClients httpClients,
+            ManagedExecutors executors,
+            RegistryCaches caches
+    ) {
+        this(props, responseStore, httpClients, executors, caches, new CompiledSchemaStore());
+    }
+
+    /**
+     * @param compiledSchemas the store of compiled schemas, shared by all schema
+     *                        sources, so types with equal schemas share one
+     *                        compiled schema.
+     */
+    public SchemaSetGenerator(
+            ApplicationProperties props,
+            RegistryResponseStore responseStore,
+            RegistryHttpClients httpClients,
+            ManagedExecutors executors,
+            RegistryCaches caches,
+            CompiledSchemaStore compiledSchemas
+    ) {
+        this(props, responseStore, Set.of(
+                new TypeApiSchemaGenerator(props, responseStore, httpClients, compiledSchemas),
+                new DtrTestSchemaGenerator(props, responseStore, httpClients, compiledSchemas)
+        ), executors, caches);
+    }
+
+    SchemaSetGenerator(ApplicationProperties props, RegistryResponseStore responseStore, Set<SchemaGenerator> generators) {
+        this(props, responseStore, generators, ManagedExecutors.standalone(), RegistryCaches.standalone());
+    }
+
+    SchemaSetGenerator(
+            ApplicationProperties props,
+            RegistryResponseStore responseStore,
+            Set<SchemaGenerator> generators,
+            ManagedExecutors executors,
+            RegistryCaches caches
+    ) {
+        // schema sources are queried over the network, so they run on the I/O executor
+        this.executor = executors.io();
+        this.responseStore = responseStore;
+        this.sourceTimeout = Duration.ofMillis(props.getSchemaSourceTimeoutMillis());
+        this.firstUsableWins = props.isSchemaFirstUsableWins();
+        GENERATORS = generators;
+
+        this.lifetime = new CacheLifetime(
+                CACHE_NAME,
+                props.getCacheExpireAfterWriteLifetime(),
+                props.getCacheMaxStaleness(),
+                caches.meterRegistry());
+        this.notFound = new NegativeCache(
+                CACHE_NAME,
+                props.getCacheNotFoundLifetimeSeconds(),
+                props.getCacheNotFoundMaxEntries(),
+                caches);
+        CACHE = caches.register(CACHE_NAME, CacheSize
+                .newBuilder(props.getCacheMaxEntries(), props.getCacheSchemasMaxBytes(), SchemaSetGenerator::retainedBytes)
+                .recordStats()
+                .executor(executor)
+                .refreshAfterWrite(lifetime.refreshAfterWrite())
+                .expireAfter(lifetime.expiry(this::fetchedAt))
+                .removalListener((String attributePid, Set<SchemaInfo> value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        GENERATORS.forEach(generator -> responseStore.remove(generator.storeRegion(), attributePid));
+                    }
+                })
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<Set<SchemaInfo>> asyncLoad(String attributePid, Executor executor) {
+                        return firstUsableWins ? generateFirstUsable(attributePid) : generateAll(attributePid);
+                    }
+
+                    @Override
+                    public CompletableFuture<Set<SchemaInfo>> asyncReload(
+                            String attributePid,
+                            Set<SchemaInfo> oldValue,
+                            Executor executor
+                    ) {
+                        return regenerateAll(attributePid, oldValue).thenApply(newValue -> lifetime.servesStale()
+                                ? keepUsableSchemas(oldValue, newValue)
+                                : newValue);
+                    }
+                }), lifetime);
+
+        this.restoreFromStore();
+    }
+
+    /**
+     * @param schemas the schemas of an attribute.
+     * @return the estimated bytes the schemas retain, including their compiled validators.
+     */
+    public static long retainedBytes(Collection<SchemaInfo> schemas) {
+        return schemas.stream()
+                .mapToLong(schemaInfo -> CacheSize.ofText(schemaInfo.origin()) + CacheSize.ofSchema(schemaInfo.schema()))
+                .sum();
+    }
+
+    /**
+     * Starts all generators concurrently. Each of them has to deliver within the source timeout, otherwise its
+     * result is replaced by an error.
+     *
+     * @param attributePid the PID of the attribute to generate schemas for.
+     * @return one future per generator. They never complete exceptionally.
+     */
+    protected List<CompletableFuture<SchemaInfo>> generateEach(String attributePid) {
+        return generateEach(attributePid, Set.of());
+    }
+
+    /**
+     * Like {@link #generateEach(String)}, but passes the previous schema of each generator, if any, so unchanged
+     * schemas are neither downloaded nor compiled again.
+     *
+     * @param attributePid the PID of the attribute to generate schemas for.
+     * @param previous     the schemas generated before.
+     * @return one future per generator. They never complete exceptionally.
+     */
+    protected List<CompletableFuture<SchemaInfo>> generateEach(String attributePid, Set<SchemaInfo> previous) {
+        Map<String, SchemaInfo> previousByOrigin = previous.stream()
+                .collect(Collectors.toMap(SchemaInfo::origin, schemaInfo -> schemaInfo, (a, b) -> a));
+        return GENERATORS.stream()
+                .map(schemaGenerator -> CompletableFuture
+                        .supplyAsync(() -> generateSafely(
+                                schemaGenerator,
+                                attributePid,
+                                previousByOrigin.get(schemaGenerator.origin())), executor)
+                        .orTimeout(sourceTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .exceptionally(e -> new SchemaInfo(
+                                schemaGenerator.origin(),
+                                null,
+                                new ExternalServiceException(
+                                        schemaGenerator.origin(),
+                                        "No schema for %s within %d ms.".formatted(attributePid, sourceTimeout.toMillis()),
+                                        e)))
+                        .whenComplete((schemaInfo, e) -> {
                             if (schemaInfo.error() != null) {
                                 LOGGER.warn(
                                         "Error when retrieving schema from {} for attribute ({}): {}",
@@ -39,10 +193,142 @@ public class SchemaSetGenerator {
                                         attributePid,
                                         schemaInfo.error().getMessage());
                             }
-                        }
-                        )
-                        .collect(Collectors.toSet())
-                );
+                        }))
+                .toList();
+    }
+
+    protected static SchemaInfo generateSafely(SchemaGenerator schemaGenerator, String attributePid, SchemaInfo previous) {
+        try {
+            return previous == null
+                    ? schemaGenerator.generateSchema(attributePid)
+                    : schemaGenerator.regenerateSchema(attributePid, previous);
+        } catch (RuntimeException e) {
+            // e.g. connection errors or requests rejected by the upstream guards
+            return new SchemaInfo(schemaGenerator.origin(), null, e);
+        }
+    }
+
+    protected CompletableFuture<Set<SchemaInfo>> generateAll(String attributePid) {
+        return collectAll(generateEach(attributePid));
+    }
+
+    protected CompletableFuture<Set<SchemaInfo>> regenerateAll(String attributePid, Set<SchemaInfo> previous) {
+        return collectAll(generateEach(attributePid, previous));
+    }
+
+    protected static CompletableFuture<Set<SchemaInfo>> collectAll(List<CompletableFuture<SchemaInfo>> sources) {
+        return CompletableFuture.allOf(sources.toArray(CompletableFuture[]::new))
+                .thenApply(done -> sources.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Completes as soon as one generator delivered a usable schema, with the schemas of all generators that are done
+     * at this time. When all generators are done, the cache entry is replaced by the complete set of schemas.
+     * If no generator delivers a usable schema, this completes with all results, just like
+     * {@link #generateAll(String)}.
+     *
+     * @param attributePid the PID of the attribute to generate schemas for.
+     * @return the schemas available when the first usable one was generated.
+     */
+    protected CompletableFuture<Set<SchemaInfo>> generateFirstUsable(String attributePid) {
+        List<CompletableFuture<SchemaInfo>> sources = generateEach(attributePid);
+        CompletableFuture<Set<SchemaInfo>> firstUsable = new CompletableFuture<>();
+        sources.forEach(source -> source.thenAccept(schemaInfo -> {
+            if (isUsable(schemaInfo)) {
+                firstUsable.complete(sources.stream()
+                        .filter(CompletableFuture::isDone)
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toSet()));
+            }
+        }));
+        collectAll(sources).thenAccept(allSchemas -> {
+            if (!firstUsable.complete(allSchemas)) {
+                // only replace the entry if it was not refreshed or removed meanwhile
+                CACHE.asMap().replace(attributePid, firstUsable, CompletableFuture.completedFuture(allSchemas));
+            }
+        });
+        return firstUsable;
+    }
+
+    protected static boolean isUsable(SchemaInfo schemaInfo) {
+        return schemaInfo.error() == null && schemaInfo.schema() != null;
+    }
+
+    /**
+     * Replaces failed schemas of a refresh with the usable schema of the same origin from before the refresh,
+     * so an unavailable source does not invalidate a stale but usable schema.
+     *
+     * @param oldValue the schemas before the refresh.
+     * @param newValue the schemas generated by the refresh.
+     * @return the refreshed schemas, with failures replaced by previous schemas where possible.
+     */
+    protected static Set<SchemaInfo> keepUsableSchemas(Set<SchemaInfo> oldValue, Set<SchemaInfo> newValue) {
+        Map<String, SchemaInfo> usableBefore = oldValue.stream()
+                .filter(SchemaSetGenerator::isUsable)
+                .collect(Collectors.toMap(SchemaInfo::origin, schemaInfo -> schemaInfo, (a, b) -> a));
+        return newValue.stream()
+                .map(schemaInfo -> schemaInfo.error() != null
+                        ? usableBefore.getOrDefault(schemaInfo.origin(), schemaInfo)
+                        : schemaInfo)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * A source which fails keeps its old response, so the freshest stored response
+     * of all sources counts for the schema set of an attribute.
+     *
+     * @param attributePid the PID of the attribute.
+     * @return the time the freshest stored response was fetched at, if any.
+     */
+    protected Optional<Instant> fetchedAt(String attributePid) {
+        return GENERATORS.stream()
+                .map(generator -> responseStore.fetchedAt(generator.storeRegion(), attributePid))
+                .flatMap(Optional::stream)
+                .max(Comparator.naturalOrder());
+    }
+
+    /**
+     * Fills the cache with schemas rebuilt from the raw responses in the response store.
+     * <p>
+     * A schema set is restored if at least one generator has a stored response for the attribute.
+     * Generators without a stored response did not deliver a usable schema when the snapshot was taken,
+     * and will be represented by an error, just as they were before. Expired schema sets are dropped.
+     */
+    protected void restoreFromStore() {
+        Set<String> attributePids = GENERATORS.stream()
+                .map(generator -> responseStore.region(generator.storeRegion()).keySet())
+                .flatMap(Set::stream)
+                .collect(Collectors.toSet());
+        for (String attributePid : attributePids) {
+            Map<SchemaGenerator, Optional<StoredResponse>> responses = GENERATORS.stream()
+                    .collect(Collectors.toMap(
+                            generator -> generator,
+                            generator -> responseStore.get(generator.storeRegion(), attributePid)));
+            boolean restored = RegistryResponseStore.restore(
+                    CACHE,
+                    attributePid,
+                    this.fetchedAt(attributePid).orElse(Instant.EPOCH),
+                    () -> responses.entrySet().stream()
+                            .map(entry -> entry.getValue()
+                                    .map(response -> entry.getKey()
+                                            .schemaFromResponse(attributePid, response.body())
+                                            .withValidators(response.validatorsOrNone()))
+                                    .orElseGet(() -> new SchemaInfo(
+                                            entry.getKey().origin(),
+                                            null,
+                                            new ExternalServiceException(entry.getKey().origin(), "No schema restored for " + attributePid))))
+                            .collect(Collectors.toSet()),
+                    executor,
+                    lifetime);
+            if (!restored) {
+                GENERATORS.forEach(generator -> responseStore.remove(generator.storeRegion(), attributePid));
+            }
+        }
+        if (!attributePids.isEmpty()) {
+            LOGGER.info("Restored schemas of {} attributes from snapshot.", attributePids.size());
+        }
     }
 
     /**
@@ -55,6 +341,38 @@ public class SchemaSetGenerator {
      * @return a set of information about the generated schemas, including the schemas themselves, if generation succeeded.
      */
     public CompletableFuture<Set<SchemaInfo>> generateFor(final String attributePid) {
-        return this.CACHE.get(attributePid);
+        Optional<TypeNotFoundException> knownAsNotFound = this.notFound.get(attributePid);
+        if (knownAsNotFound.isPresent()) {
+            return CompletableFuture.completedFuture(this.notFoundEverywhere(knownAsNotFound.get()));
+        }
+        this.lifetime.recordLookup(this.CACHE, attributePid);
+        return this.CACHE.get(attributePid).whenComplete((schemas, e) -> {
+            Optional<TypeNotFoundException> unknownEverywhere = unknownEverywhere(schemas);
+            if (unknownEverywhere.isPresent() && this.notFound.isEnabled()) {
+                // keep it for the short not-found lifetime only, instead of the lifetime of the cache
+                this.notFound.put(attributePid, unknownEverywhere.get());
+                this.CACHE.synchronous().invalidate(attributePid);
+            }
+        });
+    }
+
+    /**
+     * @param schemas the schemas generated for an attribute. May be null.
+     * @return the not-found error, if all sources reported the attribute as unknown.
+     */
+    protected static Optional<TypeNotFoundException> unknownEverywhere(Set<SchemaInfo> schemas) {
+        if (schemas == null || schemas.isEmpty()) {
+            return Optional.empty();
+        }
+        boolean allNotFound = schemas.stream().allMatch(schemaInfo -> schemaInfo.error() instanceof TypeNotFoundException);
+        return allNotFound
+                ? Optional.of((TypeNotFoundException) schemas.iterator().next().error())
+                : Optional.empty();
+    }
+
+    protected Set<SchemaInfo> notFoundEverywhere(TypeNotFoundException e) {
+        return GENERATORS.stream()
+                .map(generator -> new SchemaInfo(generator.origin(), null, e))
+                .collect(Collectors.toSet());
     }
 }
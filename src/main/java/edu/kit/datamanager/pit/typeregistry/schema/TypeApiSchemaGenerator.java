@@ -2,33 +2,51 @@ package edu.kit.datamanager.pit.typeregistry.schema;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.networknt.schema.JsonSchema;
-import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.SpecVersion;
 import edu.kit.datamanager.pit.Application;
 import edu.kit.datamanager.pit.common.ExternalServiceException;
 import edu.kit.datamanager.pit.common.InvalidConfigException;
 import edu.kit.datamanager.pit.common.TypeNotFoundException;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryResponseStore;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
+import edu.kit.datamanager.pit.typeregistry.http.Validators;
+import jakarta.annotation.Nullable;
 import jakarta.validation.constraints.NotNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.RestClient;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 public class TypeApiSchemaGenerator implements SchemaGenerator {
-    private static final Logger LOG = LoggerFactory.getLogger(TypeApiSchemaGenerator.class);
+    protected static final String UPSTREAM = "type-api-schemas";
 
     protected final URL baseUrl;
     protected final RestClient http;
-    JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
+    protected final RegistryResponseStore responseStore;
+    protected static final SpecVersion.VersionFlag SPEC_VERSION = SpecVersion.VersionFlag.V202012;
+    protected final CompiledSchemaStore compiledSchemas;
 
-    public TypeApiSchemaGenerator(@NotNull ApplicationProperties props) {
+    public TypeApiSchemaGenerator(
+            @NotNull ApplicationProperties props,
+            @NotNull RegistryResponseStore responseStore,
+            @NotNull RegistryHttpClients httpClients
+    ) {
+        this(props, responseStore, httpClients, new CompiledSchemaStore());
+    }
+
+    public TypeApiSchemaGenerator(
+            @NotNull ApplicationProperties props,
+            @NotNull RegistryResponseStore responseStore,
+            @NotNull RegistryHttpClients httpClients,
+            @NotNull CompiledSchemaStore compiledSchemas
+    ) {
+        this.responseStore = responseStore;
+        this.compiledSchemas = compiledSchemas;
         this.baseUrl = props.getTypeRegistryUri();
         String baseUri;
         try {
@@ -36,59 +54,68 @@ public class TypeApiSchemaGenerator implements SchemaGenerator {
         } catch (URISyntaxException e) {
             throw new InvalidConfigException("Type-Api base url not valid: " + baseUrl, e);
         }
-        this.http = RestClient.builder()
-                .baseUrl(baseUri)
-                .requestInterceptor((request, body, execution) -> {
-                    long start = System.currentTimeMillis();
-                    ClientHttpResponse response = execution.execute(request,  body);
-                    long timeSpan = System.currentTimeMillis() - start;
-                    boolean isLongRequest = timeSpan > Application.LONG_HTTP_REQUEST_THRESHOLD;
-                    if (isLongRequest) {
-                        LOG.warn("Long http request to {} ({}ms)", request.getURI(), timeSpan);
-                    }
-                    return response;
-                })
-                .build();
+        this.http = httpClients.create(UPSTREAM, baseUri);
     }
 
     @Override
     public SchemaInfo generateSchema(@NotNull String maybeTypePid) {
+        return this.fetchSchema(maybeTypePid, null);
+    }
+
+    @Override
+    public SchemaInfo regenerateSchema(@NotNull String maybeTypePid, @NotNull SchemaInfo previous) {
+        return this.fetchSchema(maybeTypePid, previous);
+    }
+
+    /**
+     * Fetches and compiles a schema. If a usable previous schema is given, the
+     * request is conditional, and the previous schema is kept if the Type API
+     * reports it as unchanged.
+     *
+     * @param maybeTypePid the PID of the type.
+     * @param previous     the previous schema of this type, if any.
+     * @return the schema.
+     */
+    protected SchemaInfo fetchSchema(@NotNull String maybeTypePid, @Nullable SchemaInfo previous) {
+        Validators validators = previous != null && previous.schema() != null ? previous.validators() : Validators.NONE;
         return http.get()
                 .uri(uriBuilder -> uriBuilder
                         .pathSegment("schema")
                         .path(maybeTypePid)
                         .build())
+                .headers(validators::applyTo)
                 .exchange((request, response) -> {
                     HttpStatusCode statusCode = response.getStatusCode();
-                    if (statusCode.is2xxSuccessful()) {
-                        JsonSchema schema = null;
+                    if (statusCode.value() == 304 && previous != null) {
+                        this.responseStore.touch(this.storeRegion(), maybeTypePid);
+                        return previous;
+                    } else if (statusCode.is2xxSuccessful()) {
+                        String body;
                         try (InputStream inputStream = response.getBody()) {
-                            JsonNode schemaDocument = Application.jsonObjectMapper()
-                                    .readTree(inputStream);
-                            schema = schemaFactory.getSchema(schemaDocument);
-                            if (schema == null || schema.getSchemaNode().isMissingNode() || schema.getSchemaNode().isTextual()) {
-                                throw new IOException("Could not create valid schema for %s from %s "
-                                        .formatted(maybeTypePid, schemaDocument));
-                            }
-                            schema.initializeValidators();
+                            body = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
                         } catch (IOException e) {
                             return new SchemaInfo(
-                                    this.baseUrl.toString(),
-                                    schema,
+                                    this.origin(),
+                                    null,
                                     new ExternalServiceException(
                                             baseUrl.toString(),
-                                            "Response (" + maybeTypePid + ") is not a valid schema.")
+                                            "Response (" + maybeTypePid + ") could not be read.", e)
                             );
                         }
-                        return new SchemaInfo(this.baseUrl.toString(), schema, null);
+                        Validators received = Validators.of(response.getHeaders());
+                        SchemaInfo schemaInfo = this.schemaFromResponse(maybeTypePid, body).withValidators(received);
+                        if (schemaInfo.error() == null) {
+                            this.responseStore.put(this.storeRegion(), maybeTypePid, body, received);
+                        }
+                        return schemaInfo;
                     } else if (statusCode.value() == 404) {
                         return new SchemaInfo(
-                                this.baseUrl.toString(),
+                                this.origin(),
                                 null,
                                 new TypeNotFoundException(maybeTypePid));
                     } else {
                         return new SchemaInfo(
-                                this.baseUrl.toString(),
+                                this.origin(),
                                 null,
                                 new ExternalServiceException(
                                         this.baseUrl.toString(),
@@ -96,4 +123,28 @@ public class TypeApiSchemaGenerator implements SchemaGenerator {
                     }
                 });
     }
+
+    @Override
+    public SchemaInfo schemaFromResponse(@NotNull String maybeTypePid, @NotNull String responseBody) {
+        JsonSchema schema = null;
+        try {
+            JsonNode schemaDocument = Application.jsonObjectMapper()
+                    .readTree(responseBody);
+            schema = this.compiledSchemas.getOrCompile(SPEC_VERSION, schemaDocument);
+        } catch (IOException e) {
+            return new SchemaInfo(
+                    this.origin(),
+                    schema,
+                    new ExternalServiceException(
+                            baseUrl.toString(),
+                            "Response (" + maybeTypePid + ") is not a valid schema.")
+            );
+        }
+        return new SchemaInfo(this.origin(), schema, null);
+    }
+
+    @Override
+    public String origin() {
+        return this.baseUrl.toString();
+    }
 }
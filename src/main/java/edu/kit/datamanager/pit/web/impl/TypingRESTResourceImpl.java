@@ -22,12 +22,14 @@ import edu.kit.datamanager.pit.common.*;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
 import edu.kit.datamanager.pit.configuration.PidGenerationProperties;
 import edu.kit.datamanager.pit.domain.PIDRecord;
+import edu.kit.datamanager.pit.domain.PIDRecordEntry;
 import edu.kit.datamanager.pit.elasticsearch.PidRecordElasticRepository;
 import edu.kit.datamanager.pit.elasticsearch.PidRecordElasticWrapper;
 import edu.kit.datamanager.pit.pidgeneration.PidSuffix;
-import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixReservoir;
 import edu.kit.datamanager.pit.pidlog.KnownPid;
 import edu.kit.datamanager.pit.pidlog.KnownPidsDao;
+import edu.kit.datamanager.pit.pidsystem.RegistrationResult;
 import edu.kit.datamanager.pit.pitservice.ITypingService;
 import edu.kit.datamanager.pit.resolver.Resolver;
 import edu.kit.datamanager.pit.web.BatchRecordResponse;
@@ -43,7 +45,6 @@ import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.servlet.http.HttpServletResponse;
-import org.apache.commons.lang3.stream.Streams;
 import org.apache.http.client.cache.HeaderConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,7 +63,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.function.Consumer;
 
 @RestController
 @Observed
@@ -76,10 +77,10 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
     private final IMessagingService messagingService;
     private final KnownPidsDao localPidStorage;
     private final Optional<PidRecordElasticRepository> elastic;
-    private final PidSuffixGenerator suffixGenerator;
+    private final PidSuffixReservoir suffixReservoir;
     private final PidGenerationProperties pidGenerationProperties;
 
-    public TypingRESTResourceImpl(ITypingService typingService, Resolver resolver, ApplicationProperties applicationProps, IMessagingService messagingService, KnownPidsDao localPidStorage, Optional<PidRecordElasticRepository> elastic, PidSuffixGenerator suffixGenerator, PidGenerationProperties pidGenerationProperties) {
+    public TypingRESTResourceImpl(ITypingService typingService, Resolver resolver, ApplicationProperties applicationProps, IMessagingService messagingService, KnownPidsDao localPidStorage, Optional<PidRecordElasticRepository> elastic, PidSuffixReservoir suffixReservoir, PidGenerationProperties pidGenerationProperties) {
         super();
         this.typingService = typingService;
         this.resolver = resolver;
@@ -87,7 +88,7 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
         this.messagingService = messagingService;
         this.localPidStorage = localPidStorage;
         this.elastic = elastic;
-        this.suffixGenerator = suffixGenerator;
+        this.suffixReservoir = suffixReservoir;
         this.pidGenerationProperties = pidGenerationProperties;
     }
 
@@ -119,11 +120,12 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
         String prefix = this.typingService.getPrefix().orElseThrow(() -> new IOException("No prefix configured."));
 
         // Generate a map between temporary (user-defined) PIDs and final PIDs (generated)
-        Map<String, String> pidMappings = generatePIDMapping(rec, dryrun);
+        Map<PIDRecord, String> derivedRecords = new IdentityHashMap<>();
+        Map<String, String> pidMappings = generatePIDMapping(rec, dryrun, derivedRecords);
         Instant mappingTime = Instant.now();
 
         // Apply the mappings to the records and validate them
-        List<PIDRecord> validatedRecords = applyMappingsToRecordsAndValidate(rec, pidMappings, prefix);
+        List<PIDRecord> validatedRecords = applyMappingsToRecordsAndValidate(rec, pidMappings, prefix, derivedRecords);
         Instant validationTime = Instant.now();
 
         if (dryrun) {
@@ -137,13 +139,79 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
 
         List<PIDRecord> failedRecords = new ArrayList<>();
         List<PIDRecord> successfulRecords = new ArrayList<>();
-        // register the records
-        validatedRecords.forEach(pidRecord -> {
-            try {
-                // register the PID
-                String pid = this.typingService.registerPid(pidRecord);
-                pidRecord.setPid(pid);
+        // records which were registered by this request, and need to be deleted on failure
+        List<PIDRecord> registeredRecords = new ArrayList<>();
+        List<PIDRecord> toRegister = new ArrayList<>();
+        // records which were registered before, by this or an earlier request
+        Set<PIDRecord> reusedRecords = Collections.newSetFromMap(new IdentityHashMap<>());
+        // records with the same content as an earlier record of this request, which share its PID
+        Map<PIDRecord, PIDRecord> duplicateRecords = new IdentityHashMap<>();
+        Map<String, PIDRecord> derivedPids = new HashMap<>();
+        for (PIDRecord pidRecord : validatedRecords) {
+            if (derivedRecords.containsKey(pidRecord)) {
+                PIDRecord original = derivedPids.putIfAbsent(pidRecord.getPid(), pidRecord);
+                if (original != null) {
+                    LOG.debug("Record has the same content as another record of this request: {}", pidRecord);
+                    duplicateRecords.put(pidRecord, original);
+                }
+            }
+        }
+        // records whose PID is derived from their content may be registered already
+        boolean derivedPidsChecked = true;
+        try {
+            reusedRecords.addAll(findRegisteredDerivedPids(derivedPids.values()));
+            LOG.debug("{} records with the same content were registered already.", reusedRecords.size());
+        } catch (Exception e) {
+            LOG.error("Could not check PIDs of {} records. Error: {}", derivedPids.size(), e.getMessage());
+            failedRecords.addAll(derivedPids.values());
+            derivedPidsChecked = false;
+        }
+        for (PIDRecord pidRecord : validatedRecords) {
+            boolean unchecked = !derivedPidsChecked && derivedRecords.containsKey(pidRecord);
+            if (!unchecked && !duplicateRecords.containsKey(pidRecord) && !reusedRecords.contains(pidRecord)) {
+                toRegister.add(pidRecord);
+            }
+        }
+
+        // register the PIDs. The PID system may send them concurrently.
+        Map<PIDRecord, RegistrationResult> results = new IdentityHashMap<>();
+        try {
+            this.typingService.registerPids(toRegister)
+                    .forEach(result -> results.put(result.pidRecord(), result));
+        } catch (Exception e) {
+            LOG.error("Could not register PIDs for {} records. Error: {}", toRegister.size(), e.getMessage());
+            failedRecords.addAll(toRegister);
+        }
 
+        for (PIDRecord pidRecord : validatedRecords) {
+            if (reusedRecords.contains(pidRecord)) {
+                successfulRecords.add(pidRecord);
+                continue;
+            }
+            PIDRecord original = duplicateRecords.get(pidRecord);
+            if (original != null) {
+                // the original record was handled before, as it comes first
+                if (successfulRecords.contains(original)) {
+                    pidRecord.setPid(original.getPid());
+                    successfulRecords.add(pidRecord);
+                } else {
+                    failedRecords.add(pidRecord);
+                }
+                continue;
+            }
+            RegistrationResult result = results.get(pidRecord);
+            if (result == null) {
+                continue; // failed already
+            }
+            if (!result.isSuccessful()) {
+                LOG.error("Could not register PID for record {}. Error: {}", pidRecord, result.error().getMessage());
+                failedRecords.add(pidRecord);
+                continue;
+            }
+            String pid = result.pid();
+            pidRecord.setPid(pid);
+            registeredRecords.add(pidRecord);
+            try {
                 // store pid locally in accordance with the storage strategy
                 if (applicationProps.getStorageStrategy().storesModified()) {
                     storeLocally(pid, true);
@@ -169,7 +237,7 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
                 LOG.error("Could not register PID for record {}. Error: {}", pidRecord, e.getMessage());
                 failedRecords.add(pidRecord);
             }
-        });
+        }
 
         Instant endTime = Instant.now();
 
@@ -181,7 +249,7 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
 
         if (!failedRecords.isEmpty()) {
             List<String> rollbackFailures = new ArrayList<>();
-            for (PIDRecord successfulRecord : successfulRecords) { // rollback the successful records
+            for (PIDRecord successfulRecord : registeredRecords) { // rollback the records registered by this request
                 try {
                     LOG.debug("Rolling back PID creation for record with PID {}.", successfulRecord.getPid());
                     this.typingService.deletePid(successfulRecord.getPid());
@@ -206,8 +274,14 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
     /**
      * This method generates a mapping between user-provided "fantasy" PIDs and real PIDs.
      *
-     * @param rec    the list of records produced by the user
-     * @param dryrun whether the operation is a dryrun or not
+     * If PIDs are derived from the content of the records, the PIDs can only be
+     * derived once the references to other records of the request are resolved.
+     * Such records are only collected here, and mapped to null until their PID
+     * is derived in {@link #applyMappingsToRecordsAndValidate}.
+     *
+     * @param rec            the list of records produced by the user
+     * @param dryrun         whether the operation is a dryrun or not
+     * @param derivedRecords collects the records whose PID is derived from their content, with their user-provided PIDs
      * @return a map between the user-provided PIDs (key) and the real PIDs (values)
      * @throws RecordValidationException if the same internal PID is used for multiple records
      * @throws ExternalServiceException  if the PID generation fails
@@ -215,7 +289,7 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
     @WithSpan
     @Timed
     @Counted
-    private Map<String, String> generatePIDMapping(@SpanAttribute List<PIDRecord> rec, @SpanAttribute boolean dryrun) throws RecordValidationException, ExternalServiceException {
+    private Map<String, String> generatePIDMapping(@SpanAttribute List<PIDRecord> rec, @SpanAttribute boolean dryrun, Map<PIDRecord, String> derivedRecords) throws RecordValidationException, ExternalServiceException {
         Map<String, String> pidMappings = new HashMap<>();
         for (PIDRecord pidRecord : rec) {
             String internalPID = pidRecord.getPid(); // the internal PID is the one given by the user
@@ -230,6 +304,13 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
             pidRecord.setPid(""); // clear the PID field in the record
             if (dryrun) { // if it is a dryrun, we set the PID to a temporary value
                 pidRecord.setPid("dryrun_" + pidMappings.size());
+            } else if (this.suffixReservoir.isNameBased()) {
+                // the content, and with it the PID, is only final once its references are resolved
+                derivedRecords.put(pidRecord, internalPID);
+                if (!internalPID.isBlank()) {
+                    pidMappings.put(internalPID, null);
+                }
+                continue;
             } else {
                 setPid(pidRecord); // otherwise, we generate a real PID
             }
@@ -240,37 +321,70 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
 
     /**
      * This method applies the mappings between temporary PIDs and real PIDs to the records and validates them.
+     * <p>
+     * Records whose PID is derived from their content get their PID after they are validated, once all their
+     * references are resolved. Records referring to such a record wait for its PID. Records which refer to each
+     * other in a cycle can therefore not get PIDs derived from their content.
      *
-     * @param rec         the list of records produced by the user
-     * @param pidMappings the map between the user-provided PIDs (key) and the real PIDs (values)
-     * @param prefix      the prefix to be used for the real PIDs
-     * @return the list of validated records
-     * @throws RecordValidationException as a possible validation outcome
+     * @param rec            the list of records produced by the user
+     * @param pidMappings    the map between the user-provided PIDs (key) and the real PIDs (values)
+     * @param prefix         the prefix to be used for the real PIDs
+     * @param derivedRecords the records whose PID is derived from their content, with their user-provided PIDs
+     * @return the list of validated records, in the order of the given records
+     * @throws RecordValidationException as a possible validation outcome, or if records refer to each other in a cycle
      * @throws ExternalServiceException  as a possible validation outcome
      */
     @WithSpan
     @Timed
     @Counted
-    private List<PIDRecord> applyMappingsToRecordsAndValidate(@SpanAttribute List<PIDRecord> rec, @SpanAttribute Map<String, String> pidMappings, @SpanAttribute String prefix) throws RecordValidationException, ExternalServiceException {
-        List<PIDRecord> validatedRecords = new ArrayList<>();
-        for (PIDRecord pidRecord : rec) {
-
-            // use this map to replace all temporary PIDs in the record values with their corresponding real PIDs
-            pidRecord.getEntries().values().stream() // get all values of the record
-                    .flatMap(List::stream) // flatten the list of values
-                    .filter(entry -> entry.getValue() != null) // Filter out null values
-                    .filter(entry -> pidMappings.containsKey(entry.getValue())) // replace only if the value (aka. "fantasy PID") is a key in the map
-                    .peek(entry -> LOG.debug("Found reference. Replacing {} with {}.", entry.getValue(), prefix + pidMappings.get(entry.getValue()))) // log the replacement
-                    .forEach(entry -> entry.setValue(prefix + pidMappings.get(entry.getValue()))); // replace the value with the real PID according to the map
-
-            // validate the record
-            this.typingService.validate(pidRecord);
+    private List<PIDRecord> applyMappingsToRecordsAndValidate(@SpanAttribute List<PIDRecord> rec, @SpanAttribute Map<String, String> pidMappings, @SpanAttribute String prefix, Map<PIDRecord, String> derivedRecords) throws RecordValidationException, ExternalServiceException {
+        List<PIDRecord> pending = new ArrayList<>(rec);
+        while (!pending.isEmpty()) {
+            boolean resolvedAny = false;
+            for (Iterator<PIDRecord> it = pending.iterator(); it.hasNext(); ) {
+                PIDRecord pidRecord = it.next();
+                if (hasUnresolvedReferences(pidRecord, pidMappings)) {
+                    continue;
+                }
 
-            // store the record
-            validatedRecords.add(pidRecord);
-            LOG.debug("Record {} is valid.", pidRecord);
+                // use this map to replace all temporary PIDs in the record values with their corresponding real PIDs
+                pidRecord.getEntries().values().stream() // get all values of the record
+                        .flatMap(List::stream) // flatten the list of values
+                        .filter(entry -> entry.getValue() != null) // Filter out null values
+                        .filter(entry -> pidMappings.containsKey(entry.getValue())) // replace only if the value (aka. "fantasy PID") is a key in the map
+                        .peek(entry -> LOG.debug("Found reference. Replacing {} with {}.", entry.getValue(), prefix + pidMappings.get(entry.getValue()))) // log the replacement
+                        .forEach(entry -> entry.setValue(prefix + pidMappings.get(entry.getValue()))); // replace the value with the real PID according to the map
+
+                // validate the record
+                this.typingService.validate(pidRecord);
+                LOG.debug("Record {} is valid.", pidRecord);
+
+                if (derivedRecords.containsKey(pidRecord)) {
+                    // the content is final now, so the PID can be derived from it
+                    pidRecord.setPid(this.suffixReservoir.derive(pidRecord.getCanonicalContent()).get());
+                    pidMappings.put(derivedRecords.get(pidRecord), pidRecord.getPid());
+                }
+                it.remove();
+                resolvedAny = true;
+            }
+            if (!resolvedAny) {
+                throw new RecordValidationException(
+                        pending.getFirst(),
+                        "Records which refer to each other cannot get PIDs derived from their content.");
+            }
         }
-        return validatedRecords;
+        return new ArrayList<>(rec);
+    }
+
+    /**
+     * @return true if the record refers to another record of the request, whose PID is not known yet.
+     */
+    private static boolean hasUnresolvedReferences(PIDRecord pidRecord, Map<String, String> pidMappings) {
+        return pidRecord.getEntries().values().stream()
+                .flatMap(List::stream)
+                .map(PIDRecordEntry::getValue)
+                .filter(Objects::nonNull)
+                .anyMatch(value -> pidMappings.containsKey(value) && pidMappings.get(value) == null);
     }
 
     @Override
@@ -286,8 +400,13 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
 
         if (dryrun) {
             pidRecord.setPid("dryrun");
-        } else {
-            setPid(pidRecord);
+        } else if (setPid(pidRecord)) {
+            Optional<String> registeredPid = findRegisteredDerivedPid(pidRecord);
+            if (registeredPid.isPresent()) {
+                LOG.info("Record with the same content was registered already as {}.", registeredPid.get());
+                PIDRecord registered = this.typingService.queryPid(registeredPid.get());
+                return ResponseEntity.status(HttpStatus.OK).eTag(quotedEtag(registered)).body(registered);
+            }
         }
 
         this.typingService.validate(pidRecord);
@@ -324,10 +443,18 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
         return pidRecord.getPid() != null && !pidRecord.getPid().isBlank();
     }
 
+    /**
+     * Sets a new PID in the given record, or checks the custom PID of the record,
+     * if allowed.
+     *
+     * @param pidRecord the record to set the PID in.
+     * @return true if the PID was derived from the content of the record, so it
+     * may be registered already for a record with the same content.
+     */
     @WithSpan
     @Timed
     @Counted
-    private void setPid(@SpanAttribute PIDRecord pidRecord) {
+    private boolean setPid(@SpanAttribute PIDRecord pidRecord) {
         boolean hasCustomPid = hasPid(pidRecord);
         boolean allowsCustomPids = pidGenerationProperties.isCustomClientPidsEnabled();
 
@@ -342,21 +469,67 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
             if (isRegisteredPid) {
                 throw new PidAlreadyExistsException(pidRecord.getPid());
             }
+            return false;
+        } else if (this.suffixReservoir.isNameBased()) {
+            // The same content always results in the same suffix.
+            PidSuffix suffix = this.suffixReservoir.derive(pidRecord.getCanonicalContent());
+            pidRecord.setPid(suffix.get());
+            return true;
         } else {
             // In all other (usual) cases, we have to generate a PID.
             // We store only the suffix in the pid field.
             // The registration at the PID service will preprend the prefix.
-
-            Stream<PidSuffix> suffixStream = suffixGenerator.infiniteStream();
-            Optional<PidSuffix> maybeSuffix = Streams.failableStream(suffixStream)
-                    // With failable streams, we can throw exceptions.
-                    .filter(suffix -> !this.typingService.isPidRegistered(suffix))
-                    .stream()  // back to normal java streams
-                    .findFirst();  // as the stream is infinite, we should always find a prefix.
-            PidSuffix suffix = maybeSuffix
-                    .orElseThrow(() -> new ExternalServiceException("Could not generate PID suffix which did not exist yet."));
+            // The reservoir hands out suffixes which are known to be unregistered.
+            PidSuffix suffix = this.suffixReservoir.take();
             pidRecord.setPid(suffix.get());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the PID of the given record, if it was derived from the content of
+     * the record and is registered already. The registered record may have been
+     * updated since, but still refers to the same object.
+     *
+     * @param pidRecord the record with a generated PID suffix.
+     * @return the registered PID, or empty if the PID is not derived from the
+     * content or not registered yet.
+     */
+    private Optional<String> findRegisteredDerivedPid(PIDRecord pidRecord) throws ExternalServiceException {
+        if (!this.suffixReservoir.isNameBased()) {
+            return Optional.empty();
+        }
+        String prefix = this.typingService.getPrefix()
+                .orElseThrow(() -> new InvalidConfigException("No prefix configured."));
+        String pid = new PidSuffix(pidRecord.getPid()).getWithPrefix(prefix);
+        return this.typingService.isPidRegistered(pid) ? Optional.of(pid) : Optional.empty();
+    }
+
+    /**
+     * Checks the PIDs of all given records at once, so the PID system may check
+     * them concurrently. Records whose PID is registered already get the
+     * registered PID, like in {@link #findRegisteredDerivedPid(PIDRecord)}.
+     *
+     * @param records the records with PID suffixes derived from their content.
+     * @return the given records whose PID is registered already.
+     */
+    private Set<PIDRecord> findRegisteredDerivedPids(Collection<PIDRecord> records) throws ExternalServiceException {
+        Set<PIDRecord> registeredRecords = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (records.isEmpty()) {
+            return registeredRecords;
         }
+        String prefix = this.typingService.getPrefix()
+                .orElseThrow(() -> new InvalidConfigException("No prefix configured."));
+        Map<String, PIDRecord> recordsByPid = new LinkedHashMap<>();
+        records.forEach(pidRecord -> recordsByPid.put(new PidSuffix(pidRecord.getPid()).getWithPrefix(prefix), pidRecord));
+        Set<String> registered = this.typingService.findRegisteredPids(recordsByPid.keySet());
+        recordsByPid.forEach((pid, pidRecord) -> {
+            if (registered.contains(pid)) {
+                pidRecord.setPid(pid);
+                registeredRecords.add(pidRecord);
+            }
+        });
+        return registeredRecords;
     }
 
     @Override
@@ -377,25 +550,25 @@ public class TypingRESTResourceImpl implements ITypingRestResource {
                     "Optional PID in record is given (%s), but it was not the same as the PID in the URL (%s). Ignore request, assuming this was not intended.".formatted(pidInternal, pid));
         }
 
-        PIDRecord existingRecord = this.resolver.resolve(pid);
-        if (existingRecord == null) {
-            throw new PidNotFoundException(pid);
-        }
-
-        // record validation
         pidRecord.setPid(pid);
+        // record validation, before the PID system applies its record modifiers
         this.typingService.validate(pidRecord);
-
         // throws exception (HTTP 412) if check fails.
-        ControllerUtils.checkEtag(request, existingRecord);
+        Consumer<PIDRecord> preconditions = existingRecord -> ControllerUtils.checkEtag(request, existingRecord);
 
         if (dryrun) {
+            PIDRecord existingRecord = this.resolver.resolve(pid);
+            if (existingRecord == null) {
+                throw new PidNotFoundException(pid);
+            }
+            preconditions.accept(existingRecord);
             // dryrun only does validation. Stop now and return as we would later on.
             return ResponseEntity.ok().eTag(quotedEtag(pidRecord)).body(pidRecord);
         }
 
-        // update and send message
-        if (this.typingService.updatePid(pidRecord)) {
+        // update and send message. The PID system resolves the existing record
+        // once, for the preconditions and the update.
+        if (this.typingService.updatePid(pidRecord, preconditions)) {
             // store pid locally
             if (applicationProps.getStorageStrategy().storesModified()) {
                 storeLocally(pidRecord.getPid(), true);
@@ -0,0 +1,132 @@
+package edu.kit.datamanager.pit.common;
+
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManagedExecutorsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ManagedExecutors executors;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties props = new ApplicationProperties();
+        props.setExecutorCpuThreads(1);
+        props.setExecutorCpuQueueCapacity(1);
+        props.setExecutorShutdownTimeoutSeconds(1);
+        executors = new ManagedExecutors(props);
+        executors.bindTo(registry);
+    }
+
+    @AfterEach
+    void teardown() {
+        executors.close();
+    }
+
+    @Test
+    void ioTasksRunOnNamedVirtualThreads() {
+        Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executors.io()).join();
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("pit-io-"));
+    }
+
+    @Test
+    void cpuTasksRunOnNamedPlatformThreads() {
+        Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executors.cpu()).join();
+        assertFalse(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("pit-cpu-"));
+    }
+
+    @Test
+    void gaugesShowActiveAndQueuedTasks() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executors.io().execute(blocking);
+        executors.cpu().execute(blocking);
+        executors.cpu().execute(() -> {});
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, gauge(ManagedExecutors.ACTIVE_METRIC, "io"));
+        assertEquals(1, gauge(ManagedExecutors.ACTIVE_METRIC, "cpu"));
+        assertEquals(1, gauge(ManagedExecutors.QUEUED_METRIC, "cpu"));
+        release.countDown();
+    }
+
+    @Test
+    void fullCpuQueueRunsTaskOnCaller() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executors.cpu().execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executors.cpu().execute(() -> {});
+
+        Thread caller = Thread.currentThread();
+        AtomicBoolean ranOnCaller = new AtomicBoolean();
+        executors.cpu().execute(() -> ranOnCaller.set(Thread.currentThread() == caller));
+        assertTrue(ranOnCaller.get());
+        release.countDown();
+    }
+
+    @Test
+    void closeInterruptsTasksAfterTimeout() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        executors.io().execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executors.close();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectedIoTasksAreNotCountedAsQueued() {
+        executors.close();
+        assertThrows(RejectedExecutionException.class, () -> executors.io().execute(() -> {}));
+        assertEquals(0, gauge(ManagedExecutors.QUEUED_METRIC, "io"));
+    }
+
+    @Test
+    void standaloneExecutorsAreSharedAndStayOpen() {
+        ManagedExecutors standalone = ManagedExecutors.standalone();
+        assertSame(standalone, ManagedExecutors.standalone());
+        standalone.close();
+        assertTrue(CompletableFuture.supplyAsync(() -> true, standalone.cpu()).join());
+        assertTrue(CompletableFuture.supplyAsync(() -> true, standalone.io()).join());
+    }
+
+    private double gauge(String name, String executor) {
+        return registry.get(name).tag("executor", executor).gauge().value();
+    }
+}
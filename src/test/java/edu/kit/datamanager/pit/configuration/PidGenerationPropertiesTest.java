@@ -2,6 +2,7 @@ package edu.kit.datamanager.pit.configuration;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Optional;
@@ -9,6 +10,7 @@ import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 
+import edu.kit.datamanager.pit.common.InvalidConfigException;
 import edu.kit.datamanager.pit.configuration.PidGenerationProperties.Case;
 import edu.kit.datamanager.pit.configuration.PidGenerationProperties.Mode;
 import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
@@ -23,7 +25,7 @@ class PidGenerationPropertiesTest {
     @Test
     void testDefaultPidGenerator() {
         PidGenerationProperties p = new PidGenerationProperties();
-        PidSuffixGenerator gen = p.pidGenerator();
+        PidSuffixGenerator gen = p.createGenerator(null);
         String suffix = gen.generate().get();
         assertDoesNotThrow(
             () -> UUID.fromString(suffix)
@@ -40,7 +42,7 @@ class PidGenerationPropertiesTest {
         p.setCasing(Case.UPPER);
         p.setNumChunks(15);
 
-        PidSuffixGenerator gen = p.pidGenerator();
+        PidSuffixGenerator gen = p.createGenerator(null);
         String suffix = gen.generate().get();
         assertTrue(suffix.startsWith(branding));
 
@@ -54,4 +56,11 @@ class PidGenerationPropertiesTest {
             assertTrue(HexChunksGeneratorTest.isHexEncoded(chunk));
         }
     }
+
+    @Test
+    void testSequenceWithoutLeaser() {
+        PidGenerationProperties p = new PidGenerationProperties();
+        p.setMode(Mode.SEQUENCE);
+        assertThrows(InvalidConfigException.class, () -> p.createGenerator(null));
+    }
 }
@@ -0,0 +1,33 @@
+package edu.kit.datamanager.pit.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+@TestPropertySource(
+        locations = "/test/application-test.properties",
+        properties = {"repo.auth.enabled=true", "pit.security.enable-csrf=false"})
+@ActiveProfiles("test")
+class WebSecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void typeRegistryCachesCanOnlyBeFlushedWhenAuthenticated() throws Exception {
+        mockMvc.perform(get("/actuator/typeregistrycache"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/actuator/typeregistrycache/profiles"))
+                .andExpect(status().is4xxClientError());
+    }
+}
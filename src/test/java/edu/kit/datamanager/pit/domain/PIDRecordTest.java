@@ -19,6 +19,32 @@ import org.junit.jupiter.api.Test;
 class PIDRecordTest {
     private static final String PID = "fake/pid/42";
 
+    @Test
+    void canonicalContentIgnoresOrderNamesAndDuplicates() {
+        PIDRecord first = new PIDRecord().withPID("a");
+        first.addEntry("key1", "name1", "value1");
+        first.addEntry("key2", "name2", "value2");
+        first.addEntry("key2", "name2", "value3");
+        PIDRecord second = new PIDRecord().withPID("b");
+        second.addEntry("key2", "value3");
+        second.addEntry("key2", "value2");
+        second.addEntry("key1", "value1");
+        second.addEntry("key1", "value1");
+        assertEquals(first.getCanonicalContent(), second.getCanonicalContent());
+
+        second.addEntry("key3", "value1");
+        assertNotEquals(first.getCanonicalContent(), second.getCanonicalContent());
+    }
+
+    @Test
+    void canonicalContentSeparatesKeysAndValues() {
+        PIDRecord first = new PIDRecord();
+        first.addEntry("ab", "c");
+        PIDRecord second = new PIDRecord();
+        second.addEntry("a", "bc");
+        assertNotEquals(first.getCanonicalContent(), second.getCanonicalContent());
+    }
+
     @Test
     void assignPIDTest() {
         PIDRecord r = new PIDRecord().withPID(PID);
@@ -0,0 +1,138 @@
+package edu.kit.datamanager.pit.pidgeneration;
+
+import edu.kit.datamanager.pit.pidsystem.impl.InMemoryIdentifierSystem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PidSuffixReservoirTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger checks = new AtomicInteger();
+    private final AtomicInteger batches = new AtomicInteger();
+    private final PidSuffixGenerator counting = () -> new PidSuffix("s" + generated.getAndIncrement());
+    private final InMemoryIdentifierSystem identifierSystem = new InMemoryIdentifierSystem() {
+        @Override
+        public boolean isPidRegistered(String pid) {
+            checks.incrementAndGet();
+            // pretend every third suffix is taken already
+            return Integer.parseInt(pid.substring(pid.lastIndexOf('s') + 1)) % 3 == 1;
+        }
+
+        @Override
+        public Set<String> findRegisteredPids(Collection<String> pids) {
+            batches.incrementAndGet();
+            return super.findRegisteredPids(pids);
+        }
+    };
+
+    private PidSuffixReservoir reservoir(int capacity, int lowWatermark, Executor executor) {
+        return new PidSuffixReservoir(counting, identifierSystem, capacity, lowWatermark, executor, meterRegistry);
+    }
+
+    private double count(String metric) {
+        return meterRegistry.get(metric).counter().count();
+    }
+
+    @Test
+    void refillSkipsRegisteredSuffixes() {
+        PidSuffixReservoir reservoir = reservoir(5, 2, Runnable::run);
+        assertTrue(reservoir.refill());
+        assertEquals(5, reservoir.size());
+        assertEquals(5, meterRegistry.get(PidSuffixReservoir.SIZE_METRIC).gauge().value());
+
+        Set<String> taken = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            taken.add(reservoir.take().get());
+        }
+        assertEquals(5, taken.size());
+        assertTrue(taken.stream().noneMatch(suffix -> suffix.equals("s1") || suffix.equals("s4")));
+    }
+
+    @Test
+    void refillChecksTheMissingSuffixesAtOnce() {
+        PidSuffixReservoir reservoir = reservoir(30, 0, Runnable::run);
+        reservoir.refill();
+        assertEquals(30, reservoir.size());
+        // every third suffix is taken, so a few more batches fill the gaps
+        assertTrue(batches.get() < 10, "batches: " + batches.get());
+        assertEquals(generated.get(), checks.get());
+    }
+
+    @Test
+    void takesAreServedFromTheReservoirUntilTheLowWatermark() {
+        PidSuffixReservoir reservoir = reservoir(5, 2, Runnable::run);
+        reservoir.refill();
+        int checksAfterFill = checks.get();
+
+        reservoir.take();
+        reservoir.take();
+        assertEquals(3, reservoir.size());
+        assertEquals(checksAfterFill, checks.get());
+        assertEquals(0, count(PidSuffixReservoir.LOW_WATERMARK_METRIC));
+
+        reservoir.take();
+        assertEquals(1, count(PidSuffixReservoir.LOW_WATERMARK_METRIC));
+        assertEquals(5, reservoir.size());
+        assertEquals(2, meterRegistry.get(PidSuffixReservoir.REFILL_METRIC).timer().count());
+        assertEquals(0, count(PidSuffixReservoir.EMPTY_METRIC));
+    }
+
+    @Test
+    void emptyReservoirChecksOnRequest() {
+        // refills never run
+        PidSuffixReservoir reservoir = reservoir(3, 1, task -> {});
+        PidSuffix suffix = reservoir.take();
+        assertFalse(identifierSystem.isPidRegistered(suffix.get()));
+        assertEquals(1, count(PidSuffixReservoir.EMPTY_METRIC));
+    }
+
+    @Test
+    void disabledReservoirKeepsNothingReady() {
+        PidSuffixReservoir reservoir = reservoir(0, 0, Runnable::run);
+        assertFalse(reservoir.isEnabled());
+        assertFalse(reservoir.refill());
+        assertEquals("s0", reservoir.take().get());
+        assertEquals("s2", reservoir.take().get());
+        assertEquals(0, reservoir.size());
+        assertEquals(0, count(PidSuffixReservoir.EMPTY_METRIC));
+    }
+
+    @Test
+    void closedReservoirIsNotRefilled() {
+        PidSuffixReservoir reservoir = reservoir(3, 1, Runnable::run);
+        reservoir.close();
+        assertFalse(reservoir.refill());
+        assertEquals(0, reservoir.size());
+        assertNotNull(reservoir.take());
+    }
+
+    @Test
+    void uniqueSuffixesAreNeitherCheckedNorKeptReady() {
+        PidSuffixGenerator unique = new PidSuffixGenerator() {
+            @Override
+            public PidSuffix generate() {
+                return counting.generate();
+            }
+
+            @Override
+            public boolean guaranteesUniqueness() {
+                return true;
+            }
+        };
+        PidSuffixReservoir reservoir = new PidSuffixReservoir(unique, identifierSystem, 5, 2, Runnable::run, meterRegistry);
+        assertFalse(reservoir.refill());
+        assertEquals("s0", reservoir.take().get());
+        assertEquals("s1", reservoir.take().get());
+        assertEquals(0, checks.get());
+        assertEquals(0, count(PidSuffixReservoir.EMPTY_METRIC));
+    }
+}
@@ -0,0 +1,73 @@
+package edu.kit.datamanager.pit.pidgeneration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest
+@TestPropertySource("/test/application-test.properties")
+@ActiveProfiles("test")
+class SequenceBlockLeaserTest {
+
+    private static final String SEQUENCE = "leaser-test";
+
+    @Autowired
+    private SequenceBlocksDao dao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<SequenceBlockLeaser> leaserBean;
+
+    @BeforeEach
+    void setUp() {
+        dao.deleteById(SEQUENCE);
+    }
+
+    @Test
+    void noLeaserWithoutSequenceMode() {
+        // the test configuration generates UUID4 suffixes
+        assertNull(leaserBean.getIfAvailable());
+    }
+
+    @Test
+    void leasesConsecutiveBlocks() {
+        SequenceBlockLeaser leaser = new SequenceBlockLeaser(dao, transactionManager, SEQUENCE);
+        assertEquals(0, leaser.lease());
+        assertEquals(1, leaser.lease());
+        assertEquals(2, dao.findById(SEQUENCE).orElseThrow().getNextBlock());
+    }
+
+    @Test
+    void concurrentLeasersNeverShareABlock() {
+        List<SequenceBlockLeaser> leasers = IntStream.range(0, 4)
+                .mapToObj(i -> new SequenceBlockLeaser(dao, transactionManager, SEQUENCE))
+                .toList();
+        Set<Long> leased = ConcurrentHashMap.newKeySet();
+        CompletableFuture.allOf(leasers.stream()
+                .map(leaser -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        leased.add(leaser.lease());
+                    }
+                }))
+                .toArray(CompletableFuture[]::new))
+                .join();
+        assertEquals(40, leased.size());
+        assertEquals(40, dao.findById(SEQUENCE).orElseThrow().getNextBlock());
+    }
+}
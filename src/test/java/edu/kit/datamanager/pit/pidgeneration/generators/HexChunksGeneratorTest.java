@@ -3,6 +3,9 @@ package edu.kit.datamanager.pit.pidgeneration.generators;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 
 import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
@@ -25,6 +28,35 @@ public class HexChunksGeneratorTest {
         }
     }
 
+    @Test
+    void usesAllHexDigits() {
+        for (boolean fastRandomness : new boolean[] {false, true}) {
+            PidSuffixGenerator gen = new HexChunksGenerator(4, fastRandomness);
+            Set<Character> digits = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                String suffix = gen.generate().get();
+                assertEquals(19, suffix.length());
+                assertTrue(suffix.matches("^[0-9A-F]{4}(-[0-9A-F]{4}){3}$"), suffix);
+                suffix.replace("-", "").chars().forEach(c -> digits.add((char) c));
+            }
+            assertEquals(16, digits.size());
+        }
+    }
+
+    @Test
+    void generatesDistinctSuffixes() {
+        PidSuffixGenerator gen = new HexChunksGenerator(4, true);
+        Set<String> suffixes = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(suffixes.add(gen.generate().get()));
+        }
+    }
+
+    @Test
+    void noChunksGenerateAnEmptySuffix() {
+        assertEquals("", new HexChunksGenerator(0).generate().get());
+    }
+
     public static boolean isHexEncoded(String input) {
         String hexPattern = "^[0-9A-Fa-f]+$";
         return input.matches(hexPattern);
@@ -0,0 +1,79 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenConstant;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+import edu.kit.datamanager.pit.pidgeneration.generators.PidSuffixGenSequence.Encoding;
+
+class PidSuffixGenSequenceTest {
+
+    private final AtomicLong blocks = new AtomicLong();
+
+    @Test
+    void leasesOneBlockPerBlockSizeNumbers() {
+        PidSuffixGenerator g = new PidSuffixGenSequence(blocks::getAndIncrement, 10, Encoding.DECIMAL, false);
+        List<String> suffixes = IntStream.range(0, 25).mapToObj(i -> g.generate().get()).toList();
+        assertEquals("0", suffixes.get(0));
+        assertEquals("24", suffixes.get(24));
+        assertEquals(3, blocks.get());
+    }
+
+    @Test
+    void generatorsSharingABlockSourceDoNotOverlap() {
+        PidSuffixGenerator first = new PidSuffixGenSequence(blocks::getAndIncrement, 7, Encoding.CROCKFORD_BASE32, false);
+        PidSuffixGenerator second = new PidSuffixGenSequence(blocks::getAndIncrement, 7, Encoding.CROCKFORD_BASE32, false);
+        Set<String> suffixes = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(suffixes.add(first.generate().get()));
+            assertTrue(suffixes.add(second.generate().get()));
+        }
+    }
+
+    @Test
+    void encodesInCrockfordBase32() {
+        assertEquals("0", PidSuffixGenSequence.toCrockfordBase32(0));
+        assertEquals("Z", PidSuffixGenSequence.toCrockfordBase32(31));
+        assertEquals("10", PidSuffixGenSequence.toCrockfordBase32(32));
+        assertEquals("16J", PidSuffixGenSequence.toCrockfordBase32(1234));
+        assertEquals("7ZZZZZZZZZZZZ", PidSuffixGenSequence.toCrockfordBase32(Long.MAX_VALUE));
+    }
+
+    @Test
+    void appendsCheckSymbol() {
+        blocks.set(1234);
+        PidSuffixGenerator g = new PidSuffixGenSequence(blocks::getAndIncrement, 1, Encoding.CROCKFORD_BASE32, true);
+        // 1234 % 37 = 13
+        assertEquals("16JD", g.generate().get());
+        // 1235 % 37 = 14
+        assertEquals("16KE", g.generate().get());
+        blocks.set(36);
+        assertEquals("14U", g.generate().get());
+    }
+
+    @Test
+    void uniquenessIsKeptByDecorators() {
+        PidSuffixGenerator sequence = new PidSuffixGenSequence(blocks::getAndIncrement, 10, Encoding.CROCKFORD_BASE32, false);
+        assertTrue(sequence.guaranteesUniqueness());
+        assertTrue(new PidSuffixGenPrefixed(new PidSuffixGenLowerCase(sequence), "x-").guaranteesUniqueness());
+        assertFalse(new PidSuffixGenUpperCase(new PidSuffixGenConstant()).guaranteesUniqueness());
+        assertFalse(new PidSuffixGenUuid4().guaranteesUniqueness());
+    }
+
+    @Test
+    void rejectsEmptyBlocks() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PidSuffixGenSequence(blocks::getAndIncrement, 0, Encoding.DECIMAL, false));
+    }
+}
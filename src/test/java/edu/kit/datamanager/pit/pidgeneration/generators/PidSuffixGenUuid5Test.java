@@ -0,0 +1,49 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+
+class PidSuffixGenUuid5Test {
+
+    private static final UUID DNS_NAMESPACE = UUID.fromString("6ba7b810-9dad-11d1-80b4-00c04fd430c8");
+
+    @Test
+    void derivesUUID5FromName() {
+        PidSuffixGenerator g = new PidSuffixGenUuid5(DNS_NAMESPACE);
+        // example from RFC 9562
+        assertEquals("2ed6657d-e927-568b-95e1-2665a8aea6a2", g.generate("www.example.com").get());
+        assertEquals(5, UUID.fromString(g.generate("other").get()).version());
+        assertTrue(g.isNameBased());
+    }
+
+    @Test
+    void namespacesSeparateEqualNames() {
+        PidSuffixGenerator first = new PidSuffixGenUuid5(DNS_NAMESPACE);
+        PidSuffixGenerator second = new PidSuffixGenUuid5(UUID.randomUUID());
+        assertEquals(first.generate("name").get(), first.generate("name").get());
+        assertNotEquals(first.generate("name").get(), second.generate("name").get());
+    }
+
+    @Test
+    void withoutNameSuffixesAreRandom() {
+        PidSuffixGenerator g = new PidSuffixGenUuid5(DNS_NAMESPACE);
+        assertNotEquals(g.generate().get(), g.generate().get());
+    }
+
+    @Test
+    void decoratorsKeepNameBasedSuffixes() {
+        PidSuffixGenerator g = new PidSuffixGenPrefixed(
+                new PidSuffixGenLowerCase(new PidSuffixGenUuid5(DNS_NAMESPACE)), "brand.");
+        assertTrue(g.isNameBased());
+        assertEquals("brand.2ED6657D-E927-568B-95E1-2665A8AEA6A2", g.generate("www.example.com").get());
+        assertFalse(new PidSuffixGenUpperCase(new PidSuffixGenUuid4()).isNameBased());
+    }
+}
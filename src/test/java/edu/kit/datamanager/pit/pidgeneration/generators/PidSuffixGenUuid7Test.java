@@ -0,0 +1,100 @@
+package edu.kit.datamanager.pit.pidgeneration.generators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import edu.kit.datamanager.pit.pidgeneration.PidSuffix;
+import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
+
+class PidSuffixGenUuid7Test {
+
+    private static List<String> generate(PidSuffixGenerator g, int amount) {
+        List<String> suffixes = new ArrayList<>();
+        for (int i = 0; i < amount; i++) {
+            suffixes.add(g.generate().get());
+        }
+        return suffixes;
+    }
+
+    private static void assertStrictlyIncreasing(List<String> suffixes) {
+        for (int i = 1; i < suffixes.size(); i++) {
+            assertTrue(suffixes.get(i - 1).compareTo(suffixes.get(i)) < 0,
+                    suffixes.get(i - 1) + " does not sort before " + suffixes.get(i));
+        }
+    }
+
+    /**
+     * Inserts the suffixes into a sorted index and returns the share of
+     * inserts which were appended to its end.
+     */
+    private static double appendedShare(List<String> suffixes) {
+        TreeSet<String> index = new TreeSet<>();
+        int appended = 0;
+        for (String suffix : suffixes) {
+            if (index.isEmpty() || index.last().compareTo(suffix) < 0) {
+                appended++;
+            }
+            index.add(suffix);
+        }
+        return (double) appended / suffixes.size();
+    }
+
+    @Test
+    void generatesUUID7() {
+        PidSuffixGenerator g = new PidSuffixGenUuid7();
+        PidSuffix s = g.generate();
+        UUID uuid = UUID.fromString(s.get());
+        assertEquals(36, s.get().length());
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(Math.abs(System.currentTimeMillis() - millis) < 60_000);
+    }
+
+    @Test
+    void monotonicWithinOneMillisecond() {
+        long now = System.currentTimeMillis();
+        PidSuffixGenUuid7 g = new PidSuffixGenUuid7(() -> now);
+        // more suffixes than the counter can distinguish within one millisecond
+        List<String> suffixes = generate(g, 10_000);
+        assertStrictlyIncreasing(suffixes);
+        long firstMillis = UUID.fromString(suffixes.getFirst()).getMostSignificantBits() >>> 16;
+        assertEquals(now, firstMillis);
+    }
+
+    @Test
+    void monotonicIfClockGoesBackwards() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        PidSuffixGenUuid7 g = new PidSuffixGenUuid7(clock::get);
+        String before = g.generate().get();
+        clock.set(999_000);
+        String after = g.generate().get();
+        assertTrue(before.compareTo(after) < 0);
+    }
+
+    @Test
+    void orderSurvivesCasing() {
+        List<String> upper = generate(new PidSuffixGenUpperCase(new PidSuffixGenUuid7()), 1000);
+        assertStrictlyIncreasing(upper);
+        List<String> lower = generate(new PidSuffixGenLowerCase(new PidSuffixGenUuid7()), 1000);
+        assertStrictlyIncreasing(lower);
+    }
+
+    @Test
+    void insertsAreLocalCompared2UUID4() {
+        int amount = 5000;
+        double uuid7 = appendedShare(generate(new PidSuffixGenUuid7(), amount));
+        double uuid4 = appendedShare(generate(new PidSuffixGenUuid4(), amount));
+        assertEquals(1.0, uuid7);
+        // random keys are appended only if they happen to be the largest one so far
+        assertTrue(uuid4 < 0.05, "share of appended UUID4 suffixes: " + uuid4);
+    }
+}
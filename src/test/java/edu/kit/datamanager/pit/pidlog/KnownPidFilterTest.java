@@ -0,0 +1,175 @@
+package edu.kit.datamanager.pit.pidlog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import edu.kit.datamanager.pit.domain.PIDRecord;
+import edu.kit.datamanager.pit.pidsystem.impl.InMemoryIdentifierSystem;
+import edu.kit.datamanager.pit.pitservice.ITypingService;
+import edu.kit.datamanager.pit.pitservice.impl.NoValidationStrategy;
+import edu.kit.datamanager.pit.pitservice.impl.TypingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+@TestPropertySource("/test/application-test.properties")
+@ActiveProfiles("test")
+class KnownPidFilterTest {
+
+    @Autowired
+    private KnownPidsDao knownPidsDao;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger checks = new AtomicInteger();
+    private final AtomicInteger listings = new AtomicInteger();
+    private final InMemoryIdentifierSystem identifierSystem = new InMemoryIdentifierSystem() {
+        @Override
+        public boolean isPidRegistered(String pid) {
+            checks.incrementAndGet();
+            return super.isPidRegistered(pid);
+        }
+
+        @Override
+        public Collection<String> resolveAllPidsOfPrefix() {
+            listings.incrementAndGet();
+            return super.resolveAllPidsOfPrefix();
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        knownPidsDao.deleteAll();
+    }
+
+    private KnownPidFilter filter(long size) {
+        return new KnownPidFilter(identifierSystem, knownPidsDao, size, 0.01, meterRegistry);
+    }
+
+    private void register(String pid) {
+        identifierSystem.registerPidUnchecked(new PIDRecord().withPID(pid));
+    }
+
+    private double metric(String name) {
+        return meterRegistry.get(name).meter().measure().iterator().next().getValue();
+    }
+
+    @Test
+    void checksAreAlwaysConfirmedByThePidSystem() {
+        register("sandboxed/existing");
+        knownPidsDao.saveAndFlush(new KnownPid("sandboxed/logged", Instant.now(), Instant.now()));
+        KnownPidFilter filter = filter(1000);
+
+        // not built yet, so every PID might be registered
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightBeRegistered("sandboxed/new"));
+        assertFalse(filter.isPidRegistered("sandboxed/new"));
+        assertEquals(1, checks.get());
+
+        assertTrue(filter.rebuild());
+        assertTrue(filter.isReady());
+        assertFalse(filter.mightBeRegistered("sandboxed/new"));
+        assertFalse(filter.isPidRegistered("sandboxed/new"));
+        assertEquals(2, checks.get());
+
+        // hits are confirmed
+        assertTrue(filter.isPidRegistered("sandboxed/existing"));
+        assertFalse(filter.isPidRegistered("sandboxed/logged"));
+        assertEquals(4, checks.get());
+        assertEquals(1, metric(KnownPidFilter.FALSE_POSITIVES_METRIC));
+
+        // casing does not matter to the filter
+        assertTrue(filter.mightBeRegistered("SANDBOXED/EXISTING"));
+        assertEquals(0, metric(KnownPidFilter.MISSES_METRIC));
+    }
+
+    @Test
+    void pidsRegisteredElsewhereAreFoundAndLearned() {
+        KnownPidFilter filter = filter(1000);
+        filter.rebuild();
+        // e.g. by another instance, after the filter was built
+        register("sandboxed/elsewhere");
+        assertFalse(filter.mightBeRegistered("sandboxed/elsewhere"));
+
+        assertTrue(filter.isPidRegistered("sandboxed/elsewhere"));
+        assertEquals(1, metric(KnownPidFilter.MISSES_METRIC));
+        assertTrue(filter.mightBeRegistered("sandboxed/elsewhere"));
+    }
+
+    @Test
+    void manyPidsAreConfirmedAtOnce() {
+        KnownPidFilter filter = filter(1000);
+        filter.rebuild();
+        register("sandboxed/elsewhere");
+        filter.add("sandboxed/deleted");
+
+        Set<String> registered = filter.findRegisteredPids(
+                List.of("sandboxed/elsewhere", "sandboxed/deleted", "sandboxed/new"));
+        assertEquals(Set.of("sandboxed/elsewhere"), registered);
+        assertEquals(3, checks.get());
+        assertEquals(1, metric(KnownPidFilter.MISSES_METRIC));
+        assertEquals(1, metric(KnownPidFilter.FALSE_POSITIVES_METRIC));
+    }
+
+    @Test
+    void pidsOfOtherPrefixesAreAlwaysChecked() {
+        KnownPidFilter filter = filter(1000);
+        filter.rebuild();
+        assertFalse(filter.isPidRegistered("other/pid"));
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    void typingServiceAddsRegisteredPids() {
+        KnownPidFilter filter = filter(1000);
+        filter.rebuild();
+        ITypingService typingService = new TypingService(identifierSystem, null, new NoValidationStrategy(), filter);
+        typingService.registerPid(new PIDRecord().withPID("sandboxed/created"));
+        assertTrue(filter.mightBeRegistered("sandboxed/created"));
+        assertTrue(typingService.isPidRegistered("sandboxed/created"));
+        assertFalse(typingService.isPidRegistered("sandboxed/unknown"));
+        assertEquals(2, checks.get());
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        KnownPidFilter filter = filter(10_000);
+        filter.rebuild();
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("sandboxed/" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.isPidRegistered("sandboxed/unknown-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertEquals(0, falsePositives);
+        double confirmed = metric(KnownPidFilter.FALSE_POSITIVES_METRIC);
+        assertTrue(confirmed < 300, "false positives: " + confirmed);
+        assertTrue(metric(KnownPidFilter.FALSE_POSITIVE_RATE_METRIC) < 0.02);
+        assertTrue(metric(KnownPidFilter.BYTES_METRIC) > 0);
+        assertEquals(10_000, metric(KnownPidFilter.PIDS_METRIC));
+    }
+
+    @Test
+    void disabledFilterIsNeverBuilt() {
+        KnownPidFilter filter = filter(0);
+        assertFalse(filter.isEnabled());
+        assertFalse(filter.rebuild());
+        assertEquals(0, listings.get());
+        assertFalse(filter.isReady());
+    }
+}
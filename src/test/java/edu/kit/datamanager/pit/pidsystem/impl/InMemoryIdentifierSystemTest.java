@@ -1,10 +1,14 @@
 package edu.kit.datamanager.pit.pidsystem.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -51,4 +55,28 @@ class InMemoryIdentifierSystemTest {
         assertEquals(2, sys.resolveAllPidsOfPrefix().size());
     }
 
+    @Test
+    void testUpdateChecksPreconditionWithCurrentRecord() throws IOException {
+        PIDRecord p = new PIDRecord().withPID("test/pid");
+        p.addEntry("key", "old");
+        sys.registerPid(p);
+        String pid = p.getPid();
+        PIDRecord update = new PIDRecord().withPID(pid);
+        update.addEntry("key", "new");
+
+        assertThrows(
+            IllegalStateException.class,
+            () -> sys.updatePid(update, existing -> { throw new IllegalStateException(); })
+        );
+        assertEquals("old", sys.queryPid(pid).getPropertyValue("key"));
+
+        List<String> seen = new ArrayList<>();
+        assertTrue(sys.updatePid(update, existing -> seen.add(existing.getPropertyValue("key"))));
+        assertEquals(List.of("old"), seen);
+        assertEquals("new", sys.queryPid(pid).getPropertyValue("key"));
+
+        PIDRecord missing = new PIDRecord().withPID("sandboxed/missing");
+        assertFalse(sys.updatePid(missing, existing -> fail("no record to check")));
+    }
+
 }
@@ -0,0 +1,173 @@
+package edu.kit.datamanager.pit.pidsystem.impl.handle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.handle.api.HSAdapter;
+import net.handle.hdllib.HandleException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandleClientPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * @return a client which fails on every call, as the tests only need its identity.
+     */
+    private static HSAdapter client() {
+        return (HSAdapter) Proxy.newProxyInstance(
+                HSAdapter.class.getClassLoader(),
+                new Class<?>[]{HSAdapter.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "client@" + System.identityHashCode(proxy);
+                    default -> throw new HandleException(HandleException.INTERNAL_ERROR, "not implemented");
+                });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HandleClientPool pool(int size, Duration timeout) throws HandleException {
+        return HandleClientPool.create(size, HandleClientPoolTest::client, timeout, meterRegistry);
+    }
+
+    @Test
+    void operationsAreSpreadOverAllClients() throws HandleException {
+        HandleClientPool pool = pool(3, Duration.ofSeconds(1));
+        assertEquals(3, pool.size());
+        List<HSAdapter> used = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            used.add(pool.execute("resolveHandle", client -> client));
+        }
+        assertEquals(3, Set.copyOf(used).size());
+        assertEquals(used.subList(0, 3), used.subList(3, 6));
+        assertEquals(3, pool.available());
+    }
+
+    @Test
+    void concurrencyIsBoundedByThePoolSize() throws Exception {
+        HandleClientPool pool = pool(2, Duration.ofSeconds(10));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<HSAdapter> inUse = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                futures.add(executor.submit(() -> pool.execute("createHandle", client -> {
+                    // a client is never used by two operations at once
+                    assertTrue(inUse.add(client));
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(2);
+                    running.decrementAndGet();
+                    inUse.remove(client);
+                    return client;
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, maxRunning.get());
+        assertEquals(2, pool.available());
+        assertEquals(40, meterRegistry.get(HandleClientPool.WAIT_METRIC).timer().count());
+    }
+
+    @Test
+    void waitingForAFreeClientTimesOut() throws Exception {
+        HandleClientPool pool = pool(1, Duration.ofMillis(50));
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try {
+                pool.run("createHandle", client -> {
+                    borrowed.countDown();
+                    await(release);
+                });
+            } catch (HandleException | RuntimeException e) {
+                // not expected
+            } finally {
+                borrowed.countDown();
+            }
+        });
+        holder.start();
+        borrowed.await();
+
+        HandleException e = assertThrows(HandleException.class, () -> pool.execute("resolveHandle", client -> client));
+        assertEquals(HandleException.INTERNAL_ERROR, e.getCode());
+
+        release.countDown();
+        holder.join();
+        assertEquals(1, pool.available());
+        assertNotNull(pool.execute("resolveHandle", client -> client));
+    }
+
+    @Test
+    void operationsAreMeasuredPerType() throws HandleException {
+        HandleClientPool pool = pool(1, Duration.ofSeconds(1));
+        pool.execute("resolveHandle", client -> client);
+        pool.execute("resolveHandle", client -> client);
+        assertThrows(HandleException.class, () -> pool.run("deleteHandle", client -> client.deleteHandle("prefix/suffix")));
+        // the failed client went back to the pool
+        assertEquals(1, pool.available());
+
+        assertEquals(2, meterRegistry.get(HandleClientPool.OPERATION_METRIC)
+                .tags("operation", "resolveHandle", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get(HandleClientPool.OPERATION_METRIC)
+                .tags("operation", "deleteHandle", "outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get(HandleClientPool.ERROR_METRIC)
+                .tags("operation", "deleteHandle", "code", HandleException.getCodeStr(HandleException.INTERNAL_ERROR))
+                .counter().count());
+    }
+
+    @Test
+    void unexpectedFailuresAreMeasuredAsErrors() throws HandleException {
+        HandleClientPool pool = pool(1, Duration.ofSeconds(1));
+        assertThrows(IllegalStateException.class, () -> pool.execute("resolveHandle", client -> {
+            throw new IllegalStateException("unexpected");
+        }));
+        assertEquals(1, pool.available());
+
+        assertEquals(1, meterRegistry.get(HandleClientPool.OPERATION_METRIC)
+                .tags("operation", "resolveHandle", "outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get(HandleClientPool.ERROR_METRIC)
+                .tags("operation", "resolveHandle", "code", "IllegalStateException")
+                .counter().count());
+    }
+
+    @Test
+    void poolHasAtLeastOneClient() throws HandleException {
+        assertEquals(1, pool(0, Duration.ofSeconds(1)).size());
+        assertThrows(IllegalArgumentException.class, () -> new HandleClientPool(List.of(), Duration.ofSeconds(1), meterRegistry));
+    }
+}
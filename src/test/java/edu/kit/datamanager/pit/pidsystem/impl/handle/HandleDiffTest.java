@@ -1,6 +1,8 @@
 package edu.kit.datamanager.pit.pidsystem.impl.handle;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -8,6 +10,7 @@ import java.util.Map;
 import org.junit.jupiter.api.Test;
 
 import net.handle.hdllib.HandleValue;
+import net.handle.hdllib.ValueReference;
 
 class HandleDiffTest {
     @Test
@@ -37,7 +40,7 @@ class HandleDiffTest {
     }
 
     @Test
-    void testDiffAllUpdated() {
+    void testDiffNothingChanged() {
         Map<Integer, HandleValue> oldRecord = new HashMap<>();
         addSomeHandleValue(oldRecord, 1);
         addSomeHandleValue(oldRecord, 2);
@@ -47,12 +50,63 @@ class HandleDiffTest {
         addSomeHandleValue(newRecord, 2);
         addSomeHandleValue(newRecord, 100);
 
+        HandleDiff diff = new HandleDiff(oldRecord, newRecord);
+        assertEquals(0, diff.removed().length);
+        assertEquals(0, diff.updated().length);
+        assertEquals(0, diff.added().length);
+    }
+
+    @Test
+    void testDiffAllUpdated() {
+        Map<Integer, HandleValue> oldRecord = new HashMap<>();
+        addSomeHandleValue(oldRecord, 1);
+        addSomeHandleValue(oldRecord, 2);
+        addSomeHandleValue(oldRecord, 100);
+        Map<Integer, HandleValue> newRecord = new HashMap<>();
+        newRecord.put(1, new HandleValue(1, "", "changed"));
+        newRecord.put(2, new HandleValue(2, "changed", ""));
+        HandleValue shorterTtl = getHandleValue(100);
+        shorterTtl.setTTL(60);
+        newRecord.put(100, shorterTtl);
+
         HandleDiff diff = new HandleDiff(oldRecord, newRecord);
         assertEquals(0, diff.removed().length);
         assertEquals(oldRecord.size(), diff.updated().length);
         assertEquals(0, diff.added().length);
     }
 
+    @Test
+    void testDiffOnlyChangedValuesAreUpdated() {
+        Map<Integer, HandleValue> oldRecord = new HashMap<>();
+        Map<Integer, HandleValue> newRecord = new HashMap<>();
+        for (int index = 1; index <= 200; index++) {
+            addSomeHandleValue(oldRecord, index);
+            addSomeHandleValue(newRecord, index);
+        }
+        HandleValue publiclyWritable = getHandleValue(42);
+        publiclyWritable.setAnyoneCanWrite(true);
+        newRecord.put(42, publiclyWritable);
+
+        HandleDiff diff = new HandleDiff(oldRecord, newRecord);
+        assertEquals(0, diff.removed().length);
+        assertEquals(1, diff.updated().length);
+        assertEquals(42, diff.updated()[0].getIndex());
+        assertEquals(0, diff.added().length);
+    }
+
+    @Test
+    void testUnchangedIgnoresTimestampAndEmptyReferences() {
+        HandleValue old = getHandleValue(1);
+        old.setTimestamp(1234);
+        old.setReferences(new ValueReference[0]);
+        HandleValue future = getHandleValue(1);
+        future.setReferences(null);
+        assertTrue(HandleDiff.isUnchanged(old, future));
+
+        future.setReferences(new ValueReference[]{new ValueReference("prefix/suffix", 1)});
+        assertFalse(HandleDiff.isUnchanged(old, future));
+    }
+
     @Test
     void testDiffOneOfEachChange() {
         Map<Integer, HandleValue> oldRecord = new HashMap<>();
@@ -60,7 +114,7 @@ class HandleDiffTest {
         addSomeHandleValue(oldRecord, 2);
         Map<Integer, HandleValue> newRecord = new HashMap<>();
         // removed 1
-        addSomeHandleValue(newRecord, 2);  // potentially changed 2
+        newRecord.put(2, new HandleValue(2, "", "changed"));  // changed 2
         addSomeHandleValue(newRecord, 100); // added 100
 
         HandleDiff diff = new HandleDiff(oldRecord, newRecord);
@@ -0,0 +1,180 @@
+package edu.kit.datamanager.pit.pidsystem.impl.handle;
+
+import edu.kit.datamanager.pit.common.ManagedExecutors;
+import edu.kit.datamanager.pit.common.PidAlreadyExistsException;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.configuration.HandleProtocolProperties;
+import edu.kit.datamanager.pit.domain.PIDRecord;
+import edu.kit.datamanager.pit.pidsystem.RegistrationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.handle.api.HSAdapter;
+import net.handle.hdllib.HandleException;
+import net.handle.hdllib.HandleValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandleProtocolAdapterBulkTest {
+
+    private static final long LATENCY_MILLIS = 10;
+
+    // stands in for the Handle server, which all clients share
+    private final Map<String, HandleValue[]> handles = new ConcurrentHashMap<>();
+    // calls to the stand-in which are running, and the most which ever ran at once
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final ManagedExecutors executors = new ManagedExecutors(new ApplicationProperties());
+
+    @AfterEach
+    void tearDown() {
+        executors.close();
+    }
+
+    /**
+     * @return a client which creates handles on the stand-in, taking a fixed latency for each call.
+     */
+    private HSAdapter client() {
+        return (HSAdapter) Proxy.newProxyInstance(
+                HSAdapter.class.getClassLoader(),
+                new Class<?>[]{HSAdapter.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "client@" + System.identityHashCode(proxy);
+                    case "createHandle" -> {
+                        roundTrip();
+                        if (handles.putIfAbsent((String) args[0], (HandleValue[]) args[1]) != null) {
+                            throw new HandleException(HandleException.HANDLE_ALREADY_EXISTS, "exists");
+                        }
+                        yield null;
+                    }
+                    case "resolveHandle" -> {
+                        roundTrip();
+                        HandleValue[] values = handles.get((String) args[0]);
+                        if (values == null) {
+                            throw new HandleException(HandleException.HANDLE_DOES_NOT_EXIST, "does not exist");
+                        }
+                        yield values;
+                    }
+                    default -> throw new HandleException(HandleException.INTERNAL_ERROR, "not implemented");
+                });
+    }
+
+    private void roundTrip() throws InterruptedException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(LATENCY_MILLIS);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private HandleProtocolAdapter adapter(int poolSize, int window) throws HandleException {
+        HandleProtocolProperties props = new HandleProtocolProperties();
+        props.setClientPoolSize(poolSize);
+        props.setBulkRegistrationWindow(window);
+        HandleClientPool clients = HandleClientPool.create(
+                poolSize, this::client, Duration.ofSeconds(10), new SimpleMeterRegistry());
+        HandleValue adminValue = new HandleValue(100, "HS_ADMIN", "");
+        return new HandleProtocolAdapter(props, clients, adminValue, executors);
+    }
+
+    private static List<PIDRecord> records(String batch, int amount) {
+        List<PIDRecord> records = new ArrayList<>();
+        for (int i = 0; i < amount; i++) {
+            PIDRecord pidRecord = new PIDRecord().withPID("sandboxed/" + batch + "-" + i);
+            pidRecord.addEntry("21.T11148/076759916209e5d62bd5", "", "21.T11148/301c6f04763a16f0f72a");
+            records.add(pidRecord);
+        }
+        return records;
+    }
+
+    @Test
+    void bulkRegistrationRegistersLikeOneAfterTheOther() throws HandleException {
+        int amount = 100;
+        HandleProtocolAdapter adapter = adapter(8, 16);
+
+        for (PIDRecord pidRecord : records("sequential", amount)) {
+            adapter.registerPidUnchecked(pidRecord);
+        }
+        List<RegistrationResult> results = adapter.registerPidsUnchecked(records("bulk", amount));
+
+        assertTrue(results.stream().allMatch(RegistrationResult::isSuccessful));
+        assertEquals(2 * amount, handles.size());
+    }
+
+    @Test
+    void resultsArePerRecordAndInOrder() throws HandleException {
+        HandleProtocolAdapter adapter = adapter(4, 4);
+        List<PIDRecord> records = records("mixed", 10);
+        adapter.registerPidUnchecked(records.get(3).clone());
+
+        List<RegistrationResult> results = adapter.registerPidsUnchecked(records);
+        assertEquals(records.size(), results.size());
+        for (int i = 0; i < records.size(); i++) {
+            RegistrationResult result = results.get(i);
+            assertSame(records.get(i), result.pidRecord());
+            if (i == 3) {
+                assertFalse(result.isSuccessful());
+                assertNull(result.pid());
+                assertInstanceOf(PidAlreadyExistsException.class, result.error());
+            } else {
+                assertTrue(result.isSuccessful());
+                assertEquals(records.get(i).getPid(), result.pid());
+            }
+        }
+        assertEquals(records.size(), handles.size());
+    }
+
+    @Test
+    void registrationsDoNotExceedTheWindow() throws HandleException {
+        HandleProtocolAdapter adapter = adapter(8, 2);
+        long start = System.nanoTime();
+        List<RegistrationResult> results = adapter.registerPidsUnchecked(records("window", 10));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(results.stream().allMatch(RegistrationResult::isSuccessful));
+        // with two records in flight, ten records take at least five round trips
+        assertTrue(elapsedMillis >= 5 * LATENCY_MILLIS, "elapsed: " + elapsedMillis + "ms");
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void registrationsOverlapUpToTheWindow() throws HandleException {
+        List<RegistrationResult> results = adapter(8, 4).registerPidsUnchecked(records("overlap", 40));
+        assertTrue(results.stream().allMatch(RegistrationResult::isSuccessful));
+        assertEquals(4, maxInFlight.get());
+    }
+
+    @Test
+    void registrationsOverlapUpToThePoolSize() throws HandleException {
+        // more records in flight than clients, so they wait for a client
+        List<RegistrationResult> results = adapter(3, 16).registerPidsUnchecked(records("pool", 40));
+        assertTrue(results.stream().allMatch(RegistrationResult::isSuccessful));
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    void pidsAreCheckedConcurrently() throws HandleException {
+        HandleProtocolAdapter adapter = adapter(4, 4);
+        adapter.registerPidsUnchecked(records("checked", 2));
+        maxInFlight.set(0);
+
+        List<String> pids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            pids.add("sandboxed/checked-" + i);
+        }
+        assertEquals(Set.of("sandboxed/checked-0", "sandboxed/checked-1"), adapter.findRegisteredPids(pids));
+        assertTrue(maxInFlight.get() > 1, "checks did not overlap");
+        assertTrue(maxInFlight.get() <= 4, "more checks than the window: " + maxInFlight.get());
+    }
+}
@@ -0,0 +1,115 @@
+package edu.kit.datamanager.pit.pidsystem.impl.handle;
+
+import edu.kit.datamanager.pit.configuration.HandleProtocolProperties;
+import edu.kit.datamanager.pit.domain.PIDRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.handle.api.HSAdapter;
+import net.handle.hdllib.HandleException;
+import net.handle.hdllib.HandleValue;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandleProtocolAdapterUpdateTest {
+
+    private static final String PID = "sandboxed/updated";
+    private static final String LOCATION = "21.T11148/b8457812905b83046284";
+
+    // stands in for the values of the handle on the Handle server, by index
+    private final Map<Integer, HandleValue> values = new ConcurrentHashMap<>();
+
+    private static HandleValue[] valuesArgument(Object arg) {
+        return (HandleValue[]) arg;
+    }
+
+    /**
+     * @return a client which resolves and changes the values of the stand-in handle.
+     */
+    private HSAdapter client() {
+        return (HSAdapter) Proxy.newProxyInstance(
+                HSAdapter.class.getClassLoader(),
+                new Class<?>[]{HSAdapter.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "client@" + System.identityHashCode(proxy);
+                    case "resolveHandle" -> values.values().toArray(new HandleValue[0]);
+                    case "addHandleValues", "updateHandleValues" -> {
+                        for (HandleValue value : valuesArgument(args[1])) {
+                            values.put(value.getIndex(), value);
+                        }
+                        yield null;
+                    }
+                    case "deleteHandleValues" -> {
+                        for (HandleValue value : valuesArgument(args[1])) {
+                            values.remove(value.getIndex());
+                        }
+                        yield null;
+                    }
+                    default -> throw new HandleException(HandleException.INTERNAL_ERROR, "not implemented");
+                });
+    }
+
+    private HandleProtocolAdapter adapterWithRedirect() throws HandleException {
+        HandleProtocolProperties props = new HandleProtocolProperties() {
+            {
+                this.handleRedirectAttributes = List.of(LOCATION);
+            }
+        };
+        HandleClientPool clients = HandleClientPool.create(
+                1, this::client, Duration.ofSeconds(10), new SimpleMeterRegistry());
+        return new HandleProtocolAdapter(props, clients, new HandleValue(100, "HS_ADMIN", ""), null);
+    }
+
+    private Map<String, String> valuesByType() {
+        return values.values().stream()
+                .collect(Collectors.toMap(HandleValue::getTypeAsString, HandleValue::getDataAsString));
+    }
+
+    @Test
+    void updatesWithModifiersSeeTheRecordAsGiven() throws HandleException {
+        values.put(100, new HandleValue(100, "HS_ADMIN", ""));
+        values.put(1, new HandleValue(1, LOCATION, "https://example.com/old"));
+        HandleProtocolAdapter adapter = adapterWithRedirect();
+
+        PIDRecord pidRecord = new PIDRecord().withPID(PID);
+        pidRecord.addEntry(LOCATION, "https://example.com/new");
+        List<PIDRecord> seen = new ArrayList<>();
+        boolean updated = adapter.updatePid(pidRecord, existingRecord -> {
+            seen.add(existingRecord);
+            // the redirect is only added afterwards
+            assertFalse(pidRecord.hasProperty("URL"));
+        });
+
+        assertTrue(updated);
+        assertEquals(1, seen.size());
+        assertEquals("https://example.com/old", seen.getFirst().getPropertyValue(LOCATION));
+        Map<String, String> registered = valuesByType();
+        assertEquals("https://example.com/new", registered.get(LOCATION));
+        assertEquals("https://example.com/new", registered.get("URL"));
+        assertTrue(registered.containsKey("HS_ADMIN"));
+    }
+
+    @Test
+    void failingPreconditionsPreventTheUpdate() throws HandleException {
+        values.put(100, new HandleValue(100, "HS_ADMIN", ""));
+        values.put(1, new HandleValue(1, LOCATION, "https://example.com/old"));
+        HandleProtocolAdapter adapter = adapterWithRedirect();
+
+        PIDRecord pidRecord = new PIDRecord().withPID(PID);
+        pidRecord.addEntry(LOCATION, "https://example.com/new");
+        assertThrows(IllegalStateException.class, () -> adapter.updatePid(pidRecord, existingRecord -> {
+            throw new IllegalStateException("precondition failed");
+        }));
+        assertEquals("https://example.com/old", valuesByType().get(LOCATION));
+        assertFalse(valuesByType().containsKey("URL"));
+    }
+}
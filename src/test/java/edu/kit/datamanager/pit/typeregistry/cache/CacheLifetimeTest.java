@@ -0,0 +1,83 @@
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheLifetimeTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicBoolean registryDown = new AtomicBoolean();
+
+    private AsyncLoadingCache<String, Integer> cacheWith(CacheLifetime lifetime) {
+        return Caffeine.newBuilder()
+                .ticker(nanos::get)
+                .executor(Runnable::run)
+                .refreshAfterWrite(lifetime.refreshAfterWrite())
+                .expireAfterWrite(lifetime.expireAfterWrite())
+                .buildAsync(key -> {
+                    if (registryDown.get()) {
+                        throw new IllegalStateException("registry down");
+                    }
+                    return loads.incrementAndGet();
+                });
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private double staleHits() {
+        return registry.counter(CacheLifetime.STALE_HITS_METRIC, "cache", "test").count();
+    }
+
+    @Test
+    void withoutStalenessEntriesExpireAfterLifetime() {
+        CacheLifetime lifetime = new CacheLifetime("test", 10, 0, registry);
+        assertFalse(lifetime.servesStale());
+        assertEquals(Duration.ofMinutes(10), lifetime.expireAfterWrite());
+        AsyncLoadingCache<String, Integer> cache = cacheWith(lifetime);
+
+        assertEquals(1, cache.get("a").join());
+        advance(Duration.ofMinutes(11));
+        registryDown.set(true);
+        lifetime.recordLookup(cache, "a");
+        assertThrows(Exception.class, () -> cache.get("a").join());
+        assertEquals(0, staleHits());
+    }
+
+    @Test
+    void staleEntriesAreServedAndKeptOnFailingRefresh() {
+        CacheLifetime lifetime = new CacheLifetime("test", 10, 60, registry);
+        assertTrue(lifetime.servesStale());
+        assertEquals(Duration.ofMinutes(70), lifetime.expireAfterWrite());
+        AsyncLoadingCache<String, Integer> cache = cacheWith(lifetime);
+
+        assertEquals(1, cache.get("a").join());
+        advance(Duration.ofMinutes(11));
+        registryDown.set(true);
+        lifetime.recordLookup(cache, "a");
+        assertEquals(1, cache.get("a").join());
+        lifetime.recordLookup(cache, "a");
+        assertEquals(1, cache.get("a").join());
+        assertEquals(2, staleHits());
+
+        registryDown.set(false);
+        lifetime.recordLookup(cache, "a");
+        cache.get("a").join();
+        // the refresh ran synchronously on access, so the entry is fresh again
+        assertEquals(2, cache.get("a").join());
+        lifetime.recordLookup(cache, "a");
+        assertEquals(3, staleHits());
+    }
+}
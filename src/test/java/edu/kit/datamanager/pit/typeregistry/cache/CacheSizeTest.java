@@ -0,0 +1,80 @@
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSizeTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RegistryCaches caches = new RegistryCaches(meterRegistry);
+
+    private static String text(int length) {
+        return "x".repeat(length);
+    }
+
+    private double weightedSize(String cacheName) {
+        return meterRegistry.get(RegistryCaches.WEIGHTED_SIZE_METRIC).tag("cache", cacheName).gauge().value();
+    }
+
+    @Test
+    void byteBudgetBoundsTheEstimatedRetainedSize() {
+        AsyncCache<String, String> cache = caches.register("bytes", CacheSize
+                .<String>newBuilder(1000, 10_000, String::length)
+                .executor(Runnable::run)
+                .buildAsync());
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, CompletableFuture.completedFuture(text(1000)));
+        }
+        cache.synchronous().cleanUp();
+
+        double weightedSize = weightedSize("bytes");
+        assertTrue(weightedSize <= 10_000, "weighted size " + weightedSize + " exceeds the budget");
+        assertTrue(weightedSize > 1000, "weighted size " + weightedSize + " does not count the values");
+        assertTrue(cache.synchronous().estimatedSize() < 10);
+    }
+
+    @Test
+    void withoutByteBudgetEntriesAreCounted() {
+        AsyncCache<String, String> cache = caches.register("entries", CacheSize
+                .<String>newBuilder(5, 0, String::length)
+                .executor(Runnable::run)
+                .buildAsync());
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, CompletableFuture.completedFuture(text(1000)));
+        }
+        cache.synchronous().cleanUp();
+
+        assertEquals(5, cache.synchronous().estimatedSize());
+        assertEquals(5, weightedSize("entries"));
+    }
+
+    @Test
+    void largerSchemasWeighMore() {
+        JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
+        long small = CacheSize.ofSchema(factory.getSchema("{\"type\": \"string\"}"));
+        long large = CacheSize.ofSchema(factory.getSchema(
+                "{\"type\": \"string\", \"pattern\": \"^" + text(500) + "$\", \"maxLength\": 1000}"));
+        assertTrue(small > "{\"type\":\"string\"}".length());
+        assertTrue(large > small);
+        assertEquals(0, CacheSize.ofSchema(null));
+    }
+
+    @Test
+    void schemasAreEstimatedOnce() {
+        JsonSchemaFactory factory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
+        JsonSchema schema = factory.getSchema("{\"type\": \"string\"}");
+        long estimate = CacheSize.ofSchema(schema);
+        // the document is not serialized again, so later changes do not affect the estimate
+        ((ObjectNode) schema.getSchemaNode()).put("pattern", text(500));
+        assertEquals(estimate, CacheSize.ofSchema(schema));
+    }
+}
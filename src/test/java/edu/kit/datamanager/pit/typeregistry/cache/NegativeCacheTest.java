@@ -0,0 +1,39 @@
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import edu.kit.datamanager.pit.common.TypeNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private double count(String result) {
+        return meterRegistry.get(NegativeCache.NOT_FOUND_METRIC)
+                .tags("cache", "test", "result", result)
+                .counter().count();
+    }
+
+    @Test
+    void outcomesAreCountedInTheRegistryOfTheCaches() {
+        NegativeCache notFound = new NegativeCache("test", 60, 10, new RegistryCaches(meterRegistry));
+        notFound.put("21.T11148/unknown", new TypeNotFoundException("21.T11148/unknown"));
+
+        assertTrue(notFound.get("21.T11148/unknown").isPresent());
+        assertTrue(notFound.get("21.T11148/other").isEmpty());
+        assertEquals(1, count("stored"));
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void disabledCacheRemembersNothing() {
+        NegativeCache notFound = new NegativeCache("test", 0, 10, new RegistryCaches(meterRegistry));
+        notFound.put("21.T11148/unknown", new TypeNotFoundException("21.T11148/unknown"));
+
+        assertFalse(notFound.contains("21.T11148/unknown"));
+        assertTrue(notFound.get("21.T11148/unknown").isEmpty());
+        assertEquals(0, count("stored"));
+    }
+}
@@ -0,0 +1,99 @@
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistryCachesEndpointTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RegistryCachesEndpoint endpoint;
+    private AsyncLoadingCache<String, String> cache;
+
+    @BeforeEach
+    void setup() {
+        RegistryCaches caches = new RegistryCaches(meterRegistry);
+        cache = caches.register("test", Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .recordStats()
+                .buildAsync((key, executor) -> CompletableFuture.completedFuture(key.toUpperCase())));
+        endpoint = new RegistryCachesEndpoint(caches);
+    }
+
+    @Test
+    void statisticsAreExportedAndListed() {
+        cache.get("21.T11148/a").join();
+        cache.get("21.T11148/a").join();
+
+        RegistryCachesEndpoint.CacheDescriptor descriptor = endpoint.caches().get("test");
+        assertEquals(1, descriptor.estimatedSize());
+        assertEquals(1, descriptor.hitCount());
+        assertEquals(1, descriptor.missCount());
+        assertEquals(1, descriptor.loadCount());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.size").tag("cache", "test").gauge().value());
+    }
+
+    @Test
+    void entriesAreListedWithTheirAgeAndExpiration() {
+        cache.get("21.T11148/b").join();
+        cache.get("21.T11148/a").join();
+
+        List<RegistryCachesEndpoint.EntryDescriptor> entries = endpoint.entries("test");
+        assertEquals(List.of("21.T11148/a", "21.T11148/b"), entries.stream().map(RegistryCachesEndpoint.EntryDescriptor::key).toList());
+        entries.forEach(entry -> assertEquals(0L, entry.ageSeconds()));
+        entries.forEach(entry -> assertTrue(entry.expiresInSeconds() > 590 && entry.expiresInSeconds() <= 600));
+    }
+
+    @Test
+    void restoredEntriesAreAsOldAsTheirResponse() {
+        RegistryCaches caches = new RegistryCaches(meterRegistry);
+        CacheLifetime lifetime = new CacheLifetime("restored", 10, 0, meterRegistry);
+        caches.register("restored", Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .expireAfter(lifetime.<String>expiry(key -> Optional.of(Instant.now().minus(Duration.ofMinutes(2)))))
+                .buildAsync((key, executor) -> CompletableFuture.completedFuture(key.toUpperCase())), lifetime)
+                .get("21.T11148/a").join();
+
+        RegistryCachesEndpoint.EntryDescriptor entry = new RegistryCachesEndpoint(caches).entries("restored").getFirst();
+        assertTrue(entry.ageSeconds() >= 119 && entry.ageSeconds() <= 121);
+        assertTrue(entry.expiresInSeconds() >= 479 && entry.expiresInSeconds() <= 480);
+    }
+
+    @Test
+    void singleEntryIsInvalidated() {
+        cache.get("21.T11148/a").join();
+        cache.get("21.T11148/b").join();
+
+        RegistryCachesEndpoint.CacheDescriptor descriptor = endpoint.invalidate("test", "21.T11148/a");
+        assertEquals(1, descriptor.estimatedSize());
+        assertNull(cache.getIfPresent("21.T11148/a"));
+        assertNotNull(cache.getIfPresent("21.T11148/b"));
+    }
+
+    @Test
+    void wholeCacheIsInvalidated() {
+        cache.get("21.T11148/a").join();
+        cache.get("21.T11148/b").join();
+
+        assertEquals(0, endpoint.invalidate("test", null).estimatedSize());
+        assertTrue(endpoint.entries("test").isEmpty());
+    }
+
+    @Test
+    void unknownCacheIsNotFound() {
+        assertNull(endpoint.entries("unknown"));
+        assertNull(endpoint.invalidate("unknown", null));
+    }
+}
@@ -0,0 +1,128 @@
+package edu.kit.datamanager.pit.typeregistry.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.typeregistry.RegisteredProfile;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
+import edu.kit.datamanager.pit.typeregistry.impl.TypeApi;
+import edu.kit.datamanager.pit.typeregistry.schema.SchemaSetGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistryResponseStoreTest {
+
+    private static final String PROFILE_PID = "21.T11148/b9b76f887845e32d29f7";
+    private static final String ATTRIBUTE_PID = "21.T11148/076759916209e5d62bd5";
+    private static final String PROFILE_RESPONSE = """
+            {"content": {"properties": [
+                {"pid": "%s", "representationsAndSemantics": [{"obligation": "Mandatory", "repeatable": "No"}]}
+            ]}}
+            """.formatted(ATTRIBUTE_PID);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void persistAndLoadRoundtrip() {
+        Path snapshot = tempDir.resolve("snapshot.json");
+        RegistryResponseStore store = new RegistryResponseStore(snapshot);
+        store.put("profiles", PROFILE_PID, PROFILE_RESPONSE);
+        store.persist();
+        assertTrue(Files.isRegularFile(snapshot));
+
+        RegistryResponseStore loaded = new RegistryResponseStore(snapshot);
+        StoredResponse response = loaded.get("profiles", PROFILE_PID).orElseThrow();
+        assertEquals(PROFILE_RESPONSE, response.body());
+        assertEquals(store.get("profiles", PROFILE_PID).orElseThrow().fetchedAt(), response.fetchedAt());
+    }
+
+    @Test
+    void disabledStoreKeepsNothing() {
+        RegistryResponseStore store = RegistryResponseStore.disabled();
+        store.put("profiles", PROFILE_PID, PROFILE_RESPONSE);
+        assertFalse(store.isEnabled());
+        assertTrue(store.get("profiles", PROFILE_PID).isEmpty());
+        assertDoesNotThrow(store::persist);
+    }
+
+    @Test
+    void unreadableSnapshotIsIgnored() throws Exception {
+        Path snapshot = tempDir.resolve("snapshot.json");
+        Files.writeString(snapshot, "{ not json");
+        RegistryResponseStore store = new RegistryResponseStore(snapshot);
+        assertTrue(store.region("profiles").isEmpty());
+    }
+
+    @Test
+    void typeApiRestoresProfileWithoutRegistry() throws Exception {
+        Path snapshot = tempDir.resolve("snapshot.json");
+        RegistryResponseStore previousRun = new RegistryResponseStore(snapshot);
+        previousRun.put("profiles", PROFILE_PID, PROFILE_RESPONSE);
+        previousRun.persist();
+
+        ApplicationProperties props = new ApplicationProperties();
+        props.setCacheExpireAfterWriteLifetime(10);
+        props.setCacheMaxEntries(1000);
+        // nothing listens here, so any request to the registry would fail
+        props.setTypeRegistryUri(new URI("http://localhost:1").toURL());
+        props.setHandleBaseUri(new URI("http://localhost:1").toURL());
+        RegistryResponseStore store = new RegistryResponseStore(snapshot);
+        TypeApi typeApi = new TypeApi(props, new SchemaSetGenerator(props, store, RegistryHttpClients.withDefaults()), store, RegistryHttpClients.withDefaults());
+
+        RegisteredProfile profile = typeApi.queryAsProfile(PROFILE_PID).get(10, TimeUnit.SECONDS);
+        assertEquals(PROFILE_PID, profile.pid());
+        assertEquals(1, profile.attributes().items().size());
+        assertEquals(ATTRIBUTE_PID, profile.attributes().items().getFirst().pid());
+        assertTrue(profile.attributes().items().getFirst().mandatory());
+    }
+
+    @Test
+    void restoredEntriesExpireWithTheirResponse() {
+        CacheLifetime lifetime = new CacheLifetime("restored", 10, 0, new SimpleMeterRegistry());
+        // stands in for the fetch times of the stored responses
+        Map<String, Instant> fetchedAt = new ConcurrentHashMap<>();
+        AsyncLoadingCache<String, String> cache = Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .refreshAfterWrite(lifetime.refreshAfterWrite())
+                .expireAfter(lifetime.<String>expiry(key -> Optional.ofNullable(fetchedAt.get(key))))
+                .buildAsync(key -> {
+                    fetchedAt.put(key, Instant.now());
+                    return "loaded";
+                });
+
+        // expired responses are not restored at all
+        Instant expired = Instant.now().minus(Duration.ofMinutes(11));
+        fetchedAt.put("expired", expired);
+        assertFalse(RegistryResponseStore.restore(cache, "expired", expired, () -> "restored", Runnable::run, lifetime));
+        assertNull(cache.getIfPresent("expired"));
+
+        // others only live for the rest of their lifetime
+        Instant old = Instant.now().minus(Duration.ofMinutes(4));
+        fetchedAt.put("restored", old);
+        assertTrue(RegistryResponseStore.restore(cache, "restored", old, () -> "restored", Runnable::run, lifetime));
+        assertEquals("restored", cache.synchronous().getIfPresent("restored"));
+        Duration expiresAfter = cache.synchronous().policy().expireVariably().orElseThrow()
+                .getExpiresAfter("restored").orElseThrow();
+        assertTrue(expiresAfter.compareTo(Duration.ofMinutes(6)) <= 0, "expires after " + expiresAfter);
+        assertTrue(expiresAfter.compareTo(Duration.ofMinutes(5)) > 0, "expires after " + expiresAfter);
+        assertTrue(lifetime.ageOf(cache, "restored").orElseThrow().compareTo(Duration.ofMinutes(4)) >= 0);
+
+        // loaded entries live for the whole lifetime
+        cache.get("fresh").join();
+        assertTrue(lifetime.ageOf(cache, "fresh").orElseThrow().compareTo(Duration.ofMinutes(1)) < 0);
+    }
+}
@@ -0,0 +1,126 @@
+package edu.kit.datamanager.pit.typeregistry.http;
+
+import com.sun.net.httpserver.HttpServer;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.typeregistry.resilience.UpstreamGuards;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistryHttpClientsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private volatile long delayMillis = 0;
+    private HttpServer server;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            byte[] body = "{}".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void teardown() {
+        server.stop(0);
+    }
+
+    private RestClient client(ApplicationProperties props) {
+        return new RegistryHttpClients(props, UpstreamGuards.disabled(), registry)
+                .create("test-route", "http://localhost:" + server.getAddress().getPort());
+    }
+
+    private String call(RestClient client) {
+        return client.get().uri("/some/path").retrieve().body(String.class);
+    }
+
+    @Test
+    void requestsAreTimedPerHostAndRoute() {
+        RestClient client = client(new ApplicationProperties());
+        assertEquals("{}", call(client));
+        assertEquals("{}", call(client));
+
+        Timer timer = registry.find(RegistryHttpClients.REQUESTS_METRIC)
+                .tag("host", "localhost:" + server.getAddress().getPort())
+                .tag("route", "test-route")
+                .tag("status", "200")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    void concurrentRequestsPerHostAreLimited() {
+        delayMillis = 100;
+        ApplicationProperties props = new ApplicationProperties();
+        props.setHttpMaxConnectionsPerHost(2);
+        RestClient client = client(props);
+
+        List<CompletableFuture<String>> calls = IntStream.range(0, 6)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> call(client), Executors.newVirtualThreadPerTaskExecutor()))
+                .toList();
+        calls.forEach(call -> assertEquals("{}", call.join()));
+        assertTrue(maxRunning.get() <= 2, "max concurrent requests: " + maxRunning.get());
+    }
+
+    @Test
+    void localContentionDoesNotCountAsUpstreamFailure() {
+        delayMillis = 150;
+        ApplicationProperties props = new ApplicationProperties();
+        props.setHttpMaxConnectionsPerHost(1);
+        props.setHttpReadTimeoutMillis(250);
+        UpstreamGuards guards = new UpstreamGuards(props, registry);
+        RestClient client = new RegistryHttpClients(props, guards, registry)
+                .create("test-route", "http://localhost:" + server.getAddress().getPort());
+
+        List<CompletableFuture<String>> calls = IntStream.range(0, 5)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> call(client), Executors.newVirtualThreadPerTaskExecutor()))
+                .toList();
+        long rejected = calls.stream()
+                .filter(call -> call.handle((body, e) -> e != null).join())
+                .count();
+        assertTrue(rejected > 0, "no request had to wait for too long");
+        CircuitBreaker circuitBreaker = guards.circuitBreakers().iterator().next();
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+        assertEquals(5 - rejected, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    void slowResponsesTimeOut() {
+        delayMillis = 1000;
+        ApplicationProperties props = new ApplicationProperties();
+        props.setHttpReadTimeoutMillis(200);
+        RestClient client = client(props);
+        assertThrows(ResourceAccessException.class, () -> call(client));
+    }
+}
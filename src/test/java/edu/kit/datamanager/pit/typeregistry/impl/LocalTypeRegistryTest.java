@@ -0,0 +1,113 @@
+package edu.kit.datamanager.pit.typeregistry.impl;
+
+import edu.kit.datamanager.pit.common.InvalidConfigException;
+import edu.kit.datamanager.pit.common.TypeNotFoundException;
+import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
+import edu.kit.datamanager.pit.typeregistry.ITypeRegistry;
+import edu.kit.datamanager.pit.typeregistry.RegisteredProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTypeRegistryTest {
+
+    private static final String PROFILE_PID = "21.T11148/b9b76f887845e32d29f7";
+    private static final String ATTRIBUTE_PID = "21.T11148/b8457812905b83046284";
+    private static final String PROFILE = """
+            {"name": "Some Profile", "type": "PID-InfoType", "content": {"properties": [
+                {"pid": "%s", "representationsAndSemantics": [{"obligation": "Mandatory", "repeatable": "No"}]}
+            ]}}
+            """.formatted(ATTRIBUTE_PID);
+    private static final String ATTRIBUTE = """
+            {"name": "digitalObjectLocation", "type": "PID-BasicInfoType"}
+            """;
+    private static final String SCHEMA = """
+            {"$schema": "https://json-schema.org/draft/2020-12/schema", "type": "string", "format": "uri"}
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private Path createDirectory() throws IOException {
+        Path root = tempDir.resolve("registry");
+        Files.createDirectories(root.resolve("types"));
+        Files.createDirectories(root.resolve("schemas"));
+        Files.writeString(root.resolve("types/21.T11148_b9b76f887845e32d29f7.json"), PROFILE);
+        Files.writeString(root.resolve("types/21.T11148_b8457812905b83046284.json"), ATTRIBUTE);
+        Files.writeString(root.resolve("schemas/21.T11148_b8457812905b83046284.json"), SCHEMA);
+        return root;
+    }
+
+    @Test
+    void servesTypesFromDirectory() throws IOException {
+        ITypeRegistry registry = new LocalTypeRegistry(createDirectory());
+
+        RegisteredProfile profile = registry.queryAsProfile(PROFILE_PID).join();
+        assertEquals(1, profile.attributes().items().size());
+        assertEquals(ATTRIBUTE_PID, profile.attributes().items().getFirst().pid());
+
+        AttributeInfo attribute = registry.queryAttributeInfo(ATTRIBUTE_PID).join();
+        assertEquals("digitalObjectLocation", attribute.name());
+        assertEquals("PID-BasicInfoType", attribute.typeName());
+        assertTrue(attribute.validate("https://example.com"));
+        assertFalse(attribute.validate("not a uri"));
+    }
+
+    @Test
+    void servesTypesFromArchive() throws IOException {
+        Path directory = createDirectory();
+        Path archive = tempDir.resolve("registry.zip");
+        try (OutputStream out = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String file : new String[]{
+                    "types/21.T11148_b9b76f887845e32d29f7.json",
+                    "types/21.T11148_b8457812905b83046284.json",
+                    "schemas/21.T11148_b8457812905b83046284.json"}) {
+                zip.putNextEntry(new ZipEntry(file));
+                zip.write(Files.readString(directory.resolve(file)).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        ITypeRegistry registry = new LocalTypeRegistry(archive);
+        assertEquals(PROFILE_PID, registry.queryAsProfile(PROFILE_PID).join().pid());
+        assertTrue(registry.queryAttributeInfo(ATTRIBUTE_PID).join().validate("https://example.com"));
+    }
+
+    @Test
+    void unknownTypeFails() throws IOException {
+        ITypeRegistry registry = new LocalTypeRegistry(createDirectory());
+        CompletionException e = assertThrows(
+                CompletionException.class,
+                () -> registry.queryAttributeInfo("21.T11148/unknown").join());
+        assertInstanceOf(TypeNotFoundException.class, e.getCause());
+    }
+
+    @Test
+    void missingSourceFails() {
+        Path missing = tempDir.resolve("missing");
+        assertThrows(InvalidConfigException.class, () -> new LocalTypeRegistry(missing));
+    }
+
+    @Test
+    void fallbackIsOnlyAskedForUnknownTypes() throws IOException {
+        Path other = tempDir.resolve("other");
+        Files.createDirectories(other.resolve("types"));
+        Files.writeString(other.resolve("types/21.T11148_other.json"), ATTRIBUTE);
+
+        ITypeRegistry registry = new FallbackTypeRegistry(
+                new LocalTypeRegistry(createDirectory()),
+                new LocalTypeRegistry(other));
+        assertEquals(ATTRIBUTE_PID, registry.queryAttributeInfo(ATTRIBUTE_PID).join().pid());
+        assertEquals("21.T11148/other", registry.queryAttributeInfo("21.T11148/other").join().pid());
+        assertThrows(CompletionException.class, () -> registry.queryAttributeInfo("21.T11148/unknown").join());
+    }
+}
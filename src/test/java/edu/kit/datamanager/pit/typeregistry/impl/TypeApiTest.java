@@ -1,13 +1,30 @@
     package edu.kit.datamanager.pit.typeregistry.impl;
 
+import com.sun.net.httpserver.HttpServer;
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.common.TypeNotFoundException;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
 import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
 import edu.kit.datamanager.pit.typeregistry.schema.SchemaSetGenerator;
 import org.junit.jupiter.api.Test;
 
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,4 +64,264 @@ class TypeApiTest {
         assertTrue(info.name().contains("checksum"));
         assertEquals("PID-InfoType", info.typeName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void typeDocumentAndSchemasAreFetchedConcurrently() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body;
+            if (path.startsWith("/v1/types/schema/")) {
+                body = "{\"type\": \"string\"}".getBytes(StandardCharsets.UTF_8);
+            } else if (path.startsWith("/v1/types/")) {
+                body = "{\"name\": \"someAttribute\", \"type\": \"PID-BasicInfoType\"}".getBytes(StandardCharsets.UTF_8);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            try {
+                Thread.sleep(400);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            ApplicationProperties props = new ApplicationProperties();
+            props.setCacheExpireAfterWriteLifetime(10);
+            props.setCacheMaxEntries(1000);
+            URL local = new URI("http://localhost:" + server.getAddress().getPort() + "/").toURL();
+            props.setTypeRegistryUri(local);
+            props.setHandleBaseUri(local);
+            TypeApi typeApi = new TypeApi(props, new SchemaSetGenerator(props));
+
+            long start = System.nanoTime();
+            AttributeInfo info = typeApi.queryAttributeInfo("21.T11148/test").get(5, TimeUnit.SECONDS);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertEquals("someAttribute", info.name());
+            assertTrue(info.validate("\"a string\""));
+            assertTrue(millis < 750, "took " + millis + " ms");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void unknownTypesAreRememberedButServerErrorsAreNot() throws Exception {
+        AtomicInteger typeRequests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/v1/types/") && !path.startsWith("/v1/types/schema/")) {
+                typeRequests.incrementAndGet();
+            }
+            int status = path.endsWith("/broken") ? 500 : path.endsWith("/limited") ? 429 : 404;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            ApplicationProperties props = new ApplicationProperties();
+            props.setCacheExpireAfterWriteLifetime(10);
+            props.setCacheMaxEntries(1000);
+            URL local = new URI("http://localhost:" + server.getAddress().getPort() + "/").toURL();
+            props.setTypeRegistryUri(local);
+            props.setHandleBaseUri(local);
+            TypeApi typeApi = new TypeApi(props, new SchemaSetGenerator(props));
+
+            for (int i = 0; i < 3; i++) {
+                ExecutionException e = assertThrows(ExecutionException.class,
+                        () -> typeApi.queryAttributeInfo("21.T11148/unknown").get(5, TimeUnit.SECONDS));
+                assertInstanceOf(TypeNotFoundException.class, e.getCause());
+            }
+            assertEquals(1, typeRequests.get());
+
+            for (int i = 0; i < 2; i++) {
+                ExecutionException e = assertThrows(ExecutionException.class,
+                        () -> typeApi.queryAsProfile("21.T11148/broken").get(5, TimeUnit.SECONDS));
+                assertInstanceOf(ExternalServiceException.class, e.getCause());
+            }
+            assertEquals(3, typeRequests.get());
+
+            // rate limits are no statement about the PID either
+            for (int i = 0; i < 2; i++) {
+                ExecutionException e = assertThrows(ExecutionException.class,
+                        () -> typeApi.queryAttributeInfo("21.T11148/limited").get(5, TimeUnit.SECONDS));
+                assertInstanceOf(ExternalServiceException.class, e.getCause());
+            }
+            assertEquals(5, typeRequests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void refreshOfUnchangedTypeDoesNotDownloadItAgain() throws Exception {
+        AtomicInteger fullResponses = new AtomicInteger();
+        AtomicInteger notModified = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/types/", exchange -> {
+            if (exchange.getRequestURI().getPath().startsWith("/v1/types/schema/")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] body = "{\"name\": \"someAttribute\", \"type\": \"PID-BasicInfoType\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            ApplicationProperties props = new ApplicationProperties();
+            props.setCacheExpireAfterWriteLifetime(10);
+            props.setCacheMaxEntries(1000);
+            URL local = new URI("http://localhost:" + server.getAddress().getPort() + "/").toURL();
+            props.setTypeRegistryUri(local);
+            props.setHandleBaseUri(local);
+            TypeApi typeApi = new TypeApi(props, new SchemaSetGenerator(props));
+
+            String attributePid = "21.T11148/test";
+            AttributeInfo before = typeApi.queryAttributeInfo(attributePid).get(5, TimeUnit.SECONDS);
+            AttributeInfo after = typeApi.attributeCache.synchronous().refresh(attributePid).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, fullResponses.get());
+            assertEquals(1, notModified.get());
+            assertEquals(before.name(), after.name());
+            assertEquals(before.typeName(), after.typeName());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void attributesOfLoadedProfileArePrefetched() throws Exception {
+        Set<String> requestedAttributes = ConcurrentHashMap.newKeySet();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String body;
+            if (path.equals("/v1/types/21.T11148/profile")) {
+                body = """
+                        {"name": "profile", "content": {"properties": [
+                            {"pid": "21.T11148/a", "representationsAndSemantics": [{"obligation": "Mandatory", "repeatable": "No"}]},
+                            {"pid": "21.T11148/b", "representationsAndSemantics": [{"obligation": "Optional", "repeatable": "No"}]},
+                            {"pid": "21.T11148/c", "representationsAndSemantics": [{"obligation": "Optional", "repeatable": "Yes"}]}
+                        ]}}""";
+            } else if (path.startsWith("/v1/types/schema/")) {
+                body = "{\"type\": \"string\"}";
+            } else if (path.startsWith("/v1/types/")) {
+                requestedAttributes.add(path.substring("/v1/types/".length()));
+                body = "{\"name\": \"someAttribute\", \"type\": \"PID-BasicInfoType\"}";
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        try {
+            ApplicationProperties props = new ApplicationProperties();
+            props.setCacheExpireAfterWriteLifetime(10);
+            props.setCacheMaxEntries(1000);
+            props.setCachePrefetchProfileAttributes(true);
+            URL local = new URI("http://localhost:" + server.getAddress().getPort() + "/").toURL();
+            props.setTypeRegistryUri(local);
+            props.setHandleBaseUri(local);
+            TypeApi typeApi = new TypeApi(props, new SchemaSetGenerator(props));
+
+            typeApi.queryAsProfile("21.T11148/profile").get(5, TimeUnit.SECONDS);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            // in-flight loads are counted as entries already, so wait until they are done
+            while ((typeApi.attributeCache.asMap().size() < 3
+                    || !typeApi.attributeCache.asMap().values().stream().allMatch(CompletableFuture::isDone))
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(Set.of("21.T11148/a", "21.T11148/b", "21.T11148/c"), requestedAttributes);
+            assertTrue(typeApi.queryAttributeInfo("21.T11148/b").isDone());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void bulkQueriesLoadEachMissingAttributeOnceAndAFewAtATime() throws Exception {
+        Set<String> requestedAttributes = ConcurrentHashMap.newKeySet();
+        AtomicInteger attributeRequests = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            String body;
+            if (path.startsWith("/v1/types/schema/")) {
+                body = "{\"type\": \"string\"}";
+            } else if (path.startsWith("/v1/types/") && !path.endsWith("/unknown")) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                requestedAttributes.add(path.substring("/v1/types/".length()));
+                attributeRequests.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                body = "{\"name\": \"someAttribute\", \"type\": \"PID-BasicInfoType\"}";
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        try {
+            ApplicationProperties props = new ApplicationProperties();
+            props.setCacheExpireAfterWriteLifetime(10);
+            props.setCacheMaxEntries(1000);
+            URL local = new URI("http://localhost:" + server.getAddress().getPort() + "/").toURL();
+            props.setTypeRegistryUri(local);
+            props.setHandleBaseUri(local);
+            TypeApi typeApi = new TypeApi(props, new SchemaSetGenerator(props));
+
+            List<String> attributePids = IntStream.range(0, 10)
+                    .mapToObj(i -> "21.T11148/attribute" + i)
+                    .toList();
+            List<String> withDuplicates = new ArrayList<>(attributePids);
+            withDuplicates.addAll(attributePids);
+            Map<String, AttributeInfo> attributes = typeApi.queryAttributeInfos(withDuplicates).get(10, TimeUnit.SECONDS);
+            assertEquals(attributePids, List.copyOf(attributes.keySet()));
+            assertEquals(Set.copyOf(attributePids), requestedAttributes);
+            assertEquals(attributePids.size(), attributeRequests.get());
+            assertTrue(maxRunning.get() <= TypeApi.MAX_PARALLEL_LOADS, "at most %d loads at a time, but were %d"
+                    .formatted(TypeApi.MAX_PARALLEL_LOADS, maxRunning.get()));
+
+            List<String> withUnknown = new ArrayList<>(attributePids);
+            withUnknown.add("21.T11148/unknown");
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> typeApi.queryAttributeInfos(withUnknown).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(TypeNotFoundException.class, e.getCause());
+            assertEquals(attributePids.size(), attributeRequests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package edu.kit.datamanager.pit.typeregistry.resilience;
+
+import com.sun.net.httpserver.HttpServer;
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.SimpleStatusAggregator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamGuardsTest {
+
+    private static final int WINDOW_SIZE = 4;
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 500;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void teardown() {
+        server.stop(0);
+    }
+
+    private UpstreamGuards guards() {
+        ApplicationProperties props = new ApplicationProperties();
+        props.setUpstreamSlidingWindowSize(WINDOW_SIZE);
+        props.setUpstreamOpenStateSeconds(60);
+        return new UpstreamGuards(props, new SimpleMeterRegistry());
+    }
+
+    private RestClient client(UpstreamGuards guards) {
+        return RestClient.builder()
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .requestInterceptor(guards.interceptorFor("test-upstream"))
+                .build();
+    }
+
+    private int call(RestClient client) {
+        return client.get().exchange((request, response) -> response.getStatusCode().value());
+    }
+
+    @Test
+    void opensAfterFailuresAndRejectsWithoutRequest() {
+        UpstreamGuards guards = guards();
+        RestClient client = client(guards);
+        UpstreamHealthIndicator health = new UpstreamHealthIndicator(guards);
+
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            assertEquals(500, call(client));
+        }
+        assertEquals(WINDOW_SIZE, requests.get());
+        assertEquals(UpstreamHealthIndicator.DEGRADED, health.health().getStatus());
+        // does not take the whole application down
+        assertEquals(Status.UP, new SimpleStatusAggregator().getAggregateStatus(Status.UP, health.health().getStatus()));
+
+        status = 200;
+        assertThrows(ExternalServiceException.class, () -> call(client));
+        assertEquals(WINDOW_SIZE, requests.get());
+    }
+
+    @Test
+    void clientsOfAnUpstreamShareOneInterceptor() {
+        UpstreamGuards guards = guards();
+        assertSame(guards.interceptorFor("test-upstream"), guards.interceptorFor("test-upstream"));
+        assertNotSame(guards.interceptorFor("test-upstream"), guards.interceptorFor("other-upstream"));
+    }
+
+    @Test
+    void clientErrorsDoNotOpen() {
+        status = 404;
+        UpstreamGuards guards = guards();
+        RestClient client = client(guards);
+        for (int i = 0; i < 2 * WINDOW_SIZE; i++) {
+            assertEquals(404, call(client));
+        }
+        assertEquals(2 * WINDOW_SIZE, requests.get());
+        assertEquals(Status.UP, new UpstreamHealthIndicator(guards).health().getStatus());
+    }
+
+    @Test
+    void disabledGuardsPassEverything() {
+        UpstreamGuards guards = UpstreamGuards.disabled();
+        RestClient client = client(guards);
+        for (int i = 0; i < 2 * WINDOW_SIZE; i++) {
+            assertEquals(500, call(client));
+        }
+        assertEquals(2 * WINDOW_SIZE, requests.get());
+        assertEquals(Status.UNKNOWN, new UpstreamHealthIndicator(guards).health().getStatus());
+    }
+}
@@ -0,0 +1,70 @@
+package edu.kit.datamanager.pit.typeregistry.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.SpecVersion;
+import edu.kit.datamanager.pit.Application;
+import edu.kit.datamanager.pit.configuration.ApplicationProperties;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryResponseStore;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledSchemaStoreTest {
+
+    private static JsonNode json(String document) throws IOException {
+        return Application.jsonObjectMapper().readTree(document);
+    }
+
+    @Test
+    void equalSchemasAreCompiledOnce() throws IOException {
+        CompiledSchemaStore store = new CompiledSchemaStore();
+        JsonSchema first = store.getOrCompile(
+                SpecVersion.VersionFlag.V202012,
+                json("{\"type\": \"string\", \"pattern\": \"^[0-9]+$\"}"));
+        JsonSchema reordered = store.getOrCompile(
+                SpecVersion.VersionFlag.V202012,
+                json("{\"pattern\": \"^[0-9]+$\", \"type\": \"string\"}"));
+        assertSame(first, reordered);
+        assertEquals(1, store.size());
+        assertTrue(first.validate(json("\"123\"")).isEmpty());
+        assertFalse(first.validate(json("\"abc\"")).isEmpty());
+    }
+
+    @Test
+    void schemasDifferingInContentOrVersionAreNotShared() throws IOException {
+        CompiledSchemaStore store = new CompiledSchemaStore();
+        JsonSchema string = store.getOrCompile(SpecVersion.VersionFlag.V202012, json("{\"type\": \"string\"}"));
+        JsonSchema number = store.getOrCompile(SpecVersion.VersionFlag.V202012, json("{\"type\": \"number\"}"));
+        JsonSchema olderString = store.getOrCompile(SpecVersion.VersionFlag.V4, json("{\"type\": \"string\"}"));
+        assertNotSame(string, number);
+        assertNotSame(string, olderString);
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void unusableSchemasAreRejectedAndNotStored() throws IOException {
+        CompiledSchemaStore store = new CompiledSchemaStore();
+        JsonNode notASchema = json("\"just a string\"");
+        assertThrows(IOException.class, () -> store.getOrCompile(SpecVersion.VersionFlag.V202012, notASchema));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void generatorsShareCompiledSchemas() throws Exception {
+        ApplicationProperties props = new ApplicationProperties();
+        props.setTypeRegistryUri(new URI("http://localhost/").toURL());
+        CompiledSchemaStore store = new CompiledSchemaStore();
+        TypeApiSchemaGenerator generator = new TypeApiSchemaGenerator(
+                props, RegistryResponseStore.disabled(), RegistryHttpClients.withDefaults(), store);
+
+        SchemaInfo date = generator.schemaFromResponse("21.T11148/date", "{\"type\": \"string\", \"format\": \"date\"}");
+        SchemaInfo otherDate = generator.schemaFromResponse("21.T11148/otherDate", "{\"format\": \"date\", \"type\": \"string\"}");
+        assertNull(date.error());
+        assertSame(date.schema(), otherDate.schema());
+    }
+}
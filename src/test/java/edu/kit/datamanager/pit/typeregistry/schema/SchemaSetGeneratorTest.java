@@ -1,14 +1,28 @@
 package edu.kit.datamanager.pit.typeregistry.schema;
 
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.sun.net.httpserver.HttpServer;
+import edu.kit.datamanager.pit.common.ExternalServiceException;
+import edu.kit.datamanager.pit.common.TypeNotFoundException;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
 import edu.kit.datamanager.pit.typeregistry.AttributeInfo;
+import edu.kit.datamanager.pit.typeregistry.cache.RegistryResponseStore;
+import edu.kit.datamanager.pit.typeregistry.http.RegistryHttpClients;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -53,4 +67,151 @@ class SchemaSetGeneratorTest {
         assertTrue(attributeInfo.validate(example));
         assertFalse(attributeInfo.validate(counterexample));
     }
-}
\ No newline at end of file
+
+    @Test
+    void keepUsableSchemasReplacesFailuresOnly() {
+        JsonSchema schema = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012)
+                .getSchema("{\"type\": \"string\"}");
+        SchemaInfo usable = new SchemaInfo("origin", schema, null);
+        SchemaInfo failed = new SchemaInfo(usable.origin(), null, new ExternalServiceException(usable.origin(), "down"));
+        SchemaInfo otherFailed = new SchemaInfo("other", null, new ExternalServiceException("other", "down"));
+
+        Set<SchemaInfo> refreshed = SchemaSetGenerator.keepUsableSchemas(Set.of(usable), Set.of(failed, otherFailed));
+        assertEquals(Set.of(usable, otherFailed), refreshed);
+    }
+
+    private record DelayedGenerator(String origin, long delayMillis, boolean usable) implements SchemaGenerator {
+        @Override
+        public SchemaInfo generateSchema(String maybeTypePid) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return schemaFromResponse(maybeTypePid, "{\"type\": \"string\"}");
+        }
+
+        @Override
+        public SchemaInfo schemaFromResponse(String maybeTypePid, String responseBody) {
+            if (!usable) {
+                return new SchemaInfo(origin, null, new ExternalServiceException(origin, "no schema"));
+            }
+            return new SchemaInfo(origin, JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012).getSchema(responseBody), null);
+        }
+    }
+
+    private static SchemaSetGenerator generatorWith(boolean firstUsableWins, long timeoutMillis, SchemaGenerator... generators) {
+        ApplicationProperties props = new ApplicationProperties();
+        props.setCacheExpireAfterWriteLifetime(10);
+        props.setCacheMaxEntries(1000);
+        props.setSchemaSourceTimeoutMillis(timeoutMillis);
+        props.setSchemaFirstUsableWins(firstUsableWins);
+        return new SchemaSetGenerator(props, RegistryResponseStore.disabled(), Set.of(generators));
+    }
+
+    @Test
+    void sourcesAreQueriedConcurrently() {
+        SchemaSetGenerator sets = generatorWith(false, 5000,
+                new DelayedGenerator("a", 500, true),
+                new DelayedGenerator("b", 500, true));
+        long start = System.nanoTime();
+        Set<SchemaInfo> schemas = sets.generateFor("21.T11148/test").join();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(2, schemas.size());
+        assertTrue(millis < 900, "took " + millis + " ms");
+    }
+
+    @Test
+    void slowSourceTimesOut() {
+        SchemaSetGenerator sets = generatorWith(false, 200,
+                new DelayedGenerator("fast", 0, true),
+                new DelayedGenerator("slow", 2000, true));
+        Set<SchemaInfo> schemas = sets.generateFor("21.T11148/test").join();
+        SchemaInfo slow = schemas.stream().filter(info -> info.origin().equals("slow")).findFirst().orElseThrow();
+        assertNull(slow.schema());
+        assertInstanceOf(ExternalServiceException.class, slow.error());
+        assertTrue(schemas.stream().anyMatch(info -> info.origin().equals("fast") && info.error() == null));
+    }
+
+    @Test
+    void firstUsableSchemaWinsAndSlowerSourceIsAddedLater() throws Exception {
+        SchemaSetGenerator sets = generatorWith(true, 5000,
+                new DelayedGenerator("fast", 0, true),
+                new DelayedGenerator("slow", 500, true));
+        Set<SchemaInfo> first = sets.generateFor("21.T11148/test").get(400, TimeUnit.MILLISECONDS);
+        assertEquals(Set.of("fast"), first.stream().map(SchemaInfo::origin).collect(Collectors.toSet()));
+
+        Thread.sleep(800);
+        Set<SchemaInfo> later = sets.generateFor("21.T11148/test").join();
+        assertEquals(Set.of("fast", "slow"), later.stream().map(SchemaInfo::origin).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void firstUsableWinsWaitsForAllIfNoneIsUsable() {
+        SchemaSetGenerator sets = generatorWith(true, 5000,
+                new DelayedGenerator("a", 0, false),
+                new DelayedGenerator("b", 100, false));
+        Set<SchemaInfo> schemas = sets.generateFor("21.T11148/test").join();
+        assertEquals(2, schemas.size());
+    }
+
+    private record UnknownTypeGenerator(String origin, AtomicInteger calls) implements SchemaGenerator {
+        @Override
+        public SchemaInfo generateSchema(String maybeTypePid) {
+            calls.incrementAndGet();
+            return new SchemaInfo(origin, null, new TypeNotFoundException(maybeTypePid));
+        }
+
+        @Override
+        public SchemaInfo schemaFromResponse(String maybeTypePid, String responseBody) {
+            return generateSchema(maybeTypePid);
+        }
+    }
+
+    @Test
+    void typesUnknownToAllSourcesAreRemembered() {
+        AtomicInteger calls = new AtomicInteger();
+        SchemaSetGenerator sets = generatorWith(false, 5000,
+                new UnknownTypeGenerator("a", calls),
+                new UnknownTypeGenerator("b", calls));
+        for (int i = 0; i < 3; i++) {
+            Set<SchemaInfo> schemas = sets.generateFor("21.T11148/unknown").join();
+            assertEquals(Set.of("a", "b"), schemas.stream().map(SchemaInfo::origin).collect(Collectors.toSet()));
+            assertTrue(schemas.stream().allMatch(info -> info.error() instanceof TypeNotFoundException));
+        }
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void unchangedSchemaIsNotCompiledAgain() throws Exception {
+        AtomicInteger fullResponses = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            if ("\"s1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] body = "{\"type\": \"string\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", "\"s1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            ApplicationProperties props = new ApplicationProperties();
+            props.setTypeRegistryUri(new URI("http://localhost:" + server.getAddress().getPort() + "/").toURL());
+            TypeApiSchemaGenerator generator = new TypeApiSchemaGenerator(
+                    props, RegistryResponseStore.disabled(), RegistryHttpClients.withDefaults());
+
+            SchemaInfo first = generator.generateSchema("21.T11148/test");
+            assertNotNull(first.schema());
+            assertEquals("\"s1\"", first.validators().etag());
+            assertSame(first, generator.regenerateSchema("21.T11148/test", first));
+            assertEquals(1, fullResponses.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import edu.kit.datamanager.pit.RecordTestHelper;
 import edu.kit.datamanager.pit.SpringTestHelper;
+import edu.kit.datamanager.pit.common.ManagedExecutors;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
 import edu.kit.datamanager.pit.domain.PIDRecord;
 import edu.kit.datamanager.pit.domain.SimplePidRecord;
@@ -84,6 +85,9 @@ class ExplicitValidationParametersTest {
     @Autowired
     private ApplicationProperties appProps;
 
+    @Autowired
+    private ManagedExecutors executors;
+
     private MockMvc mockMvc;
 
     @Autowired
@@ -97,7 +101,7 @@ class ExplicitValidationParametersTest {
         this.mockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
         this.knownPidsDao.deleteAll();
         this.typingService.setValidationStrategy(
-                this.appProps.defaultValidationStrategy(typeRegistry));
+                this.appProps.defaultValidationStrategy(typeRegistry, executors));
     }
 
     @Test
@@ -285,7 +289,7 @@ class ExplicitValidationParametersTest {
         String validPid = knownPidsDao.findAll().getFirst().getPid();
         // ... so we need to re-enable validation here:
         this.typingService.setValidationStrategy(
-                this.appProps.defaultValidationStrategy(typeRegistry));
+                this.appProps.defaultValidationStrategy(typeRegistry, executors));
         // Now, we can resolve and validate:
         MvcResult result = this.mockMvc
             .perform(
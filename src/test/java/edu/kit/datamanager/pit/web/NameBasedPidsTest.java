@@ -0,0 +1,158 @@
+package edu.kit.datamanager.pit.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import edu.kit.datamanager.pit.domain.PIDRecord;
+import edu.kit.datamanager.pit.pidlog.KnownPidsDao;
+import edu.kit.datamanager.pit.pitservice.ITypingService;
+import edu.kit.datamanager.pit.pitservice.impl.NoValidationStrategy;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+@TestPropertySource(
+    locations = "/test/application-test.properties",
+    properties = {"pit.pidgeneration.mode = uuid5"}
+)
+@ActiveProfiles("test")
+class NameBasedPidsTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ITypingService typingService;
+
+    @Autowired
+    private KnownPidsDao knownPidsDao;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        this.typingService.setValidationStrategy(new NoValidationStrategy());
+        this.knownPidsDao.deleteAll();
+    }
+
+    private static PIDRecord someRecord(String location) {
+        PIDRecord pidRecord = new PIDRecord();
+        pidRecord.addEntry("21.T11148/b8457812905b83046284", "digitalObjectLocation", location);
+        return pidRecord;
+    }
+
+    private String register(PIDRecord pidRecord, ResultMatcher expectHttpCode) throws Exception {
+        String body = ApiMockUtils.registerRecord(
+            this.mockMvc,
+            ApiMockUtils.serialize(pidRecord),
+            MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_JSON_VALUE,
+            expectHttpCode
+        );
+        return ApiMockUtils.deserializeRecord(body).getPid();
+    }
+
+    /**
+     * Test: Register the same content twice.
+     * Expect: HTTP 201 (created), then HTTP 200 (ok) with the same PID.
+     */
+    @Test
+    void resubmissionReturnsTheExistingPid() throws Exception {
+        String first = register(someRecord("https://example.com/resubmitted"), MockMvcResultMatchers.status().isCreated());
+        String second = register(someRecord("https://example.com/resubmitted"), MockMvcResultMatchers.status().isOk());
+        assertEquals(first, second);
+        assertEquals(1, knownPidsDao.count());
+
+        String other = register(someRecord("https://example.com/other"), MockMvcResultMatchers.status().isCreated());
+        assertNotEquals(first, other);
+    }
+
+    /**
+     * Test: Register a batch, in which two records have the same content, twice.
+     * Expect: Both records get the same PID, and the resubmission returns the same PIDs.
+     */
+    @Test
+    void batchesReuseExistingPids() throws Exception {
+        PIDRecord first = someRecord("https://example.com/batch").withPID("tmp-1");
+        PIDRecord duplicate = someRecord("https://example.com/batch").withPID("tmp-2");
+        PIDRecord other = someRecord("https://example.com/batch-other").withPID("tmp-3");
+        String batch = ApiMockUtils.getJsonMapper().writeValueAsString(List.of(first, duplicate, other));
+
+        JsonNode mapping = postBatch(batch);
+        assertEquals(mapping.get("tmp-1"), mapping.get("tmp-2"));
+        assertNotEquals(mapping.get("tmp-1"), mapping.get("tmp-3"));
+        assertEquals(mapping, postBatch(batch));
+    }
+
+    /**
+     * Test: Register the same batch twice, with different temporary PIDs for the
+     * same records, in which one record refers to the other.
+     * Expect: The PIDs are derived from the content with the real references, so
+     * both batches get the same PIDs.
+     */
+    @Test
+    void batchPidsAreDerivedAfterResolvingReferences() throws Exception {
+        JsonNode first = postBatch(referringBatch("tmp-a", "tmp-b"));
+        JsonNode second = postBatch(referringBatch("other-a", "other-b"));
+        assertEquals(first.get("tmp-a"), second.get("other-a"));
+        assertEquals(first.get("tmp-b"), second.get("other-b"));
+    }
+
+    private static String referringBatch(String referring, String referred) throws Exception {
+        PIDRecord referringRecord = someRecord("https://example.com/referring").withPID(referring);
+        referringRecord.addEntry("21.T11148/d0773859091aeb451528", "hasMetadata", referred);
+        PIDRecord referredRecord = someRecord("https://example.com/referred").withPID(referred);
+        return ApiMockUtils.getJsonMapper().writeValueAsString(List.of(referringRecord, referredRecord));
+    }
+
+    /**
+     * Test: Register a batch with two records referring to each other.
+     * Expect: HTTP 400, as neither PID can be derived before the other.
+     */
+    @Test
+    void cyclicReferencesAreRejected() throws Exception {
+        PIDRecord first = someRecord("https://example.com/cycle-1").withPID("tmp-1");
+        first.addEntry("21.T11148/d0773859091aeb451528", "hasMetadata", "tmp-2");
+        PIDRecord second = someRecord("https://example.com/cycle-2").withPID("tmp-2");
+        second.addEntry("21.T11148/d0773859091aeb451528", "hasMetadata", "tmp-1");
+        String batch = ApiMockUtils.getJsonMapper().writeValueAsString(List.of(first, second));
+
+        this.mockMvc
+                .perform(post("/api/v1/pit/pids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        assertEquals(0, knownPidsDao.count());
+    }
+
+    private JsonNode postBatch(String batch) throws Exception {
+        String response = this.mockMvc
+                .perform(post("/api/v1/pit/pids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return ApiMockUtils.getJsonMapper().readTree(response).get("mapping");
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.http.MediaType;
 import org.springframework.web.context.WebApplicationContext;
 
 import edu.kit.datamanager.pit.RecordTestHelper;
+import edu.kit.datamanager.pit.common.ManagedExecutors;
 import edu.kit.datamanager.pit.configuration.ApplicationProperties;
 import edu.kit.datamanager.pit.domain.PIDRecord;
 import edu.kit.datamanager.pit.pidgeneration.PidSuffixGenerator;
@@ -87,6 +88,9 @@ class RestWithLocalPidSystemTest {
     @Autowired
     ApplicationProperties appProps;
 
+    @Autowired
+    private ManagedExecutors executors;
+
     private MockMvc mockMvc;
 
     private ObjectMapper mapper;
@@ -104,7 +108,7 @@ class RestWithLocalPidSystemTest {
         this.mapper = this.webApplicationContext.getBean("OBJECT_MAPPER_BEAN", ObjectMapper.class);
         this.knownPidsDao.deleteAll();
         this.typingService.setValidationStrategy(
-                this.appProps.defaultValidationStrategy(typeRegistry));
+                this.appProps.defaultValidationStrategy(typeRegistry, executors));
     }
 
     @Test